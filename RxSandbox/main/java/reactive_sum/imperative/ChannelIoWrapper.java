@@ -0,0 +1,138 @@
+package reactive_sum.imperative;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.NoSuchElementException;
+
+/**
+ * IoWrapper that reads lines straight out of a channel instead of going through Scanner. Files
+ * are memory-mapped a window at a time, any other channel is read into a reusable buffer. Lines
+ * are exposed as a {@link ByteLine} over the buffer, so nothing is decoded unless
+ * {@link #getInput()} is called.
+ */
+public class ChannelIoWrapper extends IoWrapper implements Closeable {
+    static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+    private static final int DEFAULT_READ_BUFFER_SIZE = 64 * 1024;
+
+    private final ReadableByteChannel channel;
+    private final int windowSize;
+    private final ByteLine line = new ByteLine();
+    private ByteBuffer buffer;
+    private long windowStart;
+    private boolean endOfInput;
+
+    public ChannelIoWrapper(Path file, MessageOutput output) throws IOException {
+        this(FileChannel.open(file, StandardOpenOption.READ), output, DEFAULT_WINDOW_SIZE);
+    }
+
+    public ChannelIoWrapper(ReadableByteChannel channel, PrintStream output) {
+        this(channel, new MessageOutput(output, FlushPolicy.immediate()),
+             channel instanceof FileChannel ? DEFAULT_WINDOW_SIZE : DEFAULT_READ_BUFFER_SIZE);
+    }
+
+    ChannelIoWrapper(ReadableByteChannel channel, MessageOutput output, int windowSize) {
+        super(output);
+        this.channel = channel;
+        this.windowSize = windowSize;
+        buffer = ByteBuffer.allocate(0);
+    }
+
+    @Override
+    public boolean nextLine() {
+        try {
+            while (true) {
+                int start = buffer.position();
+                int limit = buffer.limit();
+                for (int i = start; i < limit; i++) {
+                    if (buffer.get(i) == '\n') {
+                        setLine(start, i);
+                        buffer.position(i + 1);
+                        return true;
+                    }
+                }
+
+                if (endOfInput) {
+                    if (start == limit) {
+                        return false;
+                    }
+                    setLine(start, limit);
+                    buffer.position(limit);
+                    return true;
+                }
+
+                if (start == 0 && limit == windowSize) {
+                    throw new IllegalStateException("Line longer than " + windowSize + " bytes");
+                }
+                fill();
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public CharSequence getLine() {
+        return line;
+    }
+
+    @Override
+    public String getInput() {
+        if (!nextLine()) {
+            throw new NoSuchElementException("No line found");
+        }
+        return line.toString();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        channel.close();
+    }
+
+    private void setLine(int start, int end) {
+        if (end > start && buffer.get(end - 1) == '\r') {
+            end--;
+        }
+        line.set(buffer, start, end - start);
+    }
+
+    private void fill() throws IOException {
+        if (channel instanceof FileChannel) {
+            map((FileChannel) channel);
+        } else {
+            read();
+        }
+    }
+
+    private void map(FileChannel file) throws IOException {
+        windowStart += buffer.position();
+        long length = Math.min(windowSize, file.size() - windowStart);
+        buffer = file.map(FileChannel.MapMode.READ_ONLY, windowStart, length);
+        endOfInput = windowStart + length == file.size();
+    }
+
+    private void read() throws IOException {
+        if (buffer.capacity() < windowSize) {
+            ByteBuffer larger = ByteBuffer.allocateDirect(windowSize);
+            larger.put(buffer);
+            buffer = larger;
+        } else {
+            buffer.compact();
+        }
+
+        int read = 0;
+        while (read == 0) {
+            read = channel.read(buffer);
+        }
+        if (read < 0) {
+            endOfInput = true;
+        }
+        buffer.flip();
+    }
+}
@@ -0,0 +1,39 @@
+package reactive_sum.imperative;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * When a {@link Journal} forces its appended records to disk: after a number of records, a number
+ * of bytes or an elapsed time, whichever comes first.
+ */
+public class CommitPolicy {
+    private final int maxBytes;
+    private final int maxRecords;
+    private final long maxDelayNanos;
+
+    private CommitPolicy(int maxBytes, int maxRecords, long maxDelayNanos) {
+        this.maxBytes = maxBytes;
+        this.maxRecords = maxRecords;
+        this.maxDelayNanos = maxDelayNanos;
+    }
+
+    public static CommitPolicy grouped(int maxBytes, int maxRecords, long maxDelay, TimeUnit unit) {
+        if (maxBytes < 0 || maxRecords < 1 || maxDelay < 0) {
+            throw new IllegalArgumentException("Invalid commit policy: " + maxBytes + " bytes, "
+                                                       + maxRecords + " records, " + maxDelay + " " + unit);
+        }
+        return new CommitPolicy(maxBytes, maxRecords, unit.toNanos(maxDelay));
+    }
+
+    public int getMaxBytes() {
+        return maxBytes;
+    }
+
+    public int getMaxRecords() {
+        return maxRecords;
+    }
+
+    public long getMaxDelayNanos() {
+        return maxDelayNanos;
+    }
+}
@@ -0,0 +1,110 @@
+package reactive_sum.imperative;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread-safe two-variable model without a lock. The parser only produces values in
+ * [0, Integer.MAX_VALUE], so a and b fit in 31 bits each and the whole state, including both
+ * updated flags, packs into a single long that every set replaces with one CAS. A read is a single
+ * volatile load, so the sum and the updated flag it reports always belong together.
+ *
+ * Layout: bits 0-30 a, bit 31 a updated, bits 32-62 b, bit 63 b updated.
+ */
+public class ConcurrentReactiveSumModel {
+    private static final long VALUE_MASK = 0x7FFFFFFFL;
+    private static final long A_UPDATED = 1L << 31;
+    private static final long B_UPDATED = 1L << 63;
+    private static final int B_SHIFT = 32;
+
+    private final AtomicLong state = new AtomicLong(A_UPDATED | B_UPDATED);
+
+    public boolean isSumUpdated() {
+        return isSumUpdated(state.get());
+    }
+
+    public long getSum() {
+        return sum(state.get());
+    }
+
+    public Snapshot getSnapshot() {
+        return new Snapshot(state.get());
+    }
+
+    public void setA(int aUpdate) {
+        checkValue(aUpdate);
+        long current;
+        long next;
+        do {
+            current = state.get();
+            next = aUpdate != a(current)
+                    ? (current & ~(VALUE_MASK | A_UPDATED)) | aUpdate | A_UPDATED
+                    : current & ~A_UPDATED;
+        } while (current != next && !state.compareAndSet(current, next));
+    }
+
+    public int getA() {
+        return a(state.get());
+    }
+
+    public void setB(int bUpdate) {
+        checkValue(bUpdate);
+        long current;
+        long next;
+        do {
+            current = state.get();
+            next = bUpdate != b(current)
+                    ? (current & ~((VALUE_MASK << B_SHIFT) | B_UPDATED)) | ((long) bUpdate << B_SHIFT) | B_UPDATED
+                    : current & ~B_UPDATED;
+        } while (current != next && !state.compareAndSet(current, next));
+    }
+
+    public int getB() {
+        return b(state.get());
+    }
+
+    private static int a(long state) {
+        return (int) (state & VALUE_MASK);
+    }
+
+    private static int b(long state) {
+        return (int) ((state >>> B_SHIFT) & VALUE_MASK);
+    }
+
+    private static long sum(long state) {
+        return (long) a(state) + b(state);
+    }
+
+    private static boolean isSumUpdated(long state) {
+        return (state & (A_UPDATED | B_UPDATED)) == (A_UPDATED | B_UPDATED);
+    }
+
+    private static void checkValue(int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Value must not be negative: " + value);
+        }
+    }
+
+    public static class Snapshot {
+        private final long state;
+
+        private Snapshot(long state) {
+            this.state = state;
+        }
+
+        public int getA() {
+            return a(state);
+        }
+
+        public int getB() {
+            return b(state);
+        }
+
+        public long getSum() {
+            return sum(state);
+        }
+
+        public boolean isSumUpdated() {
+            return ConcurrentReactiveSumModel.isSumUpdated(state);
+        }
+    }
+}
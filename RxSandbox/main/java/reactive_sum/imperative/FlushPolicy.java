@@ -0,0 +1,56 @@
+package reactive_sum.imperative;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * When a {@link MessageOutput} hands its buffer to the underlying stream: after a number of
+ * buffered chars, a number of updates or an elapsed time, whichever comes first. A conflating
+ * policy additionally keeps only the latest message with the given prefix per flush window.
+ */
+public class FlushPolicy {
+    private static final FlushPolicy IMMEDIATE = new FlushPolicy(0, 1, 0, null);
+
+    private final int maxBufferedChars;
+    private final int maxUpdates;
+    private final long maxDelayNanos;
+    private final String conflatedPrefix;
+
+    private FlushPolicy(int maxBufferedChars, int maxUpdates, long maxDelayNanos, String conflatedPrefix) {
+        this.maxBufferedChars = maxBufferedChars;
+        this.maxUpdates = maxUpdates;
+        this.maxDelayNanos = maxDelayNanos;
+        this.conflatedPrefix = conflatedPrefix;
+    }
+
+    public static FlushPolicy immediate() {
+        return IMMEDIATE;
+    }
+
+    public static FlushPolicy buffered(int maxBufferedChars, int maxUpdates, long maxDelay, TimeUnit unit) {
+        if (maxBufferedChars < 0 || maxUpdates < 1 || maxDelay < 0) {
+            throw new IllegalArgumentException("Invalid flush policy: " + maxBufferedChars + " chars, "
+                                                       + maxUpdates + " updates, " + maxDelay + " " + unit);
+        }
+        return new FlushPolicy(maxBufferedChars, maxUpdates, unit.toNanos(maxDelay), null);
+    }
+
+    public FlushPolicy conflating(String prefix) {
+        return new FlushPolicy(maxBufferedChars, maxUpdates, maxDelayNanos, prefix);
+    }
+
+    public int getMaxBufferedChars() {
+        return maxBufferedChars;
+    }
+
+    public int getMaxUpdates() {
+        return maxUpdates;
+    }
+
+    public long getMaxDelayNanos() {
+        return maxDelayNanos;
+    }
+
+    public boolean isConflated(String message) {
+        return conflatedPrefix != null && message.startsWith(conflatedPrefix);
+    }
+}
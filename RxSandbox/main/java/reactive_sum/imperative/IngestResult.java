@@ -0,0 +1,24 @@
+package reactive_sum.imperative;
+
+public class IngestResult {
+    private final long processed;
+    private final long rejected;
+
+    public IngestResult(long processed, long rejected) {
+        this.processed = processed;
+        this.rejected = rejected;
+    }
+
+    public long getProcessed() {
+        return processed;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    @Override
+    public String toString() {
+        return "IngestResult{processed=" + processed + ", rejected=" + rejected + "}";
+    }
+}
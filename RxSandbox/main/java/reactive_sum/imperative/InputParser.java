@@ -0,0 +1,115 @@
+package reactive_sum.imperative;
+
+/**
+ * Hand-written replacement for the "([A-Za-z_][A-Za-z0-9_]*):\s(\d+)" regex. Parses a line in
+ * place and keeps the result in fields, so a parse allocates nothing: the variable name is
+ * reported as a range of the parsed line. Values that do not fit in an int are rejected instead of
+ * blowing up with a NumberFormatException.
+ */
+public class InputParser {
+    private static final String QUIT_FLAG = "quit";
+
+    private CharSequence line;
+    private int nameStart;
+    private int nameEnd;
+    private int value;
+
+    public boolean parse(CharSequence line) {
+        return parse(line, 0, line.length());
+    }
+
+    public boolean parse(CharSequence line, int start, int end) {
+        if (start == end || !isIdentifierStart(line.charAt(start))) {
+            return false;
+        }
+        int colon = start + 1;
+        while (colon < end && isIdentifierPart(line.charAt(colon))) {
+            colon++;
+        }
+        if (end - colon < 3 || line.charAt(colon) != ':' || !isWhitespace(line.charAt(colon + 1))) {
+            return false;
+        }
+
+        int result = 0;
+        for (int i = colon + 2; i < end; i++) {
+            int digit = line.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return false;
+            }
+            if (result > (Integer.MAX_VALUE - digit) / 10) {
+                return false;
+            }
+            result = result * 10 + digit;
+        }
+
+        this.line = line;
+        nameStart = start;
+        nameEnd = colon;
+        value = result;
+        return true;
+    }
+
+    public boolean isQuit(CharSequence line) {
+        return isQuit(line, 0, line.length());
+    }
+
+    public boolean isQuit(CharSequence line, int start, int end) {
+        if (end - start != QUIT_FLAG.length()) {
+            return false;
+        }
+        for (int i = 0; i < QUIT_FLAG.length(); i++) {
+            if (Character.toLowerCase(line.charAt(start + i)) != QUIT_FLAG.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The line the last successful parse ran on; the variable name is the range
+     * [{@link #getNameStart()}, {@link #getNameEnd()}) of it.
+     */
+    public CharSequence getLine() {
+        return line;
+    }
+
+    public int getNameStart() {
+        return nameStart;
+    }
+
+    public int getNameEnd() {
+        return nameEnd;
+    }
+
+    public boolean isVariable(String name) {
+        if (nameEnd - nameStart != name.length()) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (line.charAt(nameStart + i) != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public String getVariable() {
+        return line.subSequence(nameStart, nameEnd).toString();
+    }
+
+    public int getValue() {
+        return value;
+    }
+
+    private static boolean isIdentifierStart(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return isIdentifierStart(c) || (c >= '0' && c <= '9');
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+}
@@ -6,18 +6,54 @@ import java.util.Scanner;
 
 public class IoWrapper {
     private final Scanner scanner;
-    private final PrintStream output;
+    private final MessageOutput output;
+    private String line;
 
     public IoWrapper(InputStream input, PrintStream output) {
+        this(input, new MessageOutput(output, FlushPolicy.immediate()));
+    }
+
+    public IoWrapper(InputStream input, MessageOutput output) {
         scanner = new Scanner(input);
         this.output = output;
     }
 
+    protected IoWrapper(MessageOutput output) {
+        scanner = null;
+        this.output = output;
+    }
+
     public String getInput() {
         return scanner.nextLine();
     }
 
+    /**
+     * Advances to the next line, returning false at end of input. The line is then available from
+     * {@link #getLine()} until the next call.
+     */
+    public boolean nextLine() {
+        if (!scanner.hasNextLine()) {
+            return false;
+        }
+        line = scanner.nextLine();
+        return true;
+    }
+
+    public CharSequence getLine() {
+        return line;
+    }
+
     public void printMessage(String message) {
         output.print(message);
     }
+
+    public void newLine() {
+        output.newLine();
+    }
+
+    public void flush() {
+        if (output != null) {
+            output.flush();
+        }
+    }
 }
@@ -0,0 +1,294 @@
+package reactive_sum.imperative;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only binary log of model updates, written through a memory-mapped region so an append is
+ * a couple of stores into the page cache. Appended records become durable in groups: a committer
+ * thread forces the mapped region to disk every {@link CommitPolicy#getMaxDelayNanos()}, or sooner
+ * once the policy's record or byte count is reached, so the appending thread never waits for the
+ * disk. A region that fills up is handed to the committer as well. {@link #commit()} forces
+ * synchronously.
+ *
+ * A journal can follow a previous one, which its committer closes before forcing anything itself,
+ * so the records of a later journal never reach the disk ahead of those of an earlier one.
+ *
+ * Records are a type byte followed by the payload and a CRC32 of both:
+ * <pre>
+ *   'D' short length, name bytes (UTF-8), int crc   defines the next slot
+ *   'S' int slot, int value, int crc                 sets a slot
+ * </pre>
+ * A zero type byte marks the end of the log. The order of the stores into the mapping says nothing
+ * about which of them reach the disk, so after a power loss a record may come back with its type
+ * byte but a zeroed or stale payload; replay stops at the first record whose checksum does not
+ * match.
+ */
+public class Journal implements Closeable {
+    static final byte DEFINE = 'D';
+    static final byte SET = 'S';
+    private static final int REGION_SIZE = 64 * 1024 * 1024;
+    private static final int CHECKSUM_SIZE = 4;
+    private static final int SET_RECORD_SIZE = 9 + CHECKSUM_SIZE;
+
+    private final FileChannel channel;
+    private final CommitPolicy commitPolicy;
+    private final Thread committer;
+    private final CountDownLatch previousClosed = new CountDownLatch(1);
+    // full regions not forced yet; only the committer removes them
+    private final Queue<MappedByteBuffer> fullRegions = new ConcurrentLinkedQueue<>();
+    private final CRC32 crc = new CRC32();
+    private Journal previous;
+    private volatile IOException previousFailure;
+    private MappedByteBuffer region;
+    // second view of the region for checksumming, whose position and limit appends don't use
+    private ByteBuffer checksumView;
+    // the region the committer forces; kept apart so appends don't pay for volatile reads
+    private volatile MappedByteBuffer committedRegion;
+    private volatile boolean open = true;
+    private long regionStart;
+    private int uncommittedRecords;
+    private int uncommittedBytes;
+
+    public Journal(Path file, CommitPolicy commitPolicy) throws IOException {
+        this(file, commitPolicy, null);
+    }
+
+    /**
+     * @param previous the journal this one follows, closed by this one's committer; may be null
+     */
+    public Journal(Path file, CommitPolicy commitPolicy, Journal previous) throws IOException {
+        this.previous = previous;
+        channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                                   StandardOpenOption.WRITE);
+        this.commitPolicy = commitPolicy;
+        region = channel.map(FileChannel.MapMode.READ_WRITE, 0, REGION_SIZE);
+        checksumView = region.duplicate();
+        committedRegion = region;
+
+        committer = new Thread(this::commitLoop, "JournalCommitter-" + file.getFileName());
+        committer.setDaemon(true);
+        committer.start();
+    }
+
+    public void appendDefine(String name) throws IOException {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Variable name too long: " + bytes.length + " bytes");
+        }
+        int length = 3 + bytes.length + CHECKSUM_SIZE;
+        int position = reserve(length);
+        region.putShort(position + 1, (short) bytes.length);
+        for (int i = 0; i < bytes.length; i++) {
+            region.put(position + 3 + i, bytes[i]);
+        }
+        publish(position, DEFINE, length);
+    }
+
+    public void appendSet(int slot, int value) throws IOException {
+        int position = reserve(SET_RECORD_SIZE);
+        region.putInt(position + 1, slot);
+        region.putInt(position + 5, value);
+        publish(position, SET, SET_RECORD_SIZE);
+    }
+
+    /**
+     * Forces everything appended so far, and everything in the previous journal, to disk.
+     */
+    public void commit() {
+        awaitPrevious();
+        for (MappedByteBuffer full : fullRegions) {
+            full.force();
+        }
+        region.force();
+    }
+
+    public long size() {
+        return regionStart + region.position();
+    }
+
+    @Override
+    public void close() throws IOException {
+        open = false;
+        LockSupport.unpark(committer);
+        try {
+            committer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        commit();
+        long size = size();
+        region = null;
+        checksumView = null;
+        committedRegion = null;
+        channel.truncate(size);
+        channel.close();
+        if (previousFailure != null) {
+            throw previousFailure;
+        }
+    }
+
+    private int reserve(int length) throws IOException {
+        if (region.remaining() < length) {
+            fullRegions.offer(region);
+            regionStart += region.position();
+            region = channel.map(FileChannel.MapMode.READ_WRITE, regionStart, Math.max(REGION_SIZE, length));
+            checksumView = region.duplicate();
+            committedRegion = region;
+            LockSupport.unpark(committer);
+        }
+        return region.position();
+    }
+
+    private void publish(int position, byte type, int length) {
+        region.put(position, type);
+        int checksumPosition = position + length - CHECKSUM_SIZE;
+        region.putInt(checksumPosition, checksum(crc, checksumView, position, checksumPosition));
+        region.position(position + length);
+
+        uncommittedBytes += length;
+        if (++uncommittedRecords >= commitPolicy.getMaxRecords()
+                || uncommittedBytes >= commitPolicy.getMaxBytes()) {
+            uncommittedRecords = 0;
+            uncommittedBytes = 0;
+            LockSupport.unpark(committer);
+        }
+    }
+
+    private void commitLoop() {
+        closePrevious();
+        while (open) {
+            LockSupport.parkNanos(this, commitPolicy.getMaxDelayNanos());
+            MappedByteBuffer full;
+            while ((full = fullRegions.peek()) != null) {
+                full.force();
+                fullRegions.poll();
+            }
+            committedRegion.force();
+        }
+    }
+
+    private void closePrevious() {
+        try {
+            if (previous != null) {
+                previous.close();
+            }
+        } catch (IOException e) {
+            previousFailure = e;
+        } finally {
+            previous = null;
+            previousClosed.countDown();
+        }
+    }
+
+    /**
+     * Waits until the previous journal is closed, and so on disk.
+     */
+    void awaitPrevious() {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                previousClosed.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Replays every complete record of a journal file into the given visitor, up to the first one
+     * that is cut off or fails its checksum.
+     */
+    static void read(Path file, Visitor visitor) throws IOException {
+        CRC32 crc = new CRC32();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+            buffer.flip();
+            while (true) {
+                if (!ensure(channel, buffer, 1)) {
+                    return;
+                }
+                int position = buffer.position();
+                byte type = buffer.get(position);
+                if (type == SET) {
+                    if (!ensure(channel, buffer, SET_RECORD_SIZE) || !verify(crc, buffer, SET_RECORD_SIZE)) {
+                        return;
+                    }
+                    buffer.get();
+                    visitor.set(buffer.getInt(), buffer.getInt());
+                    buffer.getInt();
+                } else if (type == DEFINE) {
+                    if (!ensure(channel, buffer, 3)) {
+                        return;
+                    }
+                    int length = buffer.getShort(position + 1);
+                    if (length < 0 || !ensure(channel, buffer, 3 + length + CHECKSUM_SIZE)
+                            || !verify(crc, buffer, 3 + length + CHECKSUM_SIZE)) {
+                        return;
+                    }
+                    buffer.position(position + 3);
+                    byte[] name = new byte[length];
+                    buffer.get(name);
+                    buffer.getInt();
+                    visitor.define(new String(name, StandardCharsets.UTF_8));
+                } else {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Whether the record of the given length at the buffer's position matches its checksum.
+     */
+    private static boolean verify(CRC32 crc, ByteBuffer buffer, int length) {
+        int checksumPosition = buffer.position() + length - CHECKSUM_SIZE;
+        return buffer.getInt(checksumPosition) == checksum(crc, buffer.duplicate(), buffer.position(), checksumPosition);
+    }
+
+    /**
+     * CRC32 of the view's bytes from start to end, moving the view's position and limit.
+     */
+    private static int checksum(CRC32 crc, ByteBuffer view, int start, int end) {
+        view.clear();
+        view.position(start);
+        view.limit(end);
+        crc.reset();
+        crc.update(view);
+        return (int) crc.getValue();
+    }
+
+    private static boolean ensure(FileChannel channel, ByteBuffer buffer, int length) throws IOException {
+        while (buffer.remaining() < length) {
+            buffer.compact();
+            int read = channel.read(buffer);
+            buffer.flip();
+            if (read < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    interface Visitor {
+        void define(String name);
+
+        void set(int slot, int value);
+    }
+}
@@ -1,18 +1,64 @@
 package reactive_sum.imperative;
 
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
 public class Main {
+    private static final String SERVER_FLAG = "--server";
+    private static final String JOURNAL_FLAG = "--journal";
+    private static final int DEFAULT_PORT = 7070;
+    private static final FlushPolicy REPLAY_FLUSH_POLICY = FlushPolicy.buffered(64 * 1024, 4096, 100, TimeUnit.MILLISECONDS)
+                                                                     .conflating(ReactiveSum.SUM_MESSAGE);
+
 
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals(SERVER_FLAG)) {
+            serve(args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_PORT);
+            return;
+        }
+        if (args.length > 1 && args[0].equals(JOURNAL_FLAG)) {
+            try (ModelStore store = ModelStore.open(Paths.get(args[1]))) {
+                interactive(new ReactiveSum(store.getModel()));
+            }
+            return;
+        }
+        if (args.length > 0) {
+            replay(args[0]);
+            return;
+        }
 
+        interactive(new ReactiveSum());
+    }
 
-    public static void main(String[] args) {
+    private static void interactive(ReactiveSum reactiveSum) {
         System.out.println("Imperative Sum");
         System.out.println("Type 'a: <number>' and 'b: <number>' to try it");
 
-        ReactiveSum reactiveSum = new ReactiveSum();
         IoWrapper ioWrapper = new IoWrapper(System.in, System.out);
 
         while(reactiveSum.parseInput(ioWrapper)) {
-            System.out.println();
+            ioWrapper.newLine();
+        }
+    }
+
+    private static void serve(int port) throws IOException {
+        try (SumServer server = new SumServer(new InetSocketAddress(port))) {
+            System.out.println("Serving sums on " + server.getAddress());
+            server.run();
+        }
+    }
+
+    // Replays an update log through the byte-level reader instead of Scanner
+    private static void replay(String file) throws IOException {
+        ReactiveSum reactiveSum = new ReactiveSum();
+        MessageOutput output = new MessageOutput(System.out, REPLAY_FLUSH_POLICY);
+
+        try (ChannelIoWrapper ioWrapper = new ChannelIoWrapper(Paths.get(file), output)) {
+            while (ioWrapper.nextLine() && reactiveSum.parseLine(ioWrapper.getLine(), ioWrapper)) {
+                ioWrapper.newLine();
+            }
         }
     }
 
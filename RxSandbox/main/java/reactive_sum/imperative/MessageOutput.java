@@ -0,0 +1,89 @@
+package reactive_sum.imperative;
+
+import java.io.Flushable;
+import java.io.PrintStream;
+
+/**
+ * Collects messages and newlines in memory and writes them to the stream in one go whenever the
+ * {@link FlushPolicy} says so, instead of paying a synchronized write per update.
+ */
+public class MessageOutput implements Flushable {
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private final PrintStream sink;
+    private final FlushPolicy policy;
+    private final StringBuilder buffer = new StringBuilder();
+    private String conflated;
+    private boolean conflatedLine;
+    // something has been written since the last newline, so a conflated message has to wait
+    private boolean midLine;
+    private int updates;
+    private long windowStart = System.nanoTime();
+
+    public MessageOutput(PrintStream sink, FlushPolicy policy) {
+        this.sink = sink;
+        this.policy = policy;
+    }
+
+    public void print(String message) {
+        if (policy.isConflated(message)) {
+            conflated = message;
+            conflatedLine = true;
+            return;
+        }
+
+        buffer.append(message);
+        if (!message.isEmpty()) {
+            midLine = true;
+        }
+        if (buffer.length() >= policy.getMaxBufferedChars()) {
+            flush();
+        }
+    }
+
+    /**
+     * Ends the current update. The newline following a conflated message is dropped along with it
+     * and written again when the latest conflated message is flushed.
+     */
+    public void newLine() {
+        if (conflatedLine) {
+            conflatedLine = false;
+        } else {
+            buffer.append(LINE_SEPARATOR);
+            midLine = false;
+        }
+
+        if (++updates >= policy.getMaxUpdates()
+                || buffer.length() >= policy.getMaxBufferedChars()
+                || System.nanoTime() - windowStart >= policy.getMaxDelayNanos()) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes everything buffered. The latest conflated message is only written at the start of a
+     * line; a flush triggered by the buffer size in the middle of an update keeps it for the next
+     * flush.
+     */
+    @Override
+    public void flush() {
+        if (conflated != null && !midLine) {
+            buffer.append(conflated);
+            if (conflatedLine) {
+                conflatedLine = false;
+                midLine = true;
+            } else {
+                buffer.append(LINE_SEPARATOR);
+            }
+            conflated = null;
+        }
+
+        if (buffer.length() > 0) {
+            sink.append(buffer);
+            sink.flush();
+            buffer.setLength(0);
+        }
+        updates = 0;
+        windowStart = System.nanoTime();
+    }
+}
@@ -0,0 +1,327 @@
+package reactive_sum.imperative;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps a ReactiveSumModel durable in a directory of snapshots and journals. Every define and set
+ * on {@link #getModel()} is appended to the current {@link Journal}; every
+ * {@code snapshotInterval} records the whole model is written to a compact snapshot and a fresh
+ * journal is started, so recovery only has to load the latest snapshot and replay its journal.
+ *
+ * The ingest thread never waits for the disk: at a snapshot it only copies the model's values and
+ * maps the next journal. Writing and syncing the snapshot and deleting older generations happen on
+ * a background thread, and the previous journal is closed by the committer of the next one. A
+ * failure there is thrown from the next snapshot or from {@link #close()}.
+ *
+ * Files are numbered by generation: snapshot-N holds the state before journal-N.
+ */
+public class ModelStore implements Closeable {
+    public static final CommitPolicy DEFAULT_COMMIT_POLICY = CommitPolicy.grouped(1024 * 1024, 64 * 1024, 10,
+                                                                                  TimeUnit.MILLISECONDS);
+    public static final long DEFAULT_SNAPSHOT_INTERVAL = 16_000_000;
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String JOURNAL_PREFIX = "journal-";
+    private static final int SNAPSHOT_MAGIC = 0x52535331;
+
+    private final Path directory;
+    private final CommitPolicy commitPolicy;
+    private final long snapshotInterval;
+    private final JournaledModel model = new JournaledModel();
+    private final ExecutorService snapshotWriter;
+    private volatile IOException snapshotFailure;
+    private Journal journal;
+    private long generation;
+    private long recordsSinceSnapshot;
+    private boolean recovering;
+
+    private ModelStore(Path directory, CommitPolicy commitPolicy, long snapshotInterval) {
+        this.directory = directory;
+        this.commitPolicy = commitPolicy;
+        this.snapshotInterval = snapshotInterval;
+        this.snapshotWriter = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ModelStoreSnapshots-" + directory.getFileName());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static ModelStore open(Path directory) throws IOException {
+        return open(directory, DEFAULT_COMMIT_POLICY, DEFAULT_SNAPSHOT_INTERVAL);
+    }
+
+    /**
+     * Opens the store in the given directory, restoring the model from the latest snapshot and the
+     * journals written after it, then starts a new generation.
+     */
+    public static ModelStore open(Path directory, CommitPolicy commitPolicy, long snapshotInterval) throws IOException {
+        Files.createDirectories(directory);
+        ModelStore store = new ModelStore(directory, commitPolicy, snapshotInterval);
+        store.recover();
+        store.snapshot();
+        return store;
+    }
+
+    public ReactiveSumModel getModel() {
+        return model;
+    }
+
+    public void commit() {
+        journal.commit();
+    }
+
+    /**
+     * Writes the current model to a new snapshot, switches to a new journal and deletes the files
+     * of older generations, waiting until all of that is on disk.
+     */
+    public void snapshot() throws IOException {
+        try {
+            startSnapshot().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while writing a snapshot");
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        }
+        checkSnapshotFailure();
+    }
+
+    @Override
+    public void close() throws IOException {
+        journal.close();
+        snapshotWriter.shutdown();
+        try {
+            snapshotWriter.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        checkSnapshotFailure();
+    }
+
+    /**
+     * Copies the model, starts the next journal generation and hands the snapshot to the writer.
+     */
+    private Future<?> startSnapshot() throws IOException {
+        checkSnapshotFailure();
+        Snapshot snapshot = new Snapshot(model);
+        long next = generation + 1;
+        Journal nextJournal = new Journal(directory.resolve(JOURNAL_PREFIX + next), commitPolicy, journal);
+        journal = nextJournal;
+        generation = next;
+        recordsSinceSnapshot = 0;
+
+        return snapshotWriter.submit(() -> {
+            try {
+                writeSnapshot(snapshot, next);
+                // the previous journal must be closed before its file goes
+                nextJournal.awaitPrevious();
+                deleteGenerationsBefore(next);
+            } catch (IOException e) {
+                snapshotFailure = e;
+            }
+        });
+    }
+
+    private void checkSnapshotFailure() throws IOException {
+        IOException failure = snapshotFailure;
+        if (failure != null) {
+            throw new IOException("Writing a snapshot failed", failure);
+        }
+    }
+
+    private void writeSnapshot(Snapshot snapshot, long generation) throws IOException {
+        Path file = directory.resolve(SNAPSHOT_PREFIX + generation);
+        Path temporary = directory.resolve(SNAPSHOT_PREFIX + generation + ".tmp");
+        try (FileOutputStream stream = new FileOutputStream(temporary.toFile());
+             DataOutputStream output = new DataOutputStream(new BufferedOutputStream(stream))) {
+            output.writeInt(SNAPSHOT_MAGIC);
+            output.writeInt(snapshot.names.length);
+            for (int slot = 0; slot < snapshot.names.length; slot++) {
+                output.writeUTF(snapshot.names[slot]);
+                output.writeInt(snapshot.values[slot]);
+                output.writeBoolean(snapshot.updated[slot]);
+            }
+            output.flush();
+            stream.getFD().sync();
+        }
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory();
+    }
+
+    /**
+     * Makes the snapshot's rename durable, and with it the creation of the journal of the same
+     * generation; until the directory is synced a power loss can undo either.
+     */
+    private void syncDirectory() throws IOException {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    private void deleteGenerationsBefore(long generation) throws IOException {
+        for (Path file : files(SNAPSHOT_PREFIX)) {
+            if (generation(file, SNAPSHOT_PREFIX) < generation) {
+                Files.delete(file);
+            }
+        }
+        for (Path file : files(JOURNAL_PREFIX)) {
+            if (generation(file, JOURNAL_PREFIX) < generation) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private void recover() throws IOException {
+        recovering = true;
+        try {
+            List<Path> snapshots = files(SNAPSHOT_PREFIX);
+            long snapshotGeneration = 0;
+            if (!snapshots.isEmpty()) {
+                Path latest = snapshots.get(snapshots.size() - 1);
+                snapshotGeneration = generation(latest, SNAPSHOT_PREFIX);
+                loadSnapshot(latest);
+            }
+            generation = snapshotGeneration;
+
+            for (Path file : files(JOURNAL_PREFIX)) {
+                long journalGeneration = generation(file, JOURNAL_PREFIX);
+                if (journalGeneration >= snapshotGeneration) {
+                    Journal.read(file, model);
+                    generation = Math.max(generation, journalGeneration);
+                }
+            }
+        } finally {
+            recovering = false;
+        }
+    }
+
+    private void loadSnapshot(Path file) throws IOException {
+        try (DataInputStream input = new DataInputStream(Files.newInputStream(file))) {
+            if (input.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("Not a model snapshot: " + file);
+            }
+            int size = input.readInt();
+            for (int i = 0; i < size; i++) {
+                int slot = model.slot(input.readUTF());
+                int value = input.readInt();
+                boolean updated = input.readBoolean();
+
+                // replay the sets that leave the variable in the same state
+                if (value != 0) {
+                    model.set(slot, value);
+                }
+                if (!updated) {
+                    model.set(slot, value);
+                }
+            }
+        }
+    }
+
+    private List<Path> files(String prefix) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, prefix + "[0-9]*")) {
+            for (Path file : stream) {
+                if (file.getFileName().toString().substring(prefix.length()).chars().allMatch(Character::isDigit)) {
+                    files.add(file);
+                }
+            }
+        }
+        Collections.sort(files, (left, right) -> Long.compare(generation(left, prefix), generation(right, prefix)));
+        return files;
+    }
+
+    private static long generation(Path file, String prefix) {
+        return Long.parseLong(file.getFileName().toString().substring(prefix.length()));
+    }
+
+    private void journaled() {
+        if (++recordsSinceSnapshot >= snapshotInterval) {
+            try {
+                startSnapshot();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * The model's variables as they were when a snapshot was started.
+     */
+    private static class Snapshot {
+        final String[] names;
+        final int[] values;
+        final boolean[] updated;
+
+        Snapshot(ReactiveSumModel model) {
+            int size = model.size();
+            names = new String[size];
+            values = new int[size];
+            updated = new boolean[size];
+            for (int slot = 0; slot < size; slot++) {
+                names[slot] = model.getName(slot);
+                values[slot] = model.get(slot);
+                updated[slot] = model.isUpdated(slot);
+            }
+        }
+    }
+
+    private class JournaledModel extends ReactiveSumModel implements Journal.Visitor {
+
+        JournaledModel() {
+            super(new String[0]);
+        }
+
+        @Override
+        public int slot(CharSequence name, int start, int end) {
+            int size = size();
+            int slot = super.slot(name, start, end);
+            if (slot == size && !recovering) {
+                try {
+                    journal.appendDefine(getName(slot));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                journaled();
+            }
+            return slot;
+        }
+
+        @Override
+        public void set(int slot, int update) {
+            super.set(slot, update);
+            if (!recovering) {
+                try {
+                    journal.appendSet(slot, update);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                journaled();
+            }
+        }
+
+        @Override
+        public void define(String name) {
+            slot(name);
+        }
+    }
+}
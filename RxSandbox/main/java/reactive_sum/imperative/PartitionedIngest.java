@@ -0,0 +1,255 @@
+package reactive_sum.imperative;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Ingests keyed lines such as "s42 a: 3" on many cores. The calling thread parses every line and
+ * routes it by a hash of its session key to one of N partitions. Each partition runs on its own
+ * thread, owns the models of its keys and is fed through a bounded {@link SpscRing}, so a model is
+ * only ever touched by one thread and the updates of a key are applied in the order submitted.
+ *
+ * Ingestion stops at a "quit" line. Call {@link #close()} after the last line; models can be read
+ * once it returns.
+ */
+public class PartitionedIngest implements AutoCloseable {
+    private static final long IDLE_PARK_NANOS = 50_000;
+
+    public interface SumListener {
+        /**
+         * Called on the partition thread whenever a session's sum is updated. The key is only valid
+         * for the duration of the call.
+         */
+        void sumUpdated(CharSequence key, long sum);
+    }
+
+    private final Partition[] partitions;
+    private final InputParser parser = new InputParser();
+    private long processed;
+    private long rejected;
+    private boolean closed;
+
+    public PartitionedIngest(int partitionCount, int queueCapacity) {
+        this(partitionCount, queueCapacity, null);
+    }
+
+    public PartitionedIngest(int partitionCount, int queueCapacity, SumListener listener) {
+        if (partitionCount < 1) {
+            throw new IllegalArgumentException("Need at least one partition: " + partitionCount);
+        }
+        partitions = new Partition[partitionCount];
+        for (int i = 0; i < partitionCount; i++) {
+            partitions[i] = new Partition(i, queueCapacity, listener);
+            partitions[i].start();
+        }
+    }
+
+    /**
+     * Parses one line and hands it to its partition, blocking while that partition's queue is full.
+     * Returns false if the line was rejected.
+     */
+    public boolean submit(CharSequence line) {
+        return submit(line, 0, line.length());
+    }
+
+    public boolean submit(CharSequence line, int start, int end) {
+        if (closed) {
+            throw new IllegalStateException("Ingest already closed");
+        }
+        processed++;
+
+        int keyEnd = start;
+        while (keyEnd < end && line.charAt(keyEnd) != ' ') {
+            keyEnd++;
+        }
+        if (keyEnd == start || keyEnd == end || !parser.parse(line, keyEnd + 1, end)) {
+            rejected++;
+            return false;
+        }
+
+        int hash = hash(line, start, keyEnd);
+        Partition partition = partitions[(hash & Integer.MAX_VALUE) % partitions.length];
+        Update update = partition.claim();
+        update.key.setLength(0);
+        update.key.append(line, start, keyEnd);
+        update.variable.setLength(0);
+        update.variable.append(line, parser.getNameStart(), parser.getNameEnd());
+        update.value = parser.getValue();
+        partition.ring.publish();
+        return true;
+    }
+
+    public IngestResult ingest(CharSequence lines) {
+        long processedBefore = processed;
+        long rejectedBefore = rejected;
+        int lineStart = 0;
+        for (int i = 0; i <= lines.length(); i++) {
+            if (i == lines.length() || lines.charAt(i) == '\n') {
+                int lineEnd = i > lineStart && lines.charAt(i - 1) == '\r' ? i - 1 : i;
+                if (parser.isQuit(lines, lineStart, lineEnd)) {
+                    break;
+                }
+                if (lineEnd > lineStart || i < lines.length()) {
+                    submit(lines, lineStart, lineEnd);
+                }
+                lineStart = i + 1;
+            }
+        }
+        return new IngestResult(processed - processedBefore, rejected - rejectedBefore);
+    }
+
+    public IngestResult ingest(IoWrapper ioWrapper) {
+        long processedBefore = processed;
+        long rejectedBefore = rejected;
+        while (ioWrapper.nextLine()) {
+            CharSequence line = ioWrapper.getLine();
+            if (parser.isQuit(line)) {
+                break;
+            }
+            submit(line);
+        }
+        return new IngestResult(processed - processedBefore, rejected - rejectedBefore);
+    }
+
+    /**
+     * Waits for every partition to apply its queued updates and stops the partition threads. An
+     * interrupt does not cut the wait short; it is restored once the partitions are done.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (Partition partition : partitions) {
+            partition.finished = true;
+            LockSupport.unpark(partition);
+        }
+        boolean interrupted = false;
+        for (Partition partition : partitions) {
+            while (partition.isAlive()) {
+                try {
+                    partition.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        for (Partition partition : partitions) {
+            if (partition.failure != null) {
+                throw new IllegalStateException("Partition " + partition.index + " failed", partition.failure);
+            }
+        }
+    }
+
+    public ReactiveSumModel getModel(CharSequence key) {
+        checkClosed();
+        Partition partition = partitions[(hash(key, 0, key.length()) & Integer.MAX_VALUE) % partitions.length];
+        int session = partition.sessions.get(key, 0, key.length());
+        return session < 0 ? null : partition.models[session];
+    }
+
+    public int getSessionCount() {
+        checkClosed();
+        int count = 0;
+        for (Partition partition : partitions) {
+            count += partition.sessionCount;
+        }
+        return count;
+    }
+
+    private void checkClosed() {
+        if (!closed) {
+            throw new IllegalStateException("Models can only be read after close()");
+        }
+    }
+
+    private static int hash(CharSequence key, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + key.charAt(i);
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private static class Update {
+        final StringBuilder key = new StringBuilder();
+        final StringBuilder variable = new StringBuilder();
+        int value;
+    }
+
+    private static class Partition extends Thread {
+        private final int index;
+        private final SpscRing<Update> ring;
+        private final SumListener listener;
+        private final SlotTable sessions = new SlotTable();
+        private ReactiveSumModel[] models = new ReactiveSumModel[16];
+        private int sessionCount;
+        private volatile boolean finished;
+        private volatile Throwable failure;
+
+        Partition(int index, int queueCapacity, SumListener listener) {
+            super("IngestPartition-" + index);
+            this.index = index;
+            this.ring = new SpscRing<>(queueCapacity, Update::new);
+            this.listener = listener;
+            setDaemon(true);
+        }
+
+        Update claim() {
+            Update update;
+            while ((update = ring.claim()) == null) {
+                if (failure != null) {
+                    throw new IllegalStateException("Partition " + index + " failed", failure);
+                }
+                Thread.yield();
+            }
+            return update;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    Update update = ring.peek();
+                    if (update == null) {
+                        if (finished && ring.peek() == null) {
+                            return;
+                        }
+                        LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                        continue;
+                    }
+                    apply(update);
+                    ring.release();
+                }
+            } catch (Throwable e) {
+                failure = e;
+            }
+        }
+
+        private void apply(Update update) {
+            int session = sessions.get(update.key, 0, update.key.length());
+            if (session < 0) {
+                session = addSession(update.key.toString());
+            }
+
+            ReactiveSumModel model = models[session];
+            model.set(model.slot(update.variable), update.value);
+            if (listener != null && model.isSumUpdated()) {
+                listener.sumUpdated(update.key, model.getSum());
+            }
+        }
+
+        private int addSession(String key) {
+            if (sessionCount == models.length) {
+                models = Arrays.copyOf(models, sessionCount * 2);
+            }
+            models[sessionCount] = new ReactiveSumModel();
+            sessions.put(key, sessionCount);
+            return sessionCount++;
+        }
+    }
+}
@@ -1,52 +1,186 @@
 package reactive_sum.imperative;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.file.Path;
 
 public class ReactiveSum {
 
-    private static final String PARSE_INPUT_REGEX = "(?<variable>[a|b]):\\s(?<value>\\d+)";
-    private static final String QUIT_FLAG = "quit";
-    private static final String SUM_MESSAGE = "Sum: ";
-    private static final String ERROR_MESSAGE = "Error: Invalid input";
-    private final ReactiveSumModel reactiveSumModel = new ReactiveSumModel();
+    public enum Outcome {
+        QUIT, INVALID, SUM_UPDATED, UNCHANGED
+    }
 
+    static final String SUM_MESSAGE = "Sum: ";
+    static final String ERROR_MESSAGE = "Error: Invalid input";
+    private static final int BULK_BUFFER_SIZE = 64 * 1024;
+    private final ReactiveSumModel reactiveSumModel;
+    private final InputParser parser = new InputParser();
+    private final int maxVariables;
 
+    public ReactiveSum() {
+        this(new ReactiveSumModel());
+    }
 
+    public ReactiveSum(ReactiveSumModel reactiveSumModel) {
+        this(reactiveSumModel, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param maxVariables most variables the model may hold; a line that would add another one is
+     *                     rejected as invalid
+     */
+    public ReactiveSum(ReactiveSumModel reactiveSumModel, int maxVariables) {
+        this.reactiveSumModel = reactiveSumModel;
+        this.maxVariables = maxVariables;
+    }
 
-    public boolean parseInput(IoWrapper ioWrapper) {
-        String input = ioWrapper.getInput();
 
-        if (input.equalsIgnoreCase(QUIT_FLAG)) {
-            return false;
-        }
 
-        Matcher matcher = Pattern.compile(PARSE_INPUT_REGEX).matcher(input);
-        if (matcher.matches()) {
-            String variable = matcher.group("variable");
-            String value = matcher.group("value");
-            setValue(variable, value);
-            if (reactiveSumModel.isSumUpdated()) {
+
+    public boolean parseInput(IoWrapper ioWrapper) {
+        return parseLine(ioWrapper.getInput(), ioWrapper);
+    }
+
+    public boolean parseLine(CharSequence input, IoWrapper ioWrapper) {
+        switch (apply(input, 0, input.length())) {
+            case QUIT:
+                return false;
+            case SUM_UPDATED:
                 ioWrapper.printMessage(SUM_MESSAGE + reactiveSumModel.getSum());
-            }
-        } else {
-            ioWrapper.printMessage(ERROR_MESSAGE);
+                break;
+            case INVALID:
+                ioWrapper.printMessage(ERROR_MESSAGE);
+                break;
         }
 
         return true;
     }
 
-    private void setValue(String inputVariable, String value) {
-        int intValue = Integer.valueOf(value);
+    /**
+     * Applies a single line in [start, end) to the model and reports what the caller should tell
+     * the user, without printing anything itself.
+     */
+    public Outcome apply(CharSequence input, int start, int end) {
+        if (parser.isQuit(input, start, end)) {
+            return Outcome.QUIT;
+        }
+        if (!parser.parse(input, start, end)) {
+            return Outcome.INVALID;
+        }
+
+        if (!setValue()) {
+            return Outcome.INVALID;
+        }
+        return reactiveSumModel.isSumUpdated() ? Outcome.SUM_UPDATED : Outcome.UNCHANGED;
+    }
+
+    public IngestResult ingest(CharSequence lines) {
+        Ingest ingest = new Ingest();
+        ingest.lines(lines, 0, lines.length(), true);
+        return ingest.result();
+    }
 
-        if(inputVariable.equals("a")) {
-            reactiveSumModel.setA(intValue);
-        } else if(inputVariable.equals("b")) {
-            reactiveSumModel.setB(intValue);
+    public IngestResult ingest(Path file) throws IOException {
+        try (ChannelIoWrapper ioWrapper = new ChannelIoWrapper(file, null)) {
+            return ingest(ioWrapper);
         }
     }
 
+    public IngestResult ingest(IoWrapper ioWrapper) {
+        Ingest ingest = new Ingest();
+        while (!ingest.quit && ioWrapper.nextLine()) {
+            CharSequence line = ioWrapper.getLine();
+            ingest.line(line, 0, line.length());
+        }
+        return ingest.result();
+    }
+
+    public IngestResult ingest(Reader reader) throws IOException {
+        Ingest ingest = new Ingest();
+        char[] buffer = new char[BULK_BUFFER_SIZE];
+        CharBuffer view = CharBuffer.wrap(buffer);
+        int length = 0;
+        int read;
+
+        while (!ingest.quit && (read = reader.read(buffer, length, buffer.length - length)) != -1) {
+            length += read;
+            int consumed = ingest.lines(view, 0, length, false);
+            length -= consumed;
+            System.arraycopy(buffer, consumed, buffer, 0, length);
+
+            if (length == buffer.length) {
+                char[] larger = new char[buffer.length * 2];
+                System.arraycopy(buffer, 0, larger, 0, length);
+                buffer = larger;
+                view = CharBuffer.wrap(buffer);
+            }
+        }
+        if (!ingest.quit && length > 0) {
+            ingest.lines(view, 0, length, true);
+        }
+
+        return ingest.result();
+    }
+
+    private boolean setValue() {
+        int slot = reactiveSumModel.indexOf(parser.getLine(), parser.getNameStart(), parser.getNameEnd());
+        if (slot < 0) {
+            if (reactiveSumModel.size() >= maxVariables) {
+                return false;
+            }
+            slot = reactiveSumModel.slot(parser.getLine(), parser.getNameStart(), parser.getNameEnd());
+        }
+        reactiveSumModel.set(slot, parser.getValue());
+        return true;
+    }
+
     public ReactiveSumModel getReactiveSumModel() {
         return reactiveSumModel;
     }
+
+    private class Ingest {
+        private long processed;
+        private long rejected;
+        private boolean quit;
+
+        /**
+         * Applies every complete line in [start, end) and returns how many chars were consumed. A
+         * trailing line without a newline is only applied when {@code endOfInput} is set.
+         */
+        int lines(CharSequence chars, int start, int end, boolean endOfInput) {
+            int lineStart = start;
+            for (int i = start; i < end && !quit; i++) {
+                if (chars.charAt(i) == '\n') {
+                    line(chars, lineStart, i);
+                    lineStart = i + 1;
+                }
+            }
+            if (endOfInput && lineStart < end && !quit) {
+                line(chars, lineStart, end);
+                lineStart = end;
+            }
+            return lineStart - start;
+        }
+
+        private void line(CharSequence chars, int start, int end) {
+            if (end > start && chars.charAt(end - 1) == '\r') {
+                end--;
+            }
+            Outcome outcome = apply(chars, start, end);
+            if (outcome == Outcome.QUIT) {
+                quit = true;
+                return;
+            }
+
+            processed++;
+            if (outcome == Outcome.INVALID) {
+                rejected++;
+            }
+        }
+
+        IngestResult result() {
+            return new IngestResult(processed, rejected);
+        }
+    }
 }
@@ -1,44 +1,155 @@
 package reactive_sum.imperative;
 
+import java.util.Arrays;
+
+/**
+ * Running sum over any number of named variables. Values live in a dense array indexed by slot,
+ * the sum is adjusted by the delta of each set and a bitset tracks which variables were last set
+ * to the value they already had, so {@link #getSum()} and {@link #isSumUpdated()} are O(1) no
+ * matter how many variables there are.
+ *
+ * A variable that was never set counts as updated, and the sum is reported as updated only while
+ * the latest set of every variable changed its value.
+ */
 public class ReactiveSumModel {
-    private int a;
-    private int b;
-    private boolean aUpdated = true;
-    private boolean bUpdated = true;
+    private static final int INITIAL_CAPACITY = 8;
+
+    private final SlotTable slotTable = new SlotTable();
+    private String[] names = new String[INITIAL_CAPACITY];
+    private int[] values = new int[INITIAL_CAPACITY];
+    private long[] notUpdated = new long[1];
+    private int notUpdatedCount;
+    private int size;
+    private long sum;
+
+    public ReactiveSumModel() {
+        this("a", "b");
+    }
+
+    public ReactiveSumModel(String... variables) {
+        for (String variable : variables) {
+            slot(variable);
+        }
+    }
 
     public boolean isSumUpdated() {
-        return aUpdated && bUpdated;
+        return notUpdatedCount == 0;
     }
 
-    public int getSum() {
-        return getA() + getB();
+    /**
+     * The sum is a long so that any number of int variables cannot overflow it.
+     */
+    public long getSum() {
+        return sum;
     }
 
-    public void setA(int aUpdate) {
-        if(aUpdate != a) {
-            this.a = aUpdate;
-            aUpdated = true;
+    /**
+     * Returns the slot of the named variable, adding it with a value of 0 if it is not known yet.
+     */
+    public int slot(CharSequence name) {
+        return slot(name, 0, name.length());
+    }
+
+    public int slot(CharSequence name, int start, int end) {
+        int slot = slotTable.get(name, start, end);
+        if (slot < 0) {
+            slot = add(name.subSequence(start, end).toString());
+        }
+        return slot;
+    }
+
+    public int indexOf(CharSequence name) {
+        return indexOf(name, 0, name.length());
+    }
+
+    public int indexOf(CharSequence name, int start, int end) {
+        return slotTable.get(name, start, end);
+    }
+
+    public void set(int slot, int update) {
+        checkSlot(slot);
+        int word = slot >>> 6;
+        long bit = 1L << slot;
+
+        if (update != values[slot]) {
+            sum += (long) update - values[slot];
+            values[slot] = update;
+            if ((notUpdated[word] & bit) != 0) {
+                notUpdated[word] &= ~bit;
+                notUpdatedCount--;
+            }
             return;
         }
 
-        aUpdated = false;
+        if ((notUpdated[word] & bit) == 0) {
+            notUpdated[word] |= bit;
+            notUpdatedCount++;
+        }
+    }
+
+    /**
+     * Whether the latest set of this variable changed its value (or it was never set).
+     */
+    public boolean isUpdated(int slot) {
+        checkSlot(slot);
+        return (notUpdated[slot >>> 6] & (1L << slot)) == 0;
+    }
+
+    public int get(int slot) {
+        checkSlot(slot);
+        return values[slot];
+    }
+
+    public String getName(int slot) {
+        checkSlot(slot);
+        return names[slot];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void setA(int aUpdate) {
+        set(slot("a"), aUpdate);
     }
 
     public int getA() {
-        return a;
+        return valueOf("a");
     }
 
     public void setB(int bUpdate) {
-        if(bUpdate != b) {
-            this.b = bUpdate;
-            bUpdated = true;
-            return;
+        set(slot("b"), bUpdate);
+    }
+
+    public int getB() {
+        return valueOf("b");
+    }
+
+    /**
+     * Reads without adding the variable, so that a read never changes the model.
+     */
+    private int valueOf(String name) {
+        int slot = indexOf(name);
+        return slot < 0 ? 0 : values[slot];
+    }
+
+    private int add(String name) {
+        if (size == values.length) {
+            names = Arrays.copyOf(names, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        if ((size >>> 6) == notUpdated.length) {
+            notUpdated = Arrays.copyOf(notUpdated, notUpdated.length * 2);
         }
 
-        bUpdated = false;
+        names[size] = name;
+        slotTable.put(name, size);
+        return size++;
     }
 
-    public int getB() {
-        return b;
+    private void checkSlot(int slot) {
+        if (slot < 0 || slot >= size) {
+            throw new IndexOutOfBoundsException("No variable in slot " + slot + ", size " + size);
+        }
     }
-}
\ No newline at end of file
+}
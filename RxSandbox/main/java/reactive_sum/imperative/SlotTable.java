@@ -0,0 +1,78 @@
+package reactive_sum.imperative;
+
+/**
+ * Open-addressing map from variable name to slot index. Lookups take a range of any CharSequence,
+ * so a name can be resolved straight out of the parsed line without building a String for it.
+ */
+class SlotTable {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private String[] keys = new String[INITIAL_CAPACITY];
+    private int[] hashes = new int[INITIAL_CAPACITY];
+    private int[] slots = new int[INITIAL_CAPACITY];
+    private int size;
+
+    int get(CharSequence name, int start, int end) {
+        int hash = hash(name, start, end);
+        int mask = keys.length - 1;
+        for (int i = hash & mask; keys[i] != null; i = (i + 1) & mask) {
+            if (hashes[i] == hash && matches(keys[i], name, start, end)) {
+                return slots[i];
+            }
+        }
+        return -1;
+    }
+
+    void put(String name, int slot) {
+        if ((size + 1) * 2 > keys.length) {
+            resize();
+        }
+        insert(name, hash(name, 0, name.length()), slot);
+        size++;
+    }
+
+    private void insert(String name, int hash, int slot) {
+        int mask = keys.length - 1;
+        int i = hash & mask;
+        while (keys[i] != null) {
+            i = (i + 1) & mask;
+        }
+        keys[i] = name;
+        hashes[i] = hash;
+        slots[i] = slot;
+    }
+
+    private void resize() {
+        String[] oldKeys = keys;
+        int[] oldHashes = hashes;
+        int[] oldSlots = slots;
+        keys = new String[oldKeys.length * 2];
+        hashes = new int[oldKeys.length * 2];
+        slots = new int[oldKeys.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                insert(oldKeys[i], oldHashes[i], oldSlots[i]);
+            }
+        }
+    }
+
+    private static int hash(CharSequence name, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + name.charAt(i);
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean matches(String key, CharSequence name, int start, int end) {
+        if (key.length() != end - start) {
+            return false;
+        }
+        for (int i = 0; i < key.length(); i++) {
+            if (key.charAt(i) != name.charAt(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,80 @@
+package reactive_sum.imperative;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.Supplier;
+
+/**
+ * Bounded single-producer/single-consumer ring of preallocated, reusable entries. The producer
+ * {@link #claim()}s the next free entry, fills it in and {@link #publish()}es it; the consumer
+ * {@link #peek()}s at the oldest published entry and {@link #release()}s it when done. Head and
+ * tail live on their own cache lines and each side caches the other's index, so the two threads
+ * only read each other's line when the cached view runs out.
+ */
+class SpscRing<E> {
+    private static final AtomicLongFieldUpdater<Sequence> VALUE =
+            AtomicLongFieldUpdater.newUpdater(Sequence.class, "value");
+
+    private final E[] entries;
+    private final int mask;
+    private final Sequence head = new Sequence();
+    private final Sequence tail = new Sequence();
+
+    @SuppressWarnings("unchecked")
+    SpscRing(int capacity, Supplier<E> factory) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        entries = (E[]) new Object[capacity];
+        for (int i = 0; i < capacity; i++) {
+            entries[i] = factory.get();
+        }
+        mask = capacity - 1;
+    }
+
+    /**
+     * Returns the next free entry, or null if the ring is full.
+     */
+    E claim() {
+        long next = tail.value;
+        if (next - tail.cached >= entries.length) {
+            tail.cached = head.value;
+            if (next - tail.cached >= entries.length) {
+                return null;
+            }
+        }
+        return entries[(int) next & mask];
+    }
+
+    void publish() {
+        VALUE.lazySet(tail, tail.value + 1);
+    }
+
+    /**
+     * Returns the oldest published entry, or null if the ring is empty.
+     */
+    E peek() {
+        long next = head.value;
+        if (next >= head.cached) {
+            head.cached = tail.value;
+            if (next >= head.cached) {
+                return null;
+            }
+        }
+        return entries[(int) next & mask];
+    }
+
+    void release() {
+        VALUE.lazySet(head, head.value + 1);
+    }
+
+    /**
+     * One side's index, padded onto its own cache line together with that side's cached copy of
+     * the other index.
+     */
+    static class Sequence {
+        long p1, p2, p3, p4, p5, p6, p7;
+        volatile long value;
+        long cached;
+        long p10, p11, p12, p13, p14, p15;
+    }
+}
@@ -0,0 +1,324 @@
+package reactive_sum.imperative;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves the sum protocol to many clients at once from a single selector thread. Every connection
+ * gets its own ReactiveSum and receives "Sum: N" / "Error: Invalid input" replies, one per line,
+ * over its channel; "quit" closes the connection.
+ *
+ * A connection may define at most {@link #MAX_VARIABLES} variables; a line that would define
+ * another one gets an error reply, so no client can grow its model without limit.
+ *
+ * Lines are parsed straight out of one shared read buffer. A connection only keeps a buffer of its
+ * own while it has a partial line or unsent replies, so an idle connection costs little more than
+ * its model.
+ */
+public class SumServer implements Closeable {
+    static final int MAX_VARIABLES = 1024;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_PENDING_OUTPUT = 1024 * 1024;
+    private static final long ACCEPT_BACKOFF_MILLIS = 100;
+    private static final byte[] SUM_REPLY = ReactiveSum.SUM_MESSAGE.getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ERROR_REPLY = (ReactiveSum.ERROR_MESSAGE + "\n").getBytes(StandardCharsets.US_ASCII);
+    // "-" and 19 digits of a long sum, and the newline
+    private static final int MAX_REPLY = Math.max(ERROR_REPLY.length, SUM_REPLY.length + 21);
+
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final ByteLine line = new ByteLine();
+    private final byte[] digits = new byte[20];
+    private volatile boolean running = true;
+    private volatile int connectionCount;
+    // set when an accept failed, until ACCEPT_BACKOFF_MILLIS after acceptPausedAt
+    private boolean acceptPaused;
+    private long acceptPausedAt;
+
+    public SumServer(InetSocketAddress address) throws IOException {
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        serverChannel.bind(address, 1024);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    public InetSocketAddress getAddress() throws IOException {
+        return (InetSocketAddress) serverChannel.getLocalAddress();
+    }
+
+    public int getConnectionCount() {
+        return connectionCount;
+    }
+
+    /**
+     * Runs the selector loop on the calling thread until {@link #close()} is called.
+     */
+    public void run() throws IOException {
+        try {
+            while (running) {
+                selector.select(acceptPaused ? ACCEPT_BACKOFF_MILLIS : 0);
+                if (acceptPaused
+                        && System.nanoTime() - acceptPausedAt >= TimeUnit.MILLISECONDS.toNanos(ACCEPT_BACKOFF_MILLIS)) {
+                    acceptPaused = false;
+                    serverChannel.keyFor(selector).interestOps(SelectionKey.OP_ACCEPT);
+                }
+                for (SelectionKey key : selector.selectedKeys()) {
+                    handle(key);
+                }
+                selector.selectedKeys().clear();
+            }
+        } catch (ClosedSelectorException e) {
+            // closed while selecting
+        } finally {
+            shutdown();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        selector.wakeup();
+    }
+
+    private void handle(SelectionKey key) {
+        if (!key.isValid()) {
+            return;
+        }
+        if (key.isAcceptable()) {
+            accept(key);
+            return;
+        }
+        try {
+            if (key.isWritable()) {
+                writePending(key);
+            }
+            if (key.isValid() && key.isReadable()) {
+                read(key);
+            }
+        } catch (IOException | RuntimeException e) {
+            // whatever goes wrong with one connection must not stop the selector loop for the rest
+            closeQuietly(key);
+        }
+    }
+
+    /**
+     * Accepts every pending connection. When accepting fails, typically because the process is out
+     * of file descriptors, the listening socket stays open but is not selected for a while: the
+     * pending connection would make the same accept fail in a busy loop.
+     */
+    private void accept(SelectionKey serverKey) {
+        for (;;) {
+            SocketChannel channel;
+            try {
+                channel = serverChannel.accept();
+            } catch (IOException e) {
+                acceptPaused = true;
+                acceptPausedAt = System.nanoTime();
+                serverKey.interestOps(0);
+                return;
+            }
+            if (channel == null) {
+                return;
+            }
+            try {
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                channel.register(selector, SelectionKey.OP_READ, new Session());
+                connectionCount++;
+            } catch (IOException | RuntimeException e) {
+                // never registered, so nothing else would close it
+                try {
+                    channel.close();
+                } catch (IOException closeFailure) {
+                    // already gone
+                }
+            }
+        }
+    }
+
+    private void read(SelectionKey key) throws IOException {
+        SocketChannel channel = (SocketChannel) key.channel();
+        Session session = (Session) key.attachment();
+
+        readBuffer.clear();
+        if (session.partialLine != null) {
+            readBuffer.put(session.partialLine);
+            session.partialLine = null;
+        }
+        int read = channel.read(readBuffer);
+        if (read < 0) {
+            closeQuietly(key);
+            return;
+        }
+        readBuffer.flip();
+
+        writeBuffer.clear();
+        boolean quit = false;
+        int lineStart = 0;
+        int limit = readBuffer.limit();
+        for (int i = 0; i < limit && !quit; i++) {
+            if (readBuffer.get(i) == '\n') {
+                quit = reply(session, lineStart, i);
+                lineStart = i + 1;
+                if (writeBuffer.remaining() < MAX_REPLY) {
+                    flush(key, session);
+                }
+            }
+        }
+        flush(key, session);
+
+        if (quit) {
+            if (session.pendingOutput == null) {
+                closeQuietly(key);
+            } else {
+                session.quit = true;
+                key.interestOps(SelectionKey.OP_WRITE);
+            }
+            return;
+        }
+        if (lineStart < limit) {
+            if (lineStart == 0 && limit == readBuffer.capacity()) {
+                closeQuietly(key);
+                return;
+            }
+            readBuffer.position(lineStart);
+            session.partialLine = ByteBuffer.allocate(limit - lineStart);
+            session.partialLine.put(readBuffer);
+            session.partialLine.flip();
+        }
+    }
+
+    /**
+     * Applies one line to the session and queues its reply, returning true if the client quit.
+     */
+    private boolean reply(Session session, int start, int end) {
+        if (end > start && readBuffer.get(end - 1) == '\r') {
+            end--;
+        }
+        line.set(readBuffer, start, end - start);
+
+        switch (session.reactiveSum.apply(line, 0, end - start)) {
+            case QUIT:
+                return true;
+            case SUM_UPDATED:
+                writeBuffer.put(SUM_REPLY);
+                putLong(session.reactiveSum.getReactiveSumModel().getSum());
+                writeBuffer.put((byte) '\n');
+                break;
+            case INVALID:
+                writeBuffer.put(ERROR_REPLY);
+                break;
+        }
+        return false;
+    }
+
+    private void putLong(long value) {
+        // counts down in negatives so that Long.MIN_VALUE needs no special case
+        long remaining = value;
+        if (remaining < 0) {
+            writeBuffer.put((byte) '-');
+        } else {
+            remaining = -remaining;
+        }
+        int length = 0;
+        do {
+            digits[length++] = (byte) ('0' - remaining % 10);
+            remaining /= 10;
+        } while (remaining < 0);
+        while (length > 0) {
+            writeBuffer.put(digits[--length]);
+        }
+    }
+
+    /**
+     * Writes the shared reply buffer to the channel. Whatever the socket does not take is kept on
+     * the session and written when the channel becomes writable; reading from a client pauses while
+     * it has too much unsent output.
+     */
+    private void flush(SelectionKey key, Session session) throws IOException {
+        writeBuffer.flip();
+        if (session.pendingOutput == null) {
+            ((SocketChannel) key.channel()).write(writeBuffer);
+        }
+        if (writeBuffer.hasRemaining()) {
+            session.pendingOutput = append(session.pendingOutput, writeBuffer);
+            int interest = SelectionKey.OP_WRITE;
+            if (session.pendingOutput.position() < MAX_PENDING_OUTPUT) {
+                interest |= SelectionKey.OP_READ;
+            }
+            key.interestOps(interest);
+        }
+        writeBuffer.clear();
+    }
+
+    private void writePending(SelectionKey key) throws IOException {
+        Session session = (Session) key.attachment();
+        session.pendingOutput.flip();
+        ((SocketChannel) key.channel()).write(session.pendingOutput);
+        if (session.pendingOutput.hasRemaining()) {
+            session.pendingOutput.compact();
+            return;
+        }
+        session.pendingOutput = null;
+        if (session.quit) {
+            closeQuietly(key);
+        } else {
+            key.interestOps(SelectionKey.OP_READ);
+        }
+    }
+
+    private static ByteBuffer append(ByteBuffer pending, ByteBuffer data) {
+        if (pending == null) {
+            pending = ByteBuffer.allocate(Math.max(data.remaining(), 256));
+        } else if (pending.remaining() < data.remaining()) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + data.remaining()));
+            pending.flip();
+            larger.put(pending);
+            pending = larger;
+        }
+        pending.put(data);
+        return pending;
+    }
+
+    private void closeQuietly(SelectionKey key) {
+        if (key.attachment() != null) {
+            connectionCount--;
+            key.attach(null);
+        }
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            // already gone
+        }
+    }
+
+    private void shutdown() throws IOException {
+        for (SelectionKey key : selector.keys()) {
+            closeQuietly(key);
+        }
+        selector.close();
+        serverChannel.close();
+    }
+
+    private static class Session {
+        private final ReactiveSum reactiveSum = new ReactiveSum(new ReactiveSumModel(), MAX_VARIABLES);
+        private ByteBuffer partialLine;
+        private ByteBuffer pendingOutput;
+        private boolean quit;
+    }
+}
@@ -0,0 +1,292 @@
+package reactive_sum.rx;
+
+import rx.Observable;
+import rx.Scheduler;
+import rx.Subscriber;
+import rx.exceptions.MissingBackpressureException;
+import rx.functions.Action0;
+import rx.internal.operators.BackpressureUtils;
+import rx.internal.operators.NotificationLite;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * observeOn that hands items across the thread hop in batches:
+ * {@code source.lift(new BatchedObserveOn<>(Schedulers.computation()))}.
+ *
+ * RxJava's observeOn does an atomic increment on a counter shared with the consumer for every
+ * item, so while the consumer drains, each item bounces that counter's cache line between the two
+ * threads. Here the producer writes items into a padded single-producer/single-consumer ring and
+ * publishes each one with an ordered store of its index, which costs no fence. It only signals the
+ * consumer when the consumer is idle, once per batch while the consumer is busy, when everything
+ * requested upstream has arrived, and on the terminal event. The consumer drains all published
+ * items in one loop.
+ *
+ * The batch size adapts: it doubles whenever a signal finds the consumer still busy and halves
+ * whenever it finds the consumer idle, so a slow stream wakes the consumer on every item. A
+ * producer that skips the signal arms a flush after the latency cap, so an item never waits
+ * longer than that for the consumer, even if the source pauses right after it.
+ */
+public class BatchedObserveOn<T> implements Observable.Operator<T, T> {
+    private static final int DEFAULT_BUFFER_SIZE = 256;
+    private static final long DEFAULT_MAX_LATENCY_MICROS = 1000;
+
+    private final Scheduler scheduler;
+    private final int bufferSize;
+    private final long maxLatencyNanos;
+
+    public BatchedObserveOn(Scheduler scheduler) {
+        this(scheduler, DEFAULT_BUFFER_SIZE, DEFAULT_MAX_LATENCY_MICROS, TimeUnit.MICROSECONDS);
+    }
+
+    /**
+     * @param bufferSize ring capacity and number of items requested upstream, a power of two
+     * @param maxLatency the longest an item may wait for the consumer to be signalled
+     */
+    public BatchedObserveOn(Scheduler scheduler, int bufferSize, long maxLatency, TimeUnit unit) {
+        if (bufferSize < 4 || Integer.bitCount(bufferSize) != 1) {
+            throw new IllegalArgumentException("Buffer size must be a power of two of at least 4: " + bufferSize);
+        }
+        this.scheduler = scheduler;
+        this.bufferSize = bufferSize;
+        this.maxLatencyNanos = unit.toNanos(maxLatency);
+    }
+
+    @Override
+    public Subscriber<? super T> call(Subscriber<? super T> child) {
+        BatchedObserveOnSubscriber<T> parent =
+                new BatchedObserveOnSubscriber<>(child, scheduler.createWorker(), bufferSize, maxLatencyNanos);
+        parent.init();
+        return parent;
+    }
+
+    private static class BatchedObserveOnSubscriber<T> extends Subscriber<T> implements Action0 {
+        private static final AtomicLongFieldUpdater<Sequence> VALUE =
+                AtomicLongFieldUpdater.newUpdater(Sequence.class, "value");
+
+        private final Subscriber<? super T> child;
+        private final Scheduler.Worker worker;
+        private final NotificationLite<T> on = NotificationLite.instance();
+        private final Object[] buffer;
+        private final int mask;
+        private final int limit;
+        private final int maxBatch;
+        private final long maxLatencyNanos;
+        // producer index with the producer's cached consumer index, and the other way round
+        private final Sequence tail = new Sequence();
+        private final Sequence head = new Sequence();
+        private final AtomicLong wip = new AtomicLong();
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicLong upstreamRequested = new AtomicLong();
+        private final AtomicBoolean flushArmed = new AtomicBoolean();
+        private final Action0 flush = this::flush;
+        private volatile boolean done;
+        private Throwable error;
+
+        // touched by the producer only
+        private long received;
+        private int sinceSignal;
+        private int batch = 1;
+
+        // touched by the consumer only
+        private int consumedSinceRequest;
+
+        BatchedObserveOnSubscriber(Subscriber<? super T> child, Scheduler.Worker worker, int bufferSize,
+                                   long maxLatencyNanos) {
+            this.child = child;
+            this.worker = worker;
+            this.buffer = new Object[bufferSize];
+            this.mask = bufferSize - 1;
+            this.limit = bufferSize - (bufferSize >> 2);
+            this.maxBatch = bufferSize >> 2;
+            this.maxLatencyNanos = maxLatencyNanos;
+        }
+
+        void init() {
+            child.add(worker);
+            child.add(this);
+            child.setProducer(n -> {
+                if (n > 0) {
+                    BackpressureUtils.getAndAddRequest(requested, n);
+                    schedule();
+                }
+            });
+            upstreamRequested.set(buffer.length);
+            request(buffer.length);
+        }
+
+        @Override
+        public void onNext(T item) {
+            if (isUnsubscribed() || done) {
+                return;
+            }
+            long index = tail.value;
+            if (index - tail.cached >= buffer.length) {
+                tail.cached = head.value;
+                if (index - tail.cached >= buffer.length) {
+                    onError(new MissingBackpressureException());
+                    return;
+                }
+            }
+            buffer[(int) index & mask] = on.next(item);
+            VALUE.lazySet(tail, index + 1);
+
+            boolean lastRequested = ++received == upstreamRequested.get();
+            if (lastRequested || wip.get() == 0 || ++sinceSignal >= batch) {
+                signal();
+            } else if (!flushArmed.get() && flushArmed.compareAndSet(false, true)) {
+                worker.schedule(flush, maxLatencyNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            if (isUnsubscribed() || done) {
+                return;
+            }
+            error = e;
+            done = true;
+            schedule();
+        }
+
+        @Override
+        public void onCompleted() {
+            if (isUnsubscribed() || done) {
+                return;
+            }
+            done = true;
+            schedule();
+        }
+
+        private void signal() {
+            sinceSignal = 0;
+            if (wip.getAndIncrement() == 0) {
+                worker.schedule(this);
+                batch = Math.max(1, batch >> 1);
+            } else {
+                batch = Math.min(maxBatch, batch << 1);
+            }
+        }
+
+        private void schedule() {
+            if (wip.getAndIncrement() == 0) {
+                worker.schedule(this);
+            }
+        }
+
+        /**
+         * Runs on the worker, so it can drain in place instead of scheduling another task.
+         */
+        private void flush() {
+            flushArmed.set(false);
+            if (wip.getAndIncrement() == 0) {
+                call();
+            }
+        }
+
+        @Override
+        public void call() {
+            long missed = 1;
+            while (true) {
+                long wanted = requested.get();
+                long emitted = 0;
+                while (emitted != wanted) {
+                    boolean terminated = done;
+                    Object item = poll();
+                    boolean empty = item == null;
+                    if (checkTerminated(terminated, empty)) {
+                        return;
+                    }
+                    if (empty) {
+                        break;
+                    }
+                    child.onNext(on.getValue(item));
+                    emitted++;
+                    if (++consumedSinceRequest == limit) {
+                        consumedSinceRequest = 0;
+                        upstreamRequested.addAndGet(limit);
+                        request(limit);
+                    }
+                }
+                if (emitted == wanted && checkTerminated(done, isEmpty())) {
+                    return;
+                }
+                if (emitted != 0 && wanted != Long.MAX_VALUE) {
+                    requested.addAndGet(-emitted);
+                }
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) {
+                    // an item published after the last poll may have seen us busy and skipped the signal
+                    if (!hasWork() || !wip.compareAndSet(0, 1)) {
+                        return;
+                    }
+                    missed = 1;
+                }
+            }
+        }
+
+        private boolean hasWork() {
+            boolean empty = isEmpty();
+            return empty ? done : requested.get() != 0;
+        }
+
+        private Object poll() {
+            long index = head.value;
+            if (index >= head.cached) {
+                head.cached = tail.value;
+                if (index >= head.cached) {
+                    return null;
+                }
+            }
+            int slot = (int) index & mask;
+            Object item = buffer[slot];
+            buffer[slot] = null;
+            VALUE.lazySet(head, index + 1);
+            return item;
+        }
+
+        private boolean isEmpty() {
+            return head.value == tail.value;
+        }
+
+        private boolean checkTerminated(boolean terminated, boolean empty) {
+            if (child.isUnsubscribed()) {
+                return true;
+            }
+            if (terminated) {
+                Throwable e = error;
+                if (e != null) {
+                    try {
+                        child.onError(e);
+                    } finally {
+                        worker.unsubscribe();
+                    }
+                    return true;
+                }
+                if (empty) {
+                    try {
+                        child.onCompleted();
+                    } finally {
+                        worker.unsubscribe();
+                    }
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * One side's index, padded onto its own cache line together with that side's cached copy of
+     * the other index.
+     */
+    private static class Sequence {
+        long p1, p2, p3, p4, p5, p6, p7;
+        volatile long value;
+        long cached;
+        long p10, p11, p12, p13, p14, p15;
+    }
+}
@@ -0,0 +1,268 @@
+package reactive_sum.rx;
+
+import rx.Observable;
+import rx.Subscriber;
+import rx.exceptions.Exceptions;
+import rx.exceptions.MissingBackpressureException;
+import rx.exceptions.OnErrorThrowable;
+import rx.functions.Func1;
+import rx.internal.operators.BackpressureUtils;
+import rx.internal.operators.NotificationLite;
+import rx.internal.util.atomic.SpscExactAtomicArrayQueue;
+import rx.plugins.RxJavaPlugins;
+import rx.subscriptions.Subscriptions;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * concatMap that subscribes to several inner observables at once:
+ * {@code source.lift(new ConcatMapEager<>(id -> fetch(id), 8, 1024))}.
+ *
+ * flatMap subscribes to the inner observables eagerly but interleaves what they emit; concatMap
+ * keeps source order by subscribing to the next one only when the previous one completes, so slow
+ * inner sources such as I/O calls run one after another. Here up to maxConcurrency inner
+ * observables are subscribed at once and each one fills its own queue; the subscriber gets the
+ * head inner's items straight away and the others' items once every inner before them completed.
+ *
+ * Memory is bounded by bufferSize: every inner gets an equal share of it as its queue capacity and
+ * only requests what its queue can hold, so a fast inner waiting behind a slow one is held back
+ * rather than buffered. An error from the source or any inner is emitted right away and cancels the
+ * inner observables, dropping what they buffered.
+ */
+public class ConcatMapEager<T, R> implements Observable.Operator<R, T> {
+    private static final int DEFAULT_MAX_CONCURRENCY = 16;
+    private static final int DEFAULT_BUFFER_SIZE = 1024;
+
+    private final Func1<? super T, ? extends Observable<? extends R>> mapper;
+    private final int maxConcurrency;
+    private final int bufferSize;
+
+    public ConcatMapEager(Func1<? super T, ? extends Observable<? extends R>> mapper) {
+        this(mapper, DEFAULT_MAX_CONCURRENCY, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param maxConcurrency most inner observables subscribed at once
+     * @param bufferSize most items buffered across all inner observables, at least maxConcurrency
+     */
+    public ConcatMapEager(Func1<? super T, ? extends Observable<? extends R>> mapper, int maxConcurrency, int bufferSize) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency > 0 required but it was " + maxConcurrency);
+        }
+        if (bufferSize < maxConcurrency) {
+            throw new IllegalArgumentException("bufferSize >= maxConcurrency required but it was " + bufferSize);
+        }
+        this.mapper = mapper;
+        this.maxConcurrency = maxConcurrency;
+        this.bufferSize = bufferSize;
+    }
+
+    @Override
+    public Subscriber<? super T> call(Subscriber<? super R> child) {
+        EagerOuterSubscriber<T, R> parent =
+                new EagerOuterSubscriber<>(child, mapper, maxConcurrency, bufferSize / maxConcurrency);
+        parent.init();
+        return parent;
+    }
+
+    private static class EagerOuterSubscriber<T, R> extends Subscriber<T> {
+        private final Subscriber<? super R> child;
+        private final Func1<? super T, ? extends Observable<? extends R>> mapper;
+        private final int innerCapacity;
+        private final NotificationLite<R> on = NotificationLite.instance();
+        // subscribed inner observables in source order; the head is the one being emitted
+        private final Queue<EagerInnerSubscriber<R>> inners = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger wip = new AtomicInteger();
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicReference<Throwable> error = new AtomicReference<>();
+        private volatile boolean done;
+        private volatile boolean cancelled;
+
+        EagerOuterSubscriber(Subscriber<? super R> child, Func1<? super T, ? extends Observable<? extends R>> mapper,
+                             int maxConcurrency, int innerCapacity) {
+            this.child = child;
+            this.mapper = mapper;
+            this.innerCapacity = innerCapacity;
+            request(maxConcurrency);
+        }
+
+        void init() {
+            child.add(this);
+            child.add(Subscriptions.create(() -> {
+                cancelled = true;
+                drain();
+            }));
+            child.setProducer(this::requestMore);
+        }
+
+        void requestMore(long n) {
+            if (n < 0) {
+                throw new IllegalArgumentException("n >= 0 required but it was " + n);
+            }
+            if (n > 0) {
+                BackpressureUtils.getAndAddRequest(requested, n);
+                drain();
+            }
+        }
+
+        @Override
+        public void onNext(T t) {
+            Observable<? extends R> source;
+            try {
+                source = mapper.call(t);
+            } catch (Throwable e) {
+                Exceptions.throwIfFatal(e);
+                unsubscribe();
+                onError(OnErrorThrowable.addValueAsLastCause(e, t));
+                return;
+            }
+            EagerInnerSubscriber<R> inner = new EagerInnerSubscriber<>(this, innerCapacity);
+            inners.offer(inner);
+            if (cancelled) {
+                // drain may already have cleared the queue for the last time
+                inner.unsubscribe();
+                return;
+            }
+            source.unsafeSubscribe(inner);
+            drain();
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            fail(e);
+        }
+
+        @Override
+        public void onCompleted() {
+            done = true;
+            drain();
+        }
+
+        void fail(Throwable e) {
+            if (error.compareAndSet(null, e)) {
+                done = true;
+                drain();
+            } else {
+                RxJavaPlugins.getInstance().getErrorHandler().handleError(e);
+            }
+        }
+
+        void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            for (;;) {
+                long r = requested.get();
+                long e = 0L;
+                for (;;) {
+                    // cancelled, failed or completed, the loop returns with wip still raised: a late
+                    // request or inner item must not start another drain into a terminated child
+                    if (cancelled) {
+                        clear();
+                        return;
+                    }
+                    Throwable ex = error.get();
+                    if (ex != null) {
+                        unsubscribe();
+                        clear();
+                        child.onError(ex);
+                        return;
+                    }
+                    EagerInnerSubscriber<R> inner = inners.peek();
+                    if (inner == null) {
+                        if (done) {
+                            child.onCompleted();
+                            return;
+                        }
+                        break;
+                    }
+                    boolean innerDone = inner.done;
+                    Object v = inner.queue.peek();
+                    if (v == null) {
+                        if (!innerDone) {
+                            break;
+                        }
+                        inners.poll();
+                        // room for one more inner observable
+                        request(1);
+                        continue;
+                    }
+                    if (e == r) {
+                        break;
+                    }
+                    inner.queue.poll();
+                    child.onNext(on.getValue(v));
+                    inner.consumed();
+                    e++;
+                }
+                if (e != 0L && r != Long.MAX_VALUE) {
+                    requested.addAndGet(-e);
+                }
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        private void clear() {
+            EagerInnerSubscriber<R> inner;
+            while ((inner = inners.poll()) != null) {
+                inner.unsubscribe();
+            }
+        }
+    }
+
+    /**
+     * Requests only what its queue can hold and asks for more as the outer subscriber takes items
+     * out, three quarters of the queue at a time.
+     */
+    private static class EagerInnerSubscriber<R> extends Subscriber<R> {
+        private final EagerOuterSubscriber<?, R> parent;
+        final Queue<Object> queue;
+        private final int limit;
+        volatile boolean done;
+        // only touched in the outer drain
+        private int consumed;
+
+        EagerInnerSubscriber(EagerOuterSubscriber<?, R> parent, int capacity) {
+            this.parent = parent;
+            this.queue = new SpscExactAtomicArrayQueue<>(capacity);
+            this.limit = Math.max(1, capacity - (capacity >> 2));
+            request(capacity);
+        }
+
+        @Override
+        public void onNext(R r) {
+            if (!queue.offer(parent.on.next(r))) {
+                unsubscribe();
+                onError(new MissingBackpressureException());
+                return;
+            }
+            parent.drain();
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            parent.fail(e);
+        }
+
+        @Override
+        public void onCompleted() {
+            done = true;
+            parent.drain();
+        }
+
+        void consumed() {
+            if (++consumed == limit) {
+                consumed = 0;
+                request(limit);
+            }
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package reactive_sum.rx;
+
+import rx.Observable;
+import rx.Subscriber;
+import rx.exceptions.Exceptions;
+import rx.internal.operators.NotificationLite;
+import rx.subjects.Subject;
+import rx.subscriptions.Subscriptions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * BehaviorSubject for thousands of subscribers that come and go while it emits.
+ *
+ * The subscribers are kept in an array that is never changed in place: subscribing and
+ * unsubscribing copy it and swap the copy in with compareAndSet, and onNext walks whatever array
+ * it read without a lock. The latest notification sits behind one volatile field together with a
+ * version number. A new subscriber is added to the array before it reads the latest value, and
+ * onNext writes the latest value before it reads the array, so every value emitted after the
+ * subscribe reaches the subscriber either way.
+ *
+ * Until a subscriber has its first value, both the subscribing thread and the emitting thread may
+ * hand it values, so they go through a queue drained by whichever thread gets there first, and
+ * versions already delivered are skipped. Once the subscribing thread is done with it, the
+ * emitting thread takes it over and calls it directly from then on.
+ *
+ * Like BehaviorSubject, onNext, onError and onCompleted must not be called concurrently.
+ */
+public class FanoutBehaviorSubject<T> extends Subject<T, T> {
+    private final State<T> state;
+
+    private FanoutBehaviorSubject(State<T> state) {
+        super(state);
+        this.state = state;
+    }
+
+    public static <T> FanoutBehaviorSubject<T> create() {
+        return new FanoutBehaviorSubject<>(new State<>(null));
+    }
+
+    public static <T> FanoutBehaviorSubject<T> create(T defaultValue) {
+        return new FanoutBehaviorSubject<>(new State<>(new Versioned(0, State.ON.next(defaultValue))));
+    }
+
+    @Override
+    public void onNext(T t) {
+        state.emit(State.ON.next(t), false);
+    }
+
+    @Override
+    public void onError(Throwable e) {
+        state.emit(State.ON.error(e), true);
+    }
+
+    @Override
+    public void onCompleted() {
+        state.emit(State.ON.completed(), true);
+    }
+
+    @Override
+    public boolean hasObservers() {
+        return state.subscribers.get().length != 0;
+    }
+
+    public boolean hasValue() {
+        Versioned latest = state.latest;
+        return latest != null && State.ON.isNext(latest.value);
+    }
+
+    /**
+     * The latest value, or null if there is none or the subject terminated.
+     */
+    @SuppressWarnings("unchecked")
+    public T getValue() {
+        Versioned latest = state.latest;
+        return latest != null && State.ON.isNext(latest.value) ? (T) State.ON.getValue(latest.value) : null;
+    }
+
+    public Throwable getThrowable() {
+        Versioned latest = state.latest;
+        return latest != null && State.ON.isError(latest.value) ? State.ON.getError(latest.value) : null;
+    }
+
+    public boolean hasCompleted() {
+        Versioned latest = state.latest;
+        return latest != null && State.ON.isCompleted(latest.value);
+    }
+
+    /**
+     * A notification in NotificationLite form, numbered in the order it was emitted.
+     */
+    private static class Versioned {
+        final long version;
+        final Object value;
+
+        Versioned(long version, Object value) {
+            this.version = version;
+            this.value = value;
+        }
+    }
+
+    private static class State<T> implements Observable.OnSubscribe<T> {
+        static final NotificationLite<Object> ON = NotificationLite.instance();
+        private static final Emitter<?>[] EMPTY = new Emitter<?>[0];
+        private static final Emitter<?>[] TERMINATED = new Emitter<?>[0];
+
+        volatile Versioned latest;
+        final AtomicReference<Emitter<T>[]> subscribers;
+        // only touched by the emitting thread
+        private long version;
+
+        @SuppressWarnings("unchecked")
+        State(Versioned initial) {
+            this.latest = initial;
+            this.version = initial != null ? initial.version : 0;
+            this.subscribers = new AtomicReference<>((Emitter<T>[]) EMPTY);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void call(Subscriber<? super T> child) {
+            Emitter<T> emitter = new Emitter<>(child);
+            child.add(Subscriptions.create(() -> {
+                emitter.cancelled = true;
+                remove(emitter);
+            }));
+            if (add(emitter)) {
+                if (child.isUnsubscribed()) {
+                    remove(emitter);
+                } else {
+                    emitter.emitFirst(latest);
+                }
+            } else {
+                // terminated: only the terminal notification is replayed
+                ON.accept((Subscriber<Object>) child, latest.value);
+            }
+        }
+
+        void emit(Object value, boolean terminal) {
+            if (subscribers.get() == TERMINATED) {
+                return;
+            }
+            Versioned next = new Versioned(++version, value);
+            latest = next;
+            if (!terminal) {
+                for (Emitter<T> emitter : subscribers.get()) {
+                    emitter.emitNext(next);
+                }
+                return;
+            }
+            @SuppressWarnings("unchecked")
+            Emitter<T>[] last = subscribers.getAndSet((Emitter<T>[]) TERMINATED);
+            List<Throwable> errors = null;
+            for (Emitter<T> emitter : last) {
+                try {
+                    emitter.emitNext(next);
+                } catch (Throwable e) {
+                    if (errors == null) {
+                        errors = new ArrayList<>();
+                    }
+                    errors.add(e);
+                }
+            }
+            Exceptions.throwIfAny(errors);
+        }
+
+        private boolean add(Emitter<T> emitter) {
+            for (;;) {
+                Emitter<T>[] current = subscribers.get();
+                if (current == TERMINATED) {
+                    return false;
+                }
+                int n = current.length;
+                @SuppressWarnings("unchecked")
+                Emitter<T>[] next = (Emitter<T>[]) new Emitter<?>[n + 1];
+                System.arraycopy(current, 0, next, 0, n);
+                next[n] = emitter;
+                if (subscribers.compareAndSet(current, next)) {
+                    return true;
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void remove(Emitter<T> emitter) {
+            for (;;) {
+                Emitter<T>[] current = subscribers.get();
+                int n = current.length;
+                int index = -1;
+                for (int i = 0; i < n; i++) {
+                    if (current[i] == emitter) {
+                        index = i;
+                        break;
+                    }
+                }
+                if (index < 0) {
+                    return;
+                }
+                Emitter<T>[] next;
+                if (n == 1) {
+                    next = (Emitter<T>[]) EMPTY;
+                } else {
+                    next = (Emitter<T>[]) new Emitter<?>[n - 1];
+                    System.arraycopy(current, 0, next, 0, index);
+                    System.arraycopy(current, index + 1, next, index, n - index - 1);
+                }
+                if (subscribers.compareAndSet(current, next)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Is its own wip counter, to keep what onNext touches per subscriber in one object.
+     */
+    private static class Emitter<T> extends AtomicInteger {
+        private static final long serialVersionUID = 1L;
+        private final Subscriber<? super T> child;
+        private final Queue<Versioned> queue = new ConcurrentLinkedQueue<>();
+        volatile boolean cancelled;
+        // set once the subscribing thread will not touch this emitter again
+        private volatile boolean initialized;
+        // only touched by the emitting thread
+        private boolean fastPath;
+        // only touched by the thread that owns the drain, or the emitting thread on the fast path
+        private long delivered = -1;
+
+        Emitter(Subscriber<? super T> child) {
+            this.child = child;
+        }
+
+        void emitFirst(Versioned first) {
+            if (first != null) {
+                queue.offer(first);
+            }
+            if (getAndIncrement() == 0) {
+                drainLoop();
+            }
+            initialized = true;
+        }
+
+        @SuppressWarnings("unchecked")
+        void emitNext(Versioned next) {
+            if (fastPath) {
+                // the drain already dropped whatever came after the unsubscribe
+                if (!cancelled) {
+                    State.ON.accept((Subscriber<Object>) child, next.value);
+                }
+                return;
+            }
+            queue.offer(next);
+            if (getAndIncrement() != 0) {
+                return;
+            }
+            boolean handedOver = initialized;
+            drainLoop();
+            if (handedOver) {
+                // nobody else offers to the queue any more and it is empty
+                fastPath = true;
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void drainLoop() {
+            int missed = 1;
+            for (;;) {
+                Versioned v;
+                while ((v = queue.poll()) != null) {
+                    if (v.version > delivered && !cancelled) {
+                        delivered = v.version;
+                        State.ON.accept((Subscriber<Object>) child, v.value);
+                    }
+                }
+                missed = addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package reactive_sum.rx;
+
+import rx.Observable;
+import rx.Producer;
+import rx.Subscriber;
+import rx.exceptions.Exceptions;
+import rx.exceptions.OnErrorThrowable;
+import rx.functions.Func1;
+import rx.internal.producers.SingleProducer;
+import rx.internal.util.ScalarSynchronousObservable;
+
+import java.util.Arrays;
+
+/**
+ * A run of map and filter stages assembled outside of Observable so it can be executed as one.
+ * {@code Observable.just("Hi!").map(String::length)} allocates a subscriber and a producer per
+ * operator on every subscribe; {@code FusedChain.just("Hi!").map(String::length).toObservable()}
+ * runs the whole chain on the value at subscribe time and emits the result straight to the
+ * subscriber.
+ *
+ * Adjacent maps are composed into a single function when they are added, so the chain only has as
+ * many stages as there are filters plus the maps between them. On a source that is not a scalar,
+ * the stages run in one operator instead of one per map and filter.
+ *
+ * Like their Observable counterparts the functions run again on every subscribe.
+ */
+public class FusedChain<T> {
+    private static final Func1<?, ?>[] NO_STAGES = new Func1<?, ?>[0];
+    static final Object FILTERED = new Object();
+
+    private final Observable<?> source;
+    private final Func1<Object, Object>[] stages;
+    // filters[i] tells whether stages[i] is a predicate rather than a mapping
+    private final boolean[] filters;
+
+    @SuppressWarnings("unchecked")
+    private FusedChain(Observable<?> source, Func1<?, ?>[] stages, boolean[] filters) {
+        this.source = source;
+        this.stages = (Func1<Object, Object>[]) stages;
+        this.filters = filters;
+    }
+
+    public static <T> FusedChain<T> just(T value) {
+        return from(Observable.just(value));
+    }
+
+    /**
+     * Starts a chain on any source; scalar sources such as {@code Observable.just(value)} are
+     * evaluated without subscribing to them.
+     */
+    public static <T> FusedChain<T> from(Observable<T> source) {
+        return new FusedChain<>(source, NO_STAGES, new boolean[0]);
+    }
+
+    public <R> FusedChain<R> map(Func1<? super T, ? extends R> function) {
+        int last = stages.length - 1;
+        if (last >= 0 && !filters[last]) {
+            Func1<Object, Object> previous = stages[last];
+            Func1<Object, Object> next = castStage(function);
+            Func1<?, ?>[] composed = Arrays.copyOf(stages, stages.length);
+            composed[last] = (Func1<Object, Object>) value -> next.call(previous.call(value));
+            return new FusedChain<>(source, composed, filters);
+        }
+        return append(function, false);
+    }
+
+    public FusedChain<T> filter(Func1<? super T, Boolean> predicate) {
+        return append(predicate, true);
+    }
+
+    /**
+     * Number of stages the chain runs, after composing adjacent maps.
+     */
+    public int getStageCount() {
+        return stages.length;
+    }
+
+    @SuppressWarnings("unchecked")
+    public Observable<T> toObservable() {
+        if (stages.length == 0) {
+            return (Observable<T>) source;
+        }
+        if (source instanceof ScalarSynchronousObservable) {
+            Object value = ((ScalarSynchronousObservable<?>) source).get();
+            return Observable.create(new ScalarOnSubscribe<>(value, stages, filters));
+        }
+        return ((Observable<Object>) source).lift(new FusedOperator<>(stages, filters));
+    }
+
+    private <R> FusedChain<R> append(Func1<?, ?> stage, boolean filter) {
+        Func1<?, ?>[] appended = Arrays.copyOf(stages, stages.length + 1);
+        appended[stages.length] = stage;
+        boolean[] appendedFilters = Arrays.copyOf(filters, filters.length + 1);
+        appendedFilters[filters.length] = filter;
+        return new FusedChain<>(source, appended, appendedFilters);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Func1<Object, Object> castStage(Func1<?, ?> stage) {
+        return (Func1<Object, Object>) stage;
+    }
+
+    /**
+     * Runs the stages on one value, returning {@link #FILTERED} if a predicate rejected it.
+     */
+    static Object run(Func1<Object, Object>[] stages, boolean[] filters, Object value) {
+        for (int i = 0; i < stages.length; i++) {
+            if (filters[i]) {
+                if (!(Boolean) stages[i].call(value)) {
+                    return FILTERED;
+                }
+            } else {
+                value = stages[i].call(value);
+            }
+        }
+        return value;
+    }
+
+    private static class ScalarOnSubscribe<T> implements Observable.OnSubscribe<T> {
+        private final Object value;
+        private final Func1<Object, Object>[] stages;
+        private final boolean[] filters;
+
+        ScalarOnSubscribe(Object value, Func1<Object, Object>[] stages, boolean[] filters) {
+            this.value = value;
+            this.stages = stages;
+            this.filters = filters;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void call(Subscriber<? super T> subscriber) {
+            Object result;
+            try {
+                result = run(stages, filters, value);
+            } catch (Throwable e) {
+                Exceptions.throwIfFatal(e);
+                subscriber.onError(OnErrorThrowable.addValueAsLastCause(e, value));
+                return;
+            }
+            if (result == FILTERED) {
+                subscriber.onCompleted();
+            } else {
+                subscriber.setProducer(new SingleProducer<>(subscriber, (T) result));
+            }
+        }
+    }
+
+    private static class FusedOperator<T> implements Observable.Operator<T, Object> {
+        private final Func1<Object, Object>[] stages;
+        private final boolean[] filters;
+
+        FusedOperator(Func1<Object, Object>[] stages, boolean[] filters) {
+            this.stages = stages;
+            this.filters = filters;
+        }
+
+        @Override
+        public Subscriber<Object> call(Subscriber<? super T> child) {
+            FusedSubscriber<T> parent = new FusedSubscriber<>(child, stages, filters);
+            child.add(parent);
+            return parent;
+        }
+    }
+
+    /**
+     * Same protocol as RxJava's filter subscriber: passes the producer through to the child and
+     * requests a replacement for every value a predicate drops.
+     */
+    private static class FusedSubscriber<T> extends Subscriber<Object> {
+        private final Subscriber<? super T> actual;
+        private final Func1<Object, Object>[] stages;
+        private final boolean[] filters;
+        private boolean done;
+
+        FusedSubscriber(Subscriber<? super T> actual, Func1<Object, Object>[] stages, boolean[] filters) {
+            this.actual = actual;
+            this.stages = stages;
+            this.filters = filters;
+            request(0);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void onNext(Object item) {
+            Object result;
+            try {
+                result = run(stages, filters, item);
+            } catch (Throwable e) {
+                Exceptions.throwIfFatal(e);
+                unsubscribe();
+                onError(OnErrorThrowable.addValueAsLastCause(e, item));
+                return;
+            }
+
+            if (result == FILTERED) {
+                request(1);
+            } else {
+                actual.onNext((T) result);
+            }
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            if (done) {
+                return;
+            }
+            done = true;
+            actual.onError(e);
+        }
+
+        @Override
+        public void onCompleted() {
+            if (done) {
+                return;
+            }
+            done = true;
+            actual.onCompleted();
+        }
+
+        @Override
+        public void setProducer(Producer producer) {
+            super.setProducer(producer);
+            actual.setProducer(producer);
+        }
+    }
+}
@@ -0,0 +1,339 @@
+package reactive_sum.rx;
+
+import rx.Scheduler;
+import rx.Subscription;
+import rx.functions.Action0;
+import rx.plugins.RxJavaPlugins;
+import rx.subscriptions.CompositeSubscription;
+import rx.subscriptions.Subscriptions;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Scheduler for large numbers of intervals and timeouts. On computation() every delayed action is
+ * a task of its own in a ScheduledExecutorService, with a ScheduledFutureTask, a ScheduledAction
+ * and their subscriptions. Here it is one {@link Timeout} in a hashed timing wheel driven by a
+ * single ticker thread, and only actions that come due are handed to a thread pool.
+ *
+ * Scheduling and cancelling are O(1) from any thread: both just enqueue the timeout for the ticker,
+ * which files it into the bucket of its tick, with the number of full turns of the wheel to wait,
+ * and unlinks it again if it is cancelled. A timeout fires in the first tick that ends after its
+ * deadline, so never early and at most a tick late, plus however long the pool takes to run it.
+ * While no timers are pending the ticker sleeps instead of ticking.
+ *
+ * Workers run their actions one at a time and in order, like those of computation(); actions
+ * without a delay skip the wheel and go straight to the pool.
+ */
+public class HashedWheelScheduler extends Scheduler {
+    private static final long DEFAULT_TICK_MILLIS = 1;
+    private static final int DEFAULT_WHEEL_SIZE = 512;
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    private final long tickNanos;
+    private final Timeout[] wheel;
+    private final int mask;
+    private final Executor executor;
+    private final ExecutorService ownedExecutor;
+    private final long startTime = System.nanoTime();
+    private final Queue<Timeout> added = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+    private final Thread ticker;
+    private volatile boolean idle;
+    private volatile boolean shutdown;
+
+    // touched by the ticker only
+    private long tick;
+    private int pending;
+
+    /**
+     * Ticks every millisecond and runs actions on a pool with a thread per processor.
+     */
+    public HashedWheelScheduler() {
+        this(DEFAULT_TICK_MILLIS, TimeUnit.MILLISECONDS, DEFAULT_WHEEL_SIZE, null);
+    }
+
+    /**
+     * @param wheelSize number of buckets, a power of two; timers more than this many ticks away
+     *                  are skipped over once per turn of the wheel
+     * @param executor  runs the actions, or null for a pool owned by the scheduler
+     */
+    public HashedWheelScheduler(long tick, TimeUnit unit, int wheelSize, Executor executor) {
+        if (tick <= 0) {
+            throw new IllegalArgumentException("Tick must be positive: " + tick);
+        }
+        if (wheelSize < 1 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("Wheel size must be a power of two: " + wheelSize);
+        }
+        this.tickNanos = unit.toNanos(tick);
+        this.wheel = new Timeout[wheelSize];
+        this.mask = wheelSize - 1;
+        if (executor == null) {
+            ownedExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), task -> {
+                Thread thread = new Thread(task, "RxHashedWheelWorker-" + THREAD_COUNT.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.executor = ownedExecutor;
+        } else {
+            ownedExecutor = null;
+            this.executor = executor;
+        }
+        ticker = new Thread(this::runTicker, "RxHashedWheelTicker-" + THREAD_COUNT.incrementAndGet());
+        ticker.setDaemon(true);
+        ticker.start();
+    }
+
+    @Override
+    public Worker createWorker() {
+        return new HashedWheelWorker();
+    }
+
+    /**
+     * Stops the ticker, dropping pending timers, and shuts down the pool if the scheduler owns it.
+     */
+    public void shutdown() {
+        shutdown = true;
+        LockSupport.unpark(ticker);
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdown();
+        }
+    }
+
+    private void add(Timeout timeout) {
+        added.offer(timeout);
+        if (idle) {
+            LockSupport.unpark(ticker);
+        }
+    }
+
+    private void runTicker() {
+        while (!shutdown) {
+            long deadline = startTime + (tick + 1) * tickNanos;
+            long now = System.nanoTime();
+            if (now < deadline) {
+                if (pending == 0 && added.isEmpty()) {
+                    sleepUntilAdded();
+                    continue;
+                }
+                LockSupport.parkNanos(this, deadline - now);
+                continue;
+            }
+            unlinkCancelled();
+            transferAdded();
+            expire((int) tick & mask);
+            tick++;
+        }
+    }
+
+    /**
+     * Nothing is pending, so the ticks slept through would all have been empty: picks up again at
+     * the tick in progress once a timer is added.
+     */
+    private void sleepUntilAdded() {
+        idle = true;
+        while (added.isEmpty() && !shutdown) {
+            LockSupport.park(this);
+        }
+        idle = false;
+        tick = Math.max(tick, (System.nanoTime() - startTime) / tickNanos);
+    }
+
+    private void unlinkCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            if (timeout.bucket >= 0) {
+                unlink(timeout);
+            }
+        }
+    }
+
+    private void transferAdded() {
+        Timeout timeout;
+        while ((timeout = added.poll()) != null) {
+            if (timeout.get() != Timeout.PENDING) {
+                continue;
+            }
+            long due = Math.max(tick, (timeout.deadline - startTime) / tickNanos);
+            timeout.rounds = (due - tick) / wheel.length;
+            timeout.bucket = (int) due & mask;
+            Timeout head = wheel[timeout.bucket];
+            timeout.next = head;
+            if (head != null) {
+                head.previous = timeout;
+            }
+            wheel[timeout.bucket] = timeout;
+            pending++;
+        }
+    }
+
+    private void expire(int bucket) {
+        Timeout timeout = wheel[bucket];
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            if (timeout.rounds <= 0) {
+                unlink(timeout);
+                timeout.worker.enqueue(timeout);
+            } else {
+                timeout.rounds--;
+            }
+            timeout = next;
+        }
+    }
+
+    private void unlink(Timeout timeout) {
+        if (timeout.previous == null) {
+            wheel[timeout.bucket] = timeout.next;
+        } else {
+            timeout.previous.next = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.previous = timeout.previous;
+        }
+        timeout.previous = null;
+        timeout.next = null;
+        timeout.bucket = -1;
+        pending--;
+    }
+
+    private final class HashedWheelWorker extends Worker implements Runnable {
+        private final Queue<Timeout> queue = new ConcurrentLinkedQueue<>();
+        // timers still waiting in the wheel, cancelled with the worker
+        private final CompositeSubscription timers = new CompositeSubscription();
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile boolean unsubscribed;
+
+        @Override
+        public Subscription schedule(Action0 action) {
+            if (unsubscribed) {
+                return Subscriptions.unsubscribed();
+            }
+            Timeout timeout = new Timeout(this, action, false, 0);
+            enqueue(timeout);
+            return timeout;
+        }
+
+        @Override
+        public Subscription schedule(Action0 action, long delayTime, TimeUnit unit) {
+            if (delayTime <= 0) {
+                return schedule(action);
+            }
+            if (unsubscribed) {
+                return Subscriptions.unsubscribed();
+            }
+            Timeout timeout = new Timeout(this, action, true, System.nanoTime() + unit.toNanos(delayTime));
+            timers.add(timeout);
+            add(timeout);
+            return timeout;
+        }
+
+        void enqueue(Timeout timeout) {
+            queue.offer(timeout);
+            if (wip.getAndIncrement() == 0) {
+                try {
+                    executor.execute(this);
+                } catch (RejectedExecutionException e) {
+                    // the ticker gets here too, and must go on ticking for every other worker; this
+                    // one would never run again, so it stops
+                    unsubscribe();
+                    RxJavaPlugins.getInstance().getErrorHandler().handleError(e);
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            do {
+                Timeout timeout = queue.poll();
+                if (unsubscribed) {
+                    queue.clear();
+                    return;
+                }
+                timeout.run();
+            } while (wip.decrementAndGet() != 0);
+        }
+
+        /**
+         * Cancels the pending timers too, so that the ticker unlinks them at the next tick instead of
+         * holding on to their actions until they come due; Observable.timer and delay leave that to
+         * the worker.
+         */
+        @Override
+        public void unsubscribe() {
+            unsubscribed = true;
+            timers.unsubscribe();
+            queue.clear();
+        }
+
+        @Override
+        public boolean isUnsubscribed() {
+            return unsubscribed;
+        }
+    }
+
+    /**
+     * A scheduled action, linked into its bucket by the ticker while it waits there.
+     */
+    private final class Timeout extends AtomicInteger implements Subscription {
+        private static final long serialVersionUID = 1L;
+
+        static final int PENDING = 0;
+        static final int CANCELLED = 1;
+        static final int RUN = 2;
+
+        final HashedWheelWorker worker;
+        final Action0 action;
+        // false for actions without a delay, which never enter the wheel
+        final boolean timed;
+        final long deadline;
+        long rounds;
+        int bucket = -1;
+        Timeout previous;
+        Timeout next;
+
+        Timeout(HashedWheelWorker worker, Action0 action, boolean timed, long deadline) {
+            this.worker = worker;
+            this.action = action;
+            this.timed = timed;
+            this.deadline = deadline;
+        }
+
+        void run() {
+            if (worker.unsubscribed || !compareAndSet(PENDING, RUN)) {
+                return;
+            }
+            if (timed) {
+                worker.timers.remove(this);
+            }
+            try {
+                action.call();
+            } catch (Throwable e) {
+                // like ScheduledAction: the default error handler does nothing, and an
+                // OnErrorNotImplementedException must neither vanish nor stop the worker
+                RxJavaPlugins.getInstance().getErrorHandler().handleError(e);
+                Thread thread = Thread.currentThread();
+                thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+            }
+        }
+
+        @Override
+        public void unsubscribe() {
+            if (compareAndSet(PENDING, CANCELLED) && timed) {
+                cancelled.offer(this);
+                worker.timers.remove(this);
+            }
+        }
+
+        @Override
+        public boolean isUnsubscribed() {
+            return get() != PENDING || worker.unsubscribed;
+        }
+    }
+}
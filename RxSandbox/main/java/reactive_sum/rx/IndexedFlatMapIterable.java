@@ -0,0 +1,260 @@
+package reactive_sum.rx;
+
+import rx.Observable;
+import rx.Subscriber;
+import rx.exceptions.Exceptions;
+import rx.exceptions.MissingBackpressureException;
+import rx.exceptions.OnErrorThrowable;
+import rx.functions.Func1;
+import rx.internal.operators.BackpressureUtils;
+import rx.internal.operators.NotificationLite;
+import rx.internal.util.atomic.SpscAtomicArrayQueue;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * flatMapIterable that walks RandomAccess lists and arrays by index:
+ * {@code source.lift(IndexedFlatMapIterable.iterable(chunk -> chunk))}.
+ *
+ * flatMapIterable asks every inner Iterable for an Iterator and calls hasNext and next for every
+ * element. An {@code ArrayList} or {@code Arrays.asList} chunk is read here with size and get in a
+ * loop bounded by both the chunk and what the subscriber requested, so a chunk goes out in one
+ * tight run without allocating anything; {@link #array} does the same for arrays. Other iterables
+ * fall back to their iterator.
+ */
+public class IndexedFlatMapIterable<T, R> implements Observable.Operator<R, T> {
+    private static final int DEFAULT_PREFETCH = 128;
+
+    // returns an Iterable, or an array when arrays is set
+    private final Func1<Object, Object> mapper;
+    private final boolean arrays;
+    private final int prefetch;
+
+    @SuppressWarnings("unchecked")
+    private IndexedFlatMapIterable(Func1<?, ?> mapper, boolean arrays, int prefetch) {
+        this.mapper = (Func1<Object, Object>) mapper;
+        this.arrays = arrays;
+        this.prefetch = prefetch;
+    }
+
+    public static <T, R> IndexedFlatMapIterable<T, R> iterable(Func1<? super T, ? extends Iterable<? extends R>> mapper) {
+        return new IndexedFlatMapIterable<>(mapper, false, DEFAULT_PREFETCH);
+    }
+
+    public static <T, R> IndexedFlatMapIterable<T, R> array(Func1<? super T, ? extends R[]> mapper) {
+        return new IndexedFlatMapIterable<>(mapper, true, DEFAULT_PREFETCH);
+    }
+
+    @Override
+    public Subscriber<? super T> call(Subscriber<? super R> child) {
+        FlattenSubscriber<T, R> parent = new FlattenSubscriber<>(child, mapper, arrays, prefetch);
+        child.add(parent);
+        child.setProducer(parent::requestMore);
+        return parent;
+    }
+
+    private static class FlattenSubscriber<T, R> extends Subscriber<T> {
+        private final Subscriber<? super R> child;
+        private final Func1<Object, Object> mapper;
+        private final boolean arrays;
+        private final int limit;
+        private final NotificationLite<T> on = NotificationLite.instance();
+        private final Queue<Object> queue;
+        private final AtomicInteger wip = new AtomicInteger();
+        private final AtomicLong requested = new AtomicLong();
+        private volatile boolean done;
+        private Throwable error;
+
+        // only touched in drain; at most one of list, array and iterator is set
+        private List<?> list;
+        private Object[] array;
+        private Iterator<?> iterator;
+        private int index;
+        private int consumed;
+
+        FlattenSubscriber(Subscriber<? super R> child, Func1<Object, Object> mapper, boolean arrays, int prefetch) {
+            this.child = child;
+            this.mapper = mapper;
+            this.arrays = arrays;
+            this.limit = prefetch - (prefetch >> 2);
+            this.queue = new SpscAtomicArrayQueue<>(prefetch);
+            request(prefetch);
+        }
+
+        void requestMore(long n) {
+            if (n < 0) {
+                throw new IllegalArgumentException("n >= 0 required but it was " + n);
+            }
+            if (n > 0) {
+                BackpressureUtils.getAndAddRequest(requested, n);
+                drain();
+            }
+        }
+
+        @Override
+        public void onNext(T t) {
+            if (!queue.offer(on.next(t))) {
+                unsubscribe();
+                onError(new MissingBackpressureException());
+                return;
+            }
+            drain();
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            error = e;
+            done = true;
+            drain();
+        }
+
+        @Override
+        public void onCompleted() {
+            done = true;
+            drain();
+        }
+
+        @SuppressWarnings("unchecked")
+        void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            for (;;) {
+                long r = requested.get();
+                long e = 0L;
+                for (;;) {
+                    // on unsubscribe, on the terminal event and on a failing mapper or iterator the
+                    // loop returns with wip still raised, so a later request never emits again
+                    if (child.isUnsubscribed()) {
+                        queue.clear();
+                        return;
+                    }
+                    if (list == null && array == null && iterator == null) {
+                        boolean d = done;
+                        Object v = queue.poll();
+                        if (v == null) {
+                            if (d) {
+                                if (error != null) {
+                                    child.onError(error);
+                                } else {
+                                    child.onCompleted();
+                                }
+                                return;
+                            }
+                            break;
+                        }
+                        if (++consumed == limit) {
+                            consumed = 0;
+                            request(limit);
+                        }
+                        T value = on.getValue(v);
+                        try {
+                            next(mapper.call(value));
+                        } catch (Throwable ex) {
+                            Exceptions.throwIfFatal(ex);
+                            fail(OnErrorThrowable.addValueAsLastCause(ex, value));
+                            return;
+                        }
+                        continue;
+                    }
+                    if (e == r) {
+                        break;
+                    }
+                    try {
+                        if (list != null) {
+                            List<?> items = list;
+                            int i = index;
+                            // everything that is both left in the list and requested, in one run;
+                            // i + n would overflow once the request is unbounded
+                            long n = r - e;
+                            int end = items.size() - i <= n ? items.size() : i + (int) n;
+                            for (; i < end; i++) {
+                                if (child.isUnsubscribed()) {
+                                    return;
+                                }
+                                child.onNext((R) items.get(i));
+                            }
+                            e += i - index;
+                            index = i;
+                            if (i == items.size()) {
+                                list = null;
+                            }
+                        } else if (array != null) {
+                            Object[] items = array;
+                            int i = index;
+                            long n = r - e;
+                            int end = items.length - i <= n ? items.length : i + (int) n;
+                            for (; i < end; i++) {
+                                if (child.isUnsubscribed()) {
+                                    return;
+                                }
+                                child.onNext((R) items[i]);
+                            }
+                            e += i - index;
+                            index = i;
+                            if (i == items.length) {
+                                array = null;
+                            }
+                        } else {
+                            Iterator<?> it = iterator;
+                            while (e != r) {
+                                if (child.isUnsubscribed()) {
+                                    return;
+                                }
+                                child.onNext((R) it.next());
+                                e++;
+                                if (!it.hasNext()) {
+                                    iterator = null;
+                                    break;
+                                }
+                            }
+                        }
+                    } catch (Throwable ex) {
+                        Exceptions.throwIfFatal(ex);
+                        fail(ex);
+                        return;
+                    }
+                }
+                if (e != 0L && r != Long.MAX_VALUE) {
+                    requested.addAndGet(-e);
+                }
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Makes the mapped chunk current, leaving nothing current when it is empty.
+         */
+        private void next(Object chunk) {
+            index = 0;
+            if (arrays) {
+                Object[] items = (Object[]) chunk;
+                array = items.length != 0 ? items : null;
+            } else if (chunk instanceof List && chunk instanceof RandomAccess) {
+                List<?> items = (List<?>) chunk;
+                list = !items.isEmpty() ? items : null;
+            } else {
+                Iterator<?> it = ((Iterable<?>) chunk).iterator();
+                iterator = it.hasNext() ? it : null;
+            }
+        }
+
+        private void fail(Throwable e) {
+            unsubscribe();
+            queue.clear();
+            list = null;
+            array = null;
+            iterator = null;
+            child.onError(e);
+        }
+    }
+}
@@ -0,0 +1,627 @@
+package reactive_sum.rx;
+
+import rx.Observable;
+import rx.Producer;
+import rx.Scheduler;
+import rx.Subscriber;
+import rx.Subscription;
+import rx.exceptions.Exceptions;
+import rx.exceptions.MissingBackpressureException;
+import rx.exceptions.OnErrorNotImplementedException;
+import rx.exceptions.OnErrorThrowable;
+import rx.functions.Action0;
+import rx.internal.operators.BackpressureUtils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Observable of unboxed ints for numeric pipelines such as {@code range(...).map(i -> i * 100)},
+ * where boxing every element to an Integer costs more than the work itself. Values stay ints from
+ * the source to the subscriber; {@link #from(Observable)} and {@link #toObservable()} box only at
+ * the edges.
+ *
+ * It follows Observable's protocol: an {@link OnSubscribe} per source, operators lifted onto it,
+ * rx.Producer for backpressure and rx.Subscription for unsubscribing.
+ */
+public class IntObservable {
+    static final int OBSERVE_ON_BUFFER_SIZE = 128;
+
+    public interface OnSubscribe {
+        void call(IntSubscriber subscriber);
+    }
+
+    public interface Operator {
+        IntSubscriber call(IntSubscriber child);
+    }
+
+    private final OnSubscribe onSubscribe;
+
+    protected IntObservable(OnSubscribe onSubscribe) {
+        this.onSubscribe = onSubscribe;
+    }
+
+    public static IntObservable create(OnSubscribe onSubscribe) {
+        return new IntObservable(onSubscribe);
+    }
+
+    /**
+     * Emits {@code count} ints starting at {@code start}, honouring backpressure like
+     * Observable.range.
+     */
+    public static IntObservable range(int start, int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Count can not be negative: " + count);
+        }
+        if ((long) start + count - 1 > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("start + count can not exceed Integer.MAX_VALUE");
+        }
+        return create(child -> {
+            if (count == 0) {
+                child.onCompleted();
+            } else {
+                child.setProducer(new RangeProducer(child, start, start + count - 1));
+            }
+        });
+    }
+
+    /**
+     * Unboxes an Observable of Integers; requests are passed through to it.
+     */
+    public static IntObservable from(Observable<Integer> source) {
+        return create(child -> {
+            FromSubscriber parent = new FromSubscriber(child);
+            child.add(parent);
+            child.setProducer(parent::requestMore);
+            source.unsafeSubscribe(parent);
+        });
+    }
+
+    public final IntObservable lift(Operator operator) {
+        return create(child -> {
+            try {
+                IntSubscriber parent = operator.call(child);
+                try {
+                    parent.onStart();
+                    onSubscribe.call(parent);
+                } catch (Throwable e) {
+                    Exceptions.throwIfFatal(e);
+                    parent.onError(e);
+                }
+            } catch (Throwable e) {
+                Exceptions.throwIfFatal(e);
+                child.onError(e);
+            }
+        });
+    }
+
+    public final IntObservable map(IntUnaryOperator function) {
+        return lift(child -> {
+            MapSubscriber parent = new MapSubscriber(child, function);
+            child.add(parent);
+            return parent;
+        });
+    }
+
+    public final IntObservable filter(IntPredicate predicate) {
+        return lift(child -> {
+            FilterSubscriber parent = new FilterSubscriber(child, predicate);
+            child.add(parent);
+            return parent;
+        });
+    }
+
+    /**
+     * Folds the values into one, emitted when the source completes.
+     */
+    public final IntObservable reduce(int seed, IntBinaryOperator accumulator) {
+        return lift(child -> {
+            ReduceSubscriber parent = new ReduceSubscriber(child, seed, accumulator);
+            child.add(parent);
+            child.setProducer(parent::requestResult);
+            return parent;
+        });
+    }
+
+    /**
+     * Delivers the values on the given scheduler through a bounded buffer of unboxed ints.
+     */
+    public final IntObservable observeOn(Scheduler scheduler) {
+        return lift(child -> {
+            ObserveOnSubscriber parent = new ObserveOnSubscriber(child, scheduler.createWorker());
+            parent.init();
+            return parent;
+        });
+    }
+
+    public final Observable<Integer> toObservable() {
+        return Observable.create(subscriber -> {
+            IntSubscriber parent = new IntSubscriber() {
+                @Override
+                public void onNext(int value) {
+                    subscriber.onNext(value);
+                }
+
+                @Override
+                public void onError(Throwable e) {
+                    subscriber.onError(e);
+                }
+
+                @Override
+                public void onCompleted() {
+                    subscriber.onCompleted();
+                }
+            };
+            subscriber.add(parent);
+            subscriber.setProducer(parent::request);
+            subscribe(parent);
+        });
+    }
+
+    public final Subscription subscribe(IntSubscriber subscriber) {
+        try {
+            subscriber.onStart();
+            onSubscribe.call(subscriber);
+        } catch (Throwable e) {
+            Exceptions.throwIfFatal(e);
+            subscriber.onError(e);
+        }
+        return subscriber;
+    }
+
+    public final Subscription subscribe(IntConsumer onNext) {
+        return subscribe(new IntSubscriber() {
+            @Override
+            public void onNext(int value) {
+                onNext.accept(value);
+            }
+
+            @Override
+            public void onError(Throwable e) {
+                throw new OnErrorNotImplementedException(e);
+            }
+
+            @Override
+            public void onCompleted() {
+            }
+        });
+    }
+
+    /**
+     * Observable.range's producer with ints: a loop without accounting once everything has been
+     * requested, request-bounded batches otherwise.
+     */
+    private static class RangeProducer extends AtomicLong implements Producer {
+        private static final long serialVersionUID = 1L;
+
+        private final IntSubscriber child;
+        private final int end;
+        private long index;
+
+        RangeProducer(IntSubscriber child, int start, int end) {
+            this.child = child;
+            this.index = start;
+            this.end = end;
+        }
+
+        @Override
+        public void request(long n) {
+            if (get() == Long.MAX_VALUE) {
+                return;
+            }
+            if (n == Long.MAX_VALUE && compareAndSet(0, Long.MAX_VALUE)) {
+                fastPath();
+            } else if (n > 0 && BackpressureUtils.getAndAddRequest(this, n) == 0) {
+                slowPath(n);
+            }
+        }
+
+        private void fastPath() {
+            long endIndex = end + 1L;
+            for (long i = index; i != endIndex; i++) {
+                if (child.isUnsubscribed()) {
+                    return;
+                }
+                child.onNext((int) i);
+            }
+            if (!child.isUnsubscribed()) {
+                child.onCompleted();
+            }
+        }
+
+        private void slowPath(long requested) {
+            long endIndex = end + 1L;
+            long i = index;
+            long emitted = 0;
+            while (true) {
+                while (emitted != requested && i != endIndex) {
+                    if (child.isUnsubscribed()) {
+                        return;
+                    }
+                    child.onNext((int) i);
+                    i++;
+                    emitted++;
+                }
+                if (child.isUnsubscribed()) {
+                    return;
+                }
+                if (i == endIndex) {
+                    child.onCompleted();
+                    return;
+                }
+                requested = get();
+                if (requested == emitted) {
+                    index = i;
+                    requested = addAndGet(-emitted);
+                    if (requested == 0) {
+                        return;
+                    }
+                    emitted = 0;
+                }
+            }
+        }
+    }
+
+    private static class FromSubscriber extends Subscriber<Integer> {
+        private final IntSubscriber child;
+
+        FromSubscriber(IntSubscriber child) {
+            this.child = child;
+            request(0);
+        }
+
+        void requestMore(long n) {
+            request(n);
+        }
+
+        @Override
+        public void onNext(Integer value) {
+            child.onNext(value);
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            child.onError(e);
+        }
+
+        @Override
+        public void onCompleted() {
+            child.onCompleted();
+        }
+    }
+
+    private static class MapSubscriber extends IntSubscriber {
+        private final IntSubscriber child;
+        private final IntUnaryOperator function;
+        private boolean done;
+
+        MapSubscriber(IntSubscriber child, IntUnaryOperator function) {
+            super(child, false);
+            this.child = child;
+            this.function = function;
+        }
+
+        @Override
+        public void onNext(int value) {
+            if (done) {
+                return;
+            }
+            int result;
+            try {
+                result = function.applyAsInt(value);
+            } catch (Throwable e) {
+                Exceptions.throwIfFatal(e);
+                unsubscribe();
+                onError(OnErrorThrowable.addValueAsLastCause(e, value));
+                return;
+            }
+            child.onNext(result);
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            if (done) {
+                return;
+            }
+            done = true;
+            child.onError(e);
+        }
+
+        @Override
+        public void onCompleted() {
+            if (done) {
+                return;
+            }
+            done = true;
+            child.onCompleted();
+        }
+    }
+
+    private static class FilterSubscriber extends IntSubscriber {
+        private final IntSubscriber child;
+        private final IntPredicate predicate;
+        private boolean done;
+
+        FilterSubscriber(IntSubscriber child, IntPredicate predicate) {
+            this.child = child;
+            this.predicate = predicate;
+            request(0);
+        }
+
+        @Override
+        public void onNext(int value) {
+            boolean pass;
+            try {
+                pass = predicate.test(value);
+            } catch (Throwable e) {
+                Exceptions.throwIfFatal(e);
+                unsubscribe();
+                onError(OnErrorThrowable.addValueAsLastCause(e, value));
+                return;
+            }
+            if (pass) {
+                child.onNext(value);
+            } else {
+                request(1);
+            }
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            if (done) {
+                return;
+            }
+            done = true;
+            child.onError(e);
+        }
+
+        @Override
+        public void onCompleted() {
+            if (done) {
+                return;
+            }
+            done = true;
+            child.onCompleted();
+        }
+
+        @Override
+        public void setProducer(Producer producer) {
+            super.setProducer(producer);
+            child.setProducer(producer);
+        }
+    }
+
+    /**
+     * Requests everything from upstream and holds the result until the child has requested it and
+     * the source has completed, whichever comes last.
+     */
+    private static class ReduceSubscriber extends IntSubscriber {
+        private static final int HAS_REQUEST = 1;
+        private static final int HAS_VALUE = 2;
+
+        private final IntSubscriber child;
+        private final IntBinaryOperator accumulator;
+        private final AtomicInteger state = new AtomicInteger();
+        private int value;
+        private boolean done;
+
+        ReduceSubscriber(IntSubscriber child, int seed, IntBinaryOperator accumulator) {
+            this.child = child;
+            this.accumulator = accumulator;
+            this.value = seed;
+        }
+
+        void requestResult(long n) {
+            if (n <= 0) {
+                return;
+            }
+            while (true) {
+                int current = state.get();
+                if ((current & HAS_REQUEST) != 0) {
+                    return;
+                }
+                if (state.compareAndSet(current, current | HAS_REQUEST)) {
+                    if ((current & HAS_VALUE) != 0) {
+                        emit();
+                    }
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public void onNext(int item) {
+            if (done) {
+                return;
+            }
+            try {
+                value = accumulator.applyAsInt(value, item);
+            } catch (Throwable e) {
+                Exceptions.throwIfFatal(e);
+                unsubscribe();
+                onError(OnErrorThrowable.addValueAsLastCause(e, item));
+            }
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            if (done) {
+                return;
+            }
+            done = true;
+            child.onError(e);
+        }
+
+        @Override
+        public void onCompleted() {
+            if (done) {
+                return;
+            }
+            done = true;
+            while (true) {
+                int current = state.get();
+                if (state.compareAndSet(current, current | HAS_VALUE)) {
+                    if ((current & HAS_REQUEST) != 0) {
+                        emit();
+                    }
+                    return;
+                }
+            }
+        }
+
+        private void emit() {
+            if (child.isUnsubscribed()) {
+                return;
+            }
+            child.onNext(value);
+            if (!child.isUnsubscribed()) {
+                child.onCompleted();
+            }
+        }
+    }
+
+    /**
+     * Single-producer/single-consumer ring of ints between the source thread and the worker. The
+     * source is asked for {@link #OBSERVE_ON_BUFFER_SIZE} values up front and topped up a quarter
+     * buffer at a time as the worker drains, so the ring never overflows a well-behaved source.
+     */
+    private static class ObserveOnSubscriber extends IntSubscriber implements Action0 {
+        private static final int MASK = OBSERVE_ON_BUFFER_SIZE - 1;
+        private static final int LIMIT = OBSERVE_ON_BUFFER_SIZE - (OBSERVE_ON_BUFFER_SIZE >> 2);
+
+        private final IntSubscriber child;
+        private final Scheduler.Worker worker;
+        private final int[] buffer = new int[OBSERVE_ON_BUFFER_SIZE];
+        private final AtomicLong producerIndex = new AtomicLong();
+        private final AtomicLong consumerIndex = new AtomicLong();
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicLong wip = new AtomicLong();
+        private volatile boolean done;
+        private Throwable error;
+        private long consumedSinceRequest;
+
+        ObserveOnSubscriber(IntSubscriber child, Scheduler.Worker worker) {
+            this.child = child;
+            this.worker = worker;
+        }
+
+        void init() {
+            child.add(worker);
+            child.add(this);
+            child.setProducer(n -> {
+                if (n > 0) {
+                    BackpressureUtils.getAndAddRequest(requested, n);
+                    schedule();
+                }
+            });
+            request(OBSERVE_ON_BUFFER_SIZE);
+        }
+
+        @Override
+        public void onNext(int value) {
+            if (isUnsubscribed() || done) {
+                return;
+            }
+            long index = producerIndex.get();
+            if (index - consumerIndex.get() >= OBSERVE_ON_BUFFER_SIZE) {
+                onError(new MissingBackpressureException());
+                return;
+            }
+            buffer[(int) index & MASK] = value;
+            producerIndex.lazySet(index + 1);
+            schedule();
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            if (isUnsubscribed() || done) {
+                return;
+            }
+            error = e;
+            done = true;
+            schedule();
+        }
+
+        @Override
+        public void onCompleted() {
+            if (isUnsubscribed() || done) {
+                return;
+            }
+            done = true;
+            schedule();
+        }
+
+        private void schedule() {
+            if (wip.getAndIncrement() == 0) {
+                worker.schedule(this);
+            }
+        }
+
+        @Override
+        public void call() {
+            long missed = 1;
+            long consumed = consumerIndex.get();
+            while (true) {
+                long wanted = requested.get();
+                long emitted = 0;
+                while (emitted != wanted) {
+                    boolean terminated = done;
+                    boolean empty = producerIndex.get() == consumed;
+                    if (checkTerminated(terminated, empty)) {
+                        return;
+                    }
+                    if (empty) {
+                        break;
+                    }
+                    child.onNext(buffer[(int) consumed & MASK]);
+                    consumerIndex.lazySet(++consumed);
+                    emitted++;
+                    if (++consumedSinceRequest == LIMIT) {
+                        consumedSinceRequest = 0;
+                        request(LIMIT);
+                    }
+                }
+                if (emitted == wanted && checkTerminated(done, producerIndex.get() == consumed)) {
+                    return;
+                }
+                if (emitted != 0 && wanted != Long.MAX_VALUE) {
+                    requested.addAndGet(-emitted);
+                }
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        private boolean checkTerminated(boolean terminated, boolean empty) {
+            if (child.isUnsubscribed()) {
+                return true;
+            }
+            if (terminated) {
+                Throwable e = error;
+                if (e != null) {
+                    try {
+                        child.onError(e);
+                    } finally {
+                        worker.unsubscribe();
+                    }
+                    return true;
+                }
+                if (empty) {
+                    try {
+                        child.onCompleted();
+                    } finally {
+                        worker.unsubscribe();
+                    }
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package reactive_sum.rx;
+
+import rx.Producer;
+import rx.Subscription;
+import rx.internal.util.SubscriptionList;
+
+/**
+ * Subscriber of an {@link IntObservable}: rx.Subscriber with an {@code onNext(int)}. Requests,
+ * producers and shared subscriptions work exactly as they do there, so operators are written the
+ * same way.
+ */
+public abstract class IntSubscriber implements Subscription {
+    private static final long NOT_SET = Long.MIN_VALUE;
+
+    private final SubscriptionList subscriptions;
+    private final IntSubscriber subscriber;
+    private Producer producer;
+    private long requested = NOT_SET;
+
+    protected IntSubscriber() {
+        this(null, false);
+    }
+
+    /**
+     * Shares the given subscriber's subscriptions and passes a producer on to it unless this
+     * subscriber has requested something itself.
+     */
+    protected IntSubscriber(IntSubscriber subscriber) {
+        this(subscriber, true);
+    }
+
+    protected IntSubscriber(IntSubscriber subscriber, boolean shareSubscriptions) {
+        this.subscriber = subscriber;
+        this.subscriptions = shareSubscriptions && subscriber != null ? subscriber.subscriptions : new SubscriptionList();
+    }
+
+    public abstract void onNext(int value);
+
+    public abstract void onError(Throwable e);
+
+    public abstract void onCompleted();
+
+    public void onStart() {
+    }
+
+    public final void add(Subscription subscription) {
+        subscriptions.add(subscription);
+    }
+
+    @Override
+    public final void unsubscribe() {
+        subscriptions.unsubscribe();
+    }
+
+    @Override
+    public final boolean isUnsubscribed() {
+        return subscriptions.isUnsubscribed();
+    }
+
+    protected final void request(long n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("number requested cannot be negative: " + n);
+        }
+        Producer producerToRequestFrom;
+        synchronized (this) {
+            if (producer == null) {
+                if (requested == NOT_SET) {
+                    requested = n;
+                } else {
+                    long total = requested + n;
+                    requested = total < 0 ? Long.MAX_VALUE : total;
+                }
+                return;
+            }
+            producerToRequestFrom = producer;
+        }
+        producerToRequestFrom.request(n);
+    }
+
+    public void setProducer(Producer producer) {
+        long toRequest;
+        boolean passToSubscriber = false;
+        synchronized (this) {
+            toRequest = requested;
+            this.producer = producer;
+            if (subscriber != null && toRequest == NOT_SET) {
+                passToSubscriber = true;
+            }
+        }
+        if (passToSubscriber) {
+            subscriber.setProducer(producer);
+        } else if (toRequest == NOT_SET) {
+            producer.request(Long.MAX_VALUE);
+        } else {
+            producer.request(toRequest);
+        }
+    }
+}
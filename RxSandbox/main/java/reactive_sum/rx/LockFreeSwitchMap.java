@@ -0,0 +1,385 @@
+package reactive_sum.rx;
+
+import rx.Observable;
+import rx.Scheduler;
+import rx.Subscriber;
+import rx.exceptions.Exceptions;
+import rx.exceptions.MissingBackpressureException;
+import rx.exceptions.OnErrorThrowable;
+import rx.functions.Func1;
+import rx.internal.operators.BackpressureUtils;
+import rx.internal.operators.NotificationLite;
+import rx.internal.util.atomic.SpscAtomicArrayQueue;
+import rx.plugins.RxJavaPlugins;
+import rx.schedulers.Schedulers;
+import rx.subscriptions.Subscriptions;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * switchMap without locks: {@code queries.lift(new LockFreeSwitchMap<>(query -> search(query)))}.
+ *
+ * RxJava's switchMap takes the operator's lock for every item an inner observable emits, and
+ * unsubscribes the previous inner on the thread that delivers the next outer item. Here every
+ * switch increments an index and swaps the active inner in with getAndSet; an inner compares its
+ * id with the index before queueing an item, and the drain compares again before emitting it, so
+ * stale items are dropped without a lock. An item of the active inner goes straight to the
+ * subscriber when nothing else is being emitted; otherwise it waits in the inner's own queue, which
+ * holds at most {@code prefetch} items and is only allocated when first needed.
+ *
+ * Replaced inners are handed to a worker of the cancel scheduler, which unsubscribes them in
+ * batches. The time from a switch to the replaced inner being unsubscribed is recorded in
+ * {@link #getCancelLatency()}. Errors from replaced inners are ignored, like switchMap does.
+ */
+public class LockFreeSwitchMap<T, R> implements Observable.Operator<R, T> {
+    private static final int DEFAULT_PREFETCH = 128;
+
+    private final Func1<? super T, ? extends Observable<? extends R>> mapper;
+    private final Scheduler cancelScheduler;
+    private final int prefetch;
+    private final SchedulerMetrics.Histogram cancelLatency = new SchedulerMetrics.Histogram();
+
+    public LockFreeSwitchMap(Func1<? super T, ? extends Observable<? extends R>> mapper) {
+        this(mapper, Schedulers.computation(), DEFAULT_PREFETCH);
+    }
+
+    /**
+     * @param cancelScheduler where replaced inner observables are unsubscribed
+     * @param prefetch most items buffered for the active inner observable
+     */
+    public LockFreeSwitchMap(Func1<? super T, ? extends Observable<? extends R>> mapper, Scheduler cancelScheduler,
+                             int prefetch) {
+        if (prefetch < 1) {
+            throw new IllegalArgumentException("prefetch > 0 required but it was " + prefetch);
+        }
+        this.mapper = mapper;
+        this.cancelScheduler = cancelScheduler;
+        this.prefetch = prefetch;
+    }
+
+    /**
+     * Nanoseconds from a switch until the inner observable it replaced was unsubscribed, over every
+     * subscription to this operator.
+     */
+    public SchedulerMetrics.Histogram getCancelLatency() {
+        return cancelLatency;
+    }
+
+    @Override
+    public Subscriber<? super T> call(Subscriber<? super R> child) {
+        SwitchSubscriber<T, R> parent = new SwitchSubscriber<>(child, this);
+        parent.init();
+        return parent;
+    }
+
+    private static class SwitchSubscriber<T, R> extends Subscriber<T> {
+        private final Subscriber<? super R> child;
+        private final Func1<? super T, ? extends Observable<? extends R>> mapper;
+        private final int prefetch;
+        private final SchedulerMetrics.Histogram cancelLatency;
+        private final Scheduler.Worker cancelWorker;
+        private final NotificationLite<R> on = NotificationLite.instance();
+        // id of the newest inner; anything an older inner emits is stale
+        final AtomicLong index = new AtomicLong();
+        private final AtomicReference<SwitchInnerSubscriber<R>> active = new AtomicReference<>();
+        private final Queue<SwitchInnerSubscriber<R>> retired = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger cancelWip = new AtomicInteger();
+        private final AtomicInteger wip = new AtomicInteger();
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicReference<Throwable> error = new AtomicReference<>();
+        private volatile boolean mainDone;
+
+        SwitchSubscriber(Subscriber<? super R> child, LockFreeSwitchMap<T, R> operator) {
+            this.child = child;
+            this.mapper = operator.mapper;
+            this.prefetch = operator.prefetch;
+            this.cancelLatency = operator.cancelLatency;
+            this.cancelWorker = operator.cancelScheduler.createWorker();
+        }
+
+        void init() {
+            child.add(this);
+            child.add(Subscriptions.create(this::cancelAll));
+            child.setProducer(this::requestMore);
+        }
+
+        void requestMore(long n) {
+            if (n < 0) {
+                throw new IllegalArgumentException("n >= 0 required but it was " + n);
+            }
+            if (n > 0) {
+                BackpressureUtils.getAndAddRequest(requested, n);
+                drain();
+            }
+        }
+
+        @Override
+        public void onNext(T t) {
+            Observable<? extends R> source;
+            try {
+                source = mapper.call(t);
+            } catch (Throwable e) {
+                Exceptions.throwIfFatal(e);
+                unsubscribe();
+                onError(OnErrorThrowable.addValueAsLastCause(e, t));
+                return;
+            }
+            SwitchInnerSubscriber<R> inner = new SwitchInnerSubscriber<>(index.incrementAndGet(), this, prefetch);
+            SwitchInnerSubscriber<R> previous = active.getAndSet(inner);
+            if (previous != null) {
+                retire(previous);
+            }
+            if (child.isUnsubscribed()) {
+                // cancelAll may have run before the swap
+                inner.unsubscribe();
+                return;
+            }
+            source.unsafeSubscribe(inner);
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            fail(e);
+        }
+
+        @Override
+        public void onCompleted() {
+            mainDone = true;
+            drain();
+        }
+
+        void innerError(Throwable e, long id) {
+            if (index.get() == id) {
+                fail(e);
+            }
+        }
+
+        private void fail(Throwable e) {
+            if (error.compareAndSet(null, e)) {
+                drain();
+            } else {
+                RxJavaPlugins.getInstance().getErrorHandler().handleError(e);
+            }
+        }
+
+        private void retire(SwitchInnerSubscriber<R> inner) {
+            inner.retiredAt = System.nanoTime();
+            retired.offer(inner);
+            if (cancelWorker.isUnsubscribed() || child.isUnsubscribed()) {
+                // cancelAll already ran, or is about to and drains after unsubscribing the worker;
+                // a task scheduled now would never run
+                unsubscribeRetired();
+                return;
+            }
+            if (cancelWip.getAndIncrement() == 0) {
+                cancelWorker.schedule(this::cancelRetired);
+            }
+        }
+
+        private void cancelRetired() {
+            int missed = 1;
+            for (;;) {
+                unsubscribeRetired();
+                missed = cancelWip.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        private void unsubscribeRetired() {
+            SwitchInnerSubscriber<R> inner;
+            while ((inner = retired.poll()) != null) {
+                inner.unsubscribe();
+                cancelLatency.record(System.nanoTime() - inner.retiredAt);
+            }
+        }
+
+        private void cancelAll() {
+            SwitchInnerSubscriber<R> inner = active.getAndSet(null);
+            if (inner != null) {
+                inner.unsubscribe();
+            }
+            cancelWorker.unsubscribe();
+            unsubscribeRetired();
+        }
+
+        /**
+         * Emits straight to the child when nothing else is draining and nothing is queued, which is
+         * the common case for a single active inner; queues the item otherwise.
+         */
+        void innerNext(SwitchInnerSubscriber<R> inner, R value) {
+            if (wip.compareAndSet(0, 1)) {
+                if (inner.isEmpty() && requested.get() != 0L && active.get() == inner && inner.id == index.get()
+                        && error.get() == null) {
+                    child.onNext(value);
+                    if (requested.get() != Long.MAX_VALUE) {
+                        requested.decrementAndGet();
+                    }
+                    inner.consumed();
+                    int missed = wip.decrementAndGet();
+                    if (missed != 0) {
+                        drainLoop(missed);
+                    }
+                    return;
+                }
+                offer(inner, value);
+                drainLoop(1);
+                return;
+            }
+            offer(inner, value);
+            drain();
+        }
+
+        private void offer(SwitchInnerSubscriber<R> inner, R value) {
+            if (!inner.offer(on.next(value))) {
+                inner.unsubscribe();
+                innerError(new MissingBackpressureException(), inner.id);
+            }
+        }
+
+        void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            drainLoop(1);
+        }
+
+        private void drainLoop(int missed) {
+            for (;;) {
+                long r = requested.get();
+                long e = 0L;
+                for (;;) {
+                    // unsubscribed, failed or completed, the loop returns with wip still raised, so
+                    // an item a cancelled inner still delivers never gets a drain started
+                    if (child.isUnsubscribed()) {
+                        return;
+                    }
+                    Throwable ex = error.get();
+                    if (ex != null) {
+                        unsubscribe();
+                        cancelAll();
+                        child.onError(ex);
+                        return;
+                    }
+                    // read before active: once the outer is done, active holds its last inner
+                    boolean done = mainDone;
+                    SwitchInnerSubscriber<R> inner = active.get();
+                    if (inner == null) {
+                        if (done) {
+                            cancelAll();
+                            child.onCompleted();
+                            return;
+                        }
+                        break;
+                    }
+                    boolean innerDone = inner.done;
+                    Object v = inner.peek();
+                    if (v == null) {
+                        if (!innerDone) {
+                            break;
+                        }
+                        // fails if a switch got in first, then the new inner is picked up
+                        active.compareAndSet(inner, null);
+                        continue;
+                    }
+                    if (e == r) {
+                        break;
+                    }
+                    inner.poll();
+                    if (inner.id != index.get()) {
+                        continue;
+                    }
+                    child.onNext(on.getValue(v));
+                    inner.consumed();
+                    e++;
+                }
+                if (e != 0L && r != Long.MAX_VALUE) {
+                    requested.addAndGet(-e);
+                }
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Only allocates its queue once the drain falls behind, so an inner that is switched away
+     * from before it emits much costs no buffer.
+     */
+    private static class SwitchInnerSubscriber<R> extends Subscriber<R> {
+        final long id;
+        private final SwitchSubscriber<?, R> parent;
+        private final int prefetch;
+        private final int limit;
+        private volatile Queue<Object> queue;
+        volatile boolean done;
+        long retiredAt;
+        // only touched in the drain
+        private int consumed;
+
+        SwitchInnerSubscriber(long id, SwitchSubscriber<?, R> parent, int prefetch) {
+            this.id = id;
+            this.parent = parent;
+            this.prefetch = prefetch;
+            this.limit = Math.max(1, prefetch - (prefetch >> 2));
+            request(prefetch);
+        }
+
+        @Override
+        public void onNext(R r) {
+            if (parent.index.get() != id) {
+                return;
+            }
+            parent.innerNext(this, r);
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            parent.innerError(e, id);
+        }
+
+        @Override
+        public void onCompleted() {
+            done = true;
+            parent.drain();
+        }
+
+        boolean offer(Object value) {
+            Queue<Object> q = queue;
+            if (q == null) {
+                q = new SpscAtomicArrayQueue<>(prefetch);
+                queue = q;
+            }
+            return q.offer(value);
+        }
+
+        Object peek() {
+            Queue<Object> q = queue;
+            return q != null ? q.peek() : null;
+        }
+
+        Object poll() {
+            Queue<Object> q = queue;
+            return q != null ? q.poll() : null;
+        }
+
+        boolean isEmpty() {
+            Queue<Object> q = queue;
+            return q == null || q.isEmpty();
+        }
+
+        void consumed() {
+            if (++consumed == limit) {
+                consumed = 0;
+                request(limit);
+            }
+        }
+    }
+}
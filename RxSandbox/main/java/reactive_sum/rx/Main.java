@@ -1,15 +1,31 @@
 package reactive_sum.rx;
 
+import rx.Observable;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
 public class Main {
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("Reactive Sum");
+            System.out.println("Type 'a: <number>' and 'b: <number>' to try it");
+        }
+
+        try (Reader input = args.length > 0
+                ? Files.newBufferedReader(Paths.get(args[0]), StandardCharsets.UTF_8)
+                : new InputStreamReader(System.in, StandardCharsets.UTF_8)) {
+            BufferedReader reader = new BufferedReader(input);
+            Observable<String> lines = Observable.from(() -> reader.lines().iterator());
 
-//        ConnectableObservable<String> input = ConnectableObservable.from(new BufferedReader(new InputStream(System.in) {
-//            @Override
-//            public int read() throws IOException {
-//                return 0;
-//            }
-//        }));
+            RxReactiveSum.sums(lines).subscribe(System.out::println);
+        }
     }
 
 
@@ -0,0 +1,282 @@
+package reactive_sum.rx;
+
+import rx.Observable;
+import rx.Subscriber;
+import rx.observers.SafeSubscriber;
+import rx.plugins.RxJavaObservableExecutionHook;
+import rx.plugins.RxJavaPlugins;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Observable execution hook that meters subscriber chains: for every operator and every final
+ * subscriber it counts subscriptions and onNext calls, times onNext (including everything
+ * downstream of the stage) and records how deep the subscriber chain is at that stage.
+ * This is the picture DemystifyingSubscribers gets by casting to SafeSubscriber and calling
+ * getActual(), collected automatically.
+ *
+ * Observable reads its hook once, when the class is loaded, so the hook has to be in place before
+ * the first Observable is created: call {@link #install()} at startup, or start the JVM with
+ * {@code -Drxjava.plugin.RxJavaObservableExecutionHook.implementation=reactive_sum.rx.OperatorMetrics}.
+ *
+ * Metering starts disabled, and then the hook hands back every operator and subscriber untouched.
+ * {@link #enable(int)} meters one in every N subscriptions; the subscriptions that are not picked
+ * cost one random number each. Within a metered subscription every onNext is counted but only one
+ * in {@value #TIMING_INTERVAL} is timed.
+ */
+public class OperatorMetrics extends RxJavaObservableExecutionHook {
+    static final int TIMING_INTERVAL = 64;
+    private static final String SUBSCRIBER_PREFIX = "subscriber ";
+
+    private final ConcurrentHashMap<Class<?>, Stage> operators = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Class<?>, Stage> subscribers = new ConcurrentHashMap<>();
+    private volatile int sampleInterval;
+
+    /**
+     * Returns the installed metrics hook, registering a new one if no hook has been registered yet.
+     *
+     * @throws IllegalStateException if a different hook is already registered
+     */
+    public static OperatorMetrics install() {
+        RxJavaPlugins plugins = RxJavaPlugins.getInstance();
+        OperatorMetrics metrics = new OperatorMetrics();
+        try {
+            // getObservableExecutionHook() would register the default hook if none is set, so register first
+            plugins.registerObservableExecutionHook(metrics);
+            return metrics;
+        } catch (IllegalStateException e) {
+            RxJavaObservableExecutionHook hook = plugins.getObservableExecutionHook();
+            if (hook instanceof OperatorMetrics) {
+                return (OperatorMetrics) hook;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Meters one in every {@code sampleInterval} subscriptions; 1 meters all of them.
+     */
+    public void enable(int sampleInterval) {
+        if (sampleInterval < 1) {
+            throw new IllegalArgumentException("Sample interval must be positive: " + sampleInterval);
+        }
+        this.sampleInterval = sampleInterval;
+    }
+
+    public void disable() {
+        sampleInterval = 0;
+    }
+
+    public boolean isEnabled() {
+        return sampleInterval > 0;
+    }
+
+    public int getSampleInterval() {
+        return sampleInterval;
+    }
+
+    /**
+     * Returns the stages seen so far, sorted by name. The stages keep counting after this returns.
+     */
+    public List<Stage> getStages() {
+        List<Stage> stages = new ArrayList<>(operators.values());
+        stages.addAll(subscribers.values());
+        stages.sort(Comparator.comparing(Stage::getName));
+        return stages;
+    }
+
+    /**
+     * Writes every stage as a tab separated line: name, subscriptions, onNext calls, mean
+     * nanoseconds per onNext, mean and max chain depth.
+     */
+    public void export(Appendable output) throws IOException {
+        output.append("stage\tsubscriptions\tonNext\tnanosPerOnNext\tmeanDepth\tmaxDepth\n");
+        for (Stage stage : getStages()) {
+            output.append(stage.getName()).append('\t')
+                  .append(Long.toString(stage.getSubscriptions())).append('\t')
+                  .append(Long.toString(stage.getOnNextCount())).append('\t')
+                  .append(String.format("%.1f", stage.getNanosPerOnNext())).append('\t')
+                  .append(String.format("%.2f", stage.getMeanDepth())).append('\t')
+                  .append(Integer.toString(stage.getMaxDepth())).append('\n');
+        }
+    }
+
+    public void reset() {
+        operators.clear();
+        subscribers.clear();
+    }
+
+    @Override
+    public <T> Observable.OnSubscribe<T> onSubscribeStart(Observable<? extends T> observable,
+                                                          Observable.OnSubscribe<T> onSubscribe) {
+        int interval = sampleInterval;
+        if (interval == 0 || (interval > 1 && ThreadLocalRandom.current().nextInt(interval) != 0)) {
+            return onSubscribe;
+        }
+        return subscriber -> onSubscribe.call(new MeteredSubscriber<>(subscriberStage(subscriber), subscriber, 1));
+    }
+
+    @Override
+    public <T, R> Observable.Operator<? extends R, ? super T> onLift(Observable.Operator<? extends R, ? super T> lift) {
+        if (sampleInterval == 0) {
+            return lift;
+        }
+        return new MeteredOperator<>(lift);
+    }
+
+    private Stage subscriberStage(Subscriber<?> subscriber) {
+        Subscriber<?> actual = subscriber instanceof SafeSubscriber ? ((SafeSubscriber<?>) subscriber).getActual() : subscriber;
+        return stage(subscribers, SUBSCRIBER_PREFIX, actual.getClass());
+    }
+
+    private static Stage stage(ConcurrentHashMap<Class<?>, Stage> stages, String prefix, Class<?> type) {
+        Stage stage = stages.get(type);
+        return stage != null ? stage : stages.computeIfAbsent(type, key -> new Stage(prefix + key.getName()));
+    }
+
+    /**
+     * Totals of one operator type or one final subscriber type across all metered subscriptions.
+     */
+    public static class Stage {
+        private final String name;
+        private final LongAdder subscriptions = new LongAdder();
+        private final LongAdder onNextCount = new LongAdder();
+        private final LongAdder timedOnNextCount = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final LongAdder depthTotal = new LongAdder();
+        private final AtomicInteger maxDepth = new AtomicInteger();
+
+        Stage(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getSubscriptions() {
+            return subscriptions.sum();
+        }
+
+        public long getOnNextCount() {
+            return onNextCount.sum();
+        }
+
+        /**
+         * Mean time of the timed onNext calls.
+         */
+        public double getNanosPerOnNext() {
+            long timed = timedOnNextCount.sum();
+            return timed == 0 ? 0 : (double) nanos.sum() / timed;
+        }
+
+        /**
+         * Average number of subscribers from this stage down to the final subscriber, itself
+         * included.
+         */
+        public double getMeanDepth() {
+            long count = subscriptions.sum();
+            return count == 0 ? 0 : (double) depthTotal.sum() / count;
+        }
+
+        public int getMaxDepth() {
+            return maxDepth.get();
+        }
+
+        void subscribed(int depth) {
+            subscriptions.increment();
+            depthTotal.add(depth);
+            int max;
+            while ((max = maxDepth.get()) < depth && !maxDepth.compareAndSet(max, depth)) {
+                // retry
+            }
+        }
+
+        @Override
+        public String toString() {
+            return name + " subscriptions=" + getSubscriptions() + " onNext=" + getOnNextCount()
+                    + " nanosPerOnNext=" + getNanosPerOnNext() + " maxDepth=" + getMaxDepth();
+        }
+    }
+
+    /**
+     * Wraps the subscriber an operator hands upstream, but only when the subscriber below it is
+     * metered, so a chain is either metered as a whole or not at all.
+     */
+    private class MeteredOperator<R, T> implements Observable.Operator<R, T> {
+        private final Observable.Operator<? extends R, ? super T> operator;
+
+        MeteredOperator(Observable.Operator<? extends R, ? super T> operator) {
+            this.operator = operator;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Subscriber<? super T> call(Subscriber<? super R> child) {
+            Subscriber<? super T> parent = ((Observable.Operator<R, T>) operator).call(child);
+            if (!(child instanceof MeteredSubscriber)) {
+                return parent;
+            }
+            int depth = ((MeteredSubscriber<?>) child).depth + 1;
+            return new MeteredSubscriber<>(stage(operators, "", operator.getClass()), parent, depth);
+        }
+    }
+
+    /**
+     * Pass-through subscriber that shares its delegate's subscriptions and producer and counts and
+     * samples the time of its onNext calls.
+     */
+    private static class MeteredSubscriber<T> extends Subscriber<T> {
+        private final Stage stage;
+        private final Subscriber<? super T> actual;
+        private final int depth;
+        private int calls;
+
+        MeteredSubscriber(Stage stage, Subscriber<? super T> actual, int depth) {
+            super(actual);
+            this.stage = stage;
+            this.actual = actual;
+            this.depth = depth;
+            stage.subscribed(depth);
+        }
+
+        @Override
+        public void onStart() {
+            actual.onStart();
+        }
+
+        @Override
+        public void onNext(T item) {
+            stage.onNextCount.increment();
+            if ((calls++ & (TIMING_INTERVAL - 1)) != 0) {
+                actual.onNext(item);
+                return;
+            }
+
+            long start = System.nanoTime();
+            try {
+                actual.onNext(item);
+            } finally {
+                stage.nanos.add(System.nanoTime() - start);
+                stage.timedOnNextCount.increment();
+            }
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            actual.onError(e);
+        }
+
+        @Override
+        public void onCompleted() {
+            actual.onCompleted();
+        }
+    }
+}
@@ -0,0 +1,341 @@
+package reactive_sum.rx;
+
+import rx.Observable;
+import rx.Producer;
+import rx.Scheduler;
+import rx.Subscriber;
+import rx.exceptions.Exceptions;
+import rx.exceptions.OnErrorThrowable;
+import rx.functions.Action0;
+import rx.functions.Func1;
+import rx.internal.operators.BackpressureUtils;
+import rx.internal.util.atomic.SpscAtomicArrayQueue;
+import rx.schedulers.Schedulers;
+import rx.subscriptions.Subscriptions;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Map and filter stages run over a range on several workers at once. The range is cut into blocks
+ * of {@link #BLOCK_SIZE} values and block b goes to rail {@code b % rails}, so every rail walks its
+ * own share of the range in order on its own worker and hands finished blocks to the subscriber.
+ *
+ * {@link #ordered()} emits the blocks by their index, taking block b from the head of rail
+ * {@code b % rails}, and so in source order; {@link #unordered()} emits whichever block is ready
+ * first. Each rail works at most {@link #PREFETCH} blocks ahead of the subscriber, so a slow
+ * subscriber holds back the rails rather than buffering the range.
+ *
+ * An exception thrown by a stage ends its block; the values before it are still emitted, then the
+ * error, the same as a sequential map would do in ordered mode.
+ */
+public class ParallelRange<T> {
+    static final int BLOCK_SIZE = 1024;
+    static final int PREFETCH = 4;
+    private static final Func1<?, ?>[] NO_STAGES = new Func1<?, ?>[0];
+
+    private final int start;
+    private final int count;
+    private final int rails;
+    private final Scheduler scheduler;
+    private final Func1<Object, Object>[] stages;
+    // filters[i] tells whether stages[i] is a predicate rather than a mapping
+    private final boolean[] filters;
+
+    @SuppressWarnings("unchecked")
+    private ParallelRange(int start, int count, int rails, Scheduler scheduler, Func1<?, ?>[] stages, boolean[] filters) {
+        this.start = start;
+        this.count = count;
+        this.rails = rails;
+        this.scheduler = scheduler;
+        this.stages = (Func1<Object, Object>[]) stages;
+        this.filters = filters;
+    }
+
+    /**
+     * Same values as {@code Observable.range(start, count)}, worked on by {@code rails} workers of
+     * computation().
+     */
+    public static ParallelRange<Integer> range(int start, int count, int rails) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Count can not be negative");
+        }
+        if (count > 0 && start > Integer.MAX_VALUE - count + 1) {
+            throw new IllegalArgumentException("start + count can not exceed Integer.MAX_VALUE");
+        }
+        if (rails < 1) {
+            throw new IllegalArgumentException("rails > 0 required but it was " + rails);
+        }
+        return new ParallelRange<>(start, count, rails, Schedulers.computation(), NO_STAGES, new boolean[0]);
+    }
+
+    public ParallelRange<T> runOn(Scheduler scheduler) {
+        return new ParallelRange<>(start, count, rails, scheduler, stages, filters);
+    }
+
+    public <R> ParallelRange<R> map(Func1<? super T, ? extends R> function) {
+        return append(function, false);
+    }
+
+    public ParallelRange<T> filter(Func1<? super T, Boolean> predicate) {
+        return append(predicate, true);
+    }
+
+    public Observable<T> ordered() {
+        return Observable.create(new ParallelOnSubscribe<>(this, true));
+    }
+
+    public Observable<T> unordered() {
+        return Observable.create(new ParallelOnSubscribe<>(this, false));
+    }
+
+    private <R> ParallelRange<R> append(Func1<?, ?> stage, boolean filter) {
+        Func1<?, ?>[] appended = Arrays.copyOf(stages, stages.length + 1);
+        appended[stages.length] = stage;
+        boolean[] appendedFilters = Arrays.copyOf(filters, filters.length + 1);
+        appendedFilters[filters.length] = filter;
+        return new ParallelRange<>(start, count, rails, scheduler, appended, appendedFilters);
+    }
+
+    private int getBlockCount() {
+        return (int) (((long) count + BLOCK_SIZE - 1) / BLOCK_SIZE);
+    }
+
+    /**
+     * Runs the stages over block {@code index}.
+     */
+    private Block compute(int index) {
+        long from = (long) index * BLOCK_SIZE;
+        int size = (int) Math.min(BLOCK_SIZE, count - from);
+        Object[] values = new Object[size];
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            Integer value = (int) (start + from + i);
+            Object result;
+            try {
+                result = FusedChain.run(stages, filters, value);
+            } catch (Throwable e) {
+                Exceptions.throwIfFatal(e);
+                return new Block(values, kept, OnErrorThrowable.addValueAsLastCause(e, value));
+            }
+            if (result != FusedChain.FILTERED) {
+                values[kept++] = result;
+            }
+        }
+        return new Block(values, kept, null);
+    }
+
+    private static class Block {
+        final Object[] values;
+        final int size;
+        // thrown after values[size - 1]; ends the whole stream
+        final Throwable error;
+
+        Block(Object[] values, int size, Throwable error) {
+            this.values = values;
+            this.size = size;
+            this.error = error;
+        }
+    }
+
+    private static class ParallelOnSubscribe<T> implements Observable.OnSubscribe<T> {
+        private final ParallelRange<T> range;
+        private final boolean ordered;
+
+        ParallelOnSubscribe(ParallelRange<T> range, boolean ordered) {
+            this.range = range;
+            this.ordered = ordered;
+        }
+
+        @Override
+        public void call(Subscriber<? super T> child) {
+            int blockCount = range.getBlockCount();
+            if (blockCount == 0) {
+                child.onCompleted();
+                return;
+            }
+            Merger<T> merger = new Merger<>(child, range, ordered, blockCount);
+            child.add(Subscriptions.create(merger::cancel));
+            child.setProducer(merger);
+            merger.start();
+        }
+    }
+
+    /**
+     * Works every rails-th block of the range on one worker. The worker is only scheduled while
+     * the rail has room in its queue; the merger gives the room back as it takes blocks.
+     */
+    private static class Rail extends AtomicInteger implements Action0 {
+        private static final long serialVersionUID = 1L;
+        private final Merger<?> merger;
+        private final Scheduler.Worker worker;
+        private final Queue<Block> queue = new SpscAtomicArrayQueue<>(PREFETCH);
+        private final AtomicInteger free = new AtomicInteger(PREFETCH);
+        private int next;
+
+        Rail(Merger<?> merger, Scheduler.Worker worker, int first) {
+            this.merger = merger;
+            this.worker = worker;
+            this.next = first;
+        }
+
+        void schedule() {
+            if (getAndIncrement() == 0) {
+                worker.schedule(this);
+            }
+        }
+
+        @Override
+        public void call() {
+            int missed = 1;
+            for (;;) {
+                while (free.get() > 0 && next < merger.blockCount && !worker.isUnsubscribed()) {
+                    Block block = merger.range.compute(next);
+                    queue.offer(block);
+                    free.decrementAndGet();
+                    merger.drain();
+                    if (block.error != null) {
+                        // nothing after the error is ever emitted
+                        next = merger.blockCount;
+                    } else {
+                        next += merger.rails.length;
+                    }
+                }
+                missed = addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        Block poll() {
+            Block block = queue.poll();
+            if (block != null) {
+                free.incrementAndGet();
+                schedule();
+            }
+            return block;
+        }
+    }
+
+    private static class Merger<T> extends AtomicInteger implements Producer {
+        private static final long serialVersionUID = 1L;
+        private final Subscriber<? super T> child;
+        final ParallelRange<T> range;
+        private final boolean ordered;
+        final int blockCount;
+        final Rail[] rails;
+        private final AtomicLong requested = new AtomicLong();
+
+        // only touched in drain
+        private Block current;
+        private int index;
+        private int consumed;
+        private int nextRail;
+
+        Merger(Subscriber<? super T> child, ParallelRange<T> range, boolean ordered, int blockCount) {
+            this.child = child;
+            this.range = range;
+            this.ordered = ordered;
+            this.blockCount = blockCount;
+            this.rails = new Rail[Math.min(range.rails, blockCount)];
+            for (int i = 0; i < rails.length; i++) {
+                rails[i] = new Rail(this, range.scheduler.createWorker(), i);
+            }
+        }
+
+        void start() {
+            for (Rail rail : rails) {
+                rail.schedule();
+            }
+        }
+
+        void cancel() {
+            for (Rail rail : rails) {
+                rail.worker.unsubscribe();
+            }
+        }
+
+        @Override
+        public void request(long n) {
+            if (n < 0) {
+                throw new IllegalArgumentException("n >= 0 required but it was " + n);
+            }
+            if (n > 0) {
+                BackpressureUtils.getAndAddRequest(requested, n);
+                drain();
+            }
+        }
+
+        void drain() {
+            if (getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            for (;;) {
+                long r = requested.get();
+                long e = 0L;
+                for (;;) {
+                    if (child.isUnsubscribed()) {
+                        return;
+                    }
+                    if (current == null) {
+                        if (consumed == blockCount) {
+                            // every block is out; returning with the count still raised keeps the
+                            // rails' last drain() calls from completing the child a second time
+                            child.onCompleted();
+                            return;
+                        }
+                        current = ordered ? rails[consumed % rails.length].poll() : pollAny();
+                        if (current == null) {
+                            break;
+                        }
+                        index = 0;
+                    }
+                    if (index == current.size) {
+                        if (current.error != null) {
+                            cancel();
+                            child.onError(current.error);
+                            return;
+                        }
+                        current = null;
+                        consumed++;
+                        continue;
+                    }
+                    if (e == r) {
+                        break;
+                    }
+                    @SuppressWarnings("unchecked")
+                    T value = (T) current.values[index++];
+                    child.onNext(value);
+                    e++;
+                }
+                if (e != 0L && r != Long.MAX_VALUE) {
+                    requested.addAndGet(-e);
+                }
+                missed = addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Takes a ready block from any rail, starting after the rail taken from last so that no
+         * rail is starved.
+         */
+        private Block pollAny() {
+            for (int i = 0; i < rails.length; i++) {
+                int rail = nextRail;
+                nextRail = rail + 1 == rails.length ? 0 : rail + 1;
+                Block block = rails[rail].poll();
+                if (block != null) {
+                    return block;
+                }
+            }
+            return null;
+        }
+    }
+}
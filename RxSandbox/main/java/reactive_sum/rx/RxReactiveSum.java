@@ -0,0 +1,92 @@
+package reactive_sum.rx;
+
+import reactive_sum.imperative.InputParser;
+import rx.Observable;
+
+/**
+ * Rx version of the imperative ReactiveSum: lines are parsed once, split into an a and a b stream
+ * and combined into a running sum.
+ *
+ * The imperative model only prints when the latest set of *both* variables changed their value,
+ * so "a: 1, b: 0, a: 2" prints "Sum: 1" and nothing after it. A plain distinctUntilChanged per
+ * variable loses that, because a repeated b is dropped instead of clearing b's flag. Each variable
+ * therefore scans into a {@link Field} that remembers whether its last update was a change.
+ *
+ * Unlike the imperative model this pipeline only knows a and b; any other variable is an error.
+ */
+public class RxReactiveSum {
+    private static final String SUM_MESSAGE = "Sum: ";
+    private static final String ERROR_MESSAGE = "Error: Invalid input";
+
+    public static Observable<String> sums(Observable<? extends CharSequence> lines) {
+        return Observable.defer(() -> {
+            InputParser parser = new InputParser();
+
+            return lines.takeWhile(line -> !parser.isQuit(line))
+                        .map(line -> Update.parse(parser, line))
+                        .publish(updates -> {
+                            Observable<Field> a = field(updates, 'a');
+                            Observable<Field> b = field(updates, 'b');
+
+                            Observable<String> sums = Observable.combineLatest(a, b, Field::sumIfUpdated)
+                                                                .skip(1)
+                                                                .filter(sum -> sum != null)
+                                                                .map(sum -> SUM_MESSAGE + sum);
+                            Observable<String> errors = updates.filter(update -> update == Update.INVALID)
+                                                               .map(update -> ERROR_MESSAGE);
+                            return Observable.merge(sums, errors);
+                        });
+        });
+    }
+
+    private static Observable<Field> field(Observable<Update> updates, char variable) {
+        return updates.filter(update -> update.variable == variable)
+                      .scan(Field.INITIAL, (field, update) -> field.next(update.value));
+    }
+
+    static class Update {
+        static final Update INVALID = new Update('\0', 0);
+
+        final char variable;
+        final int value;
+
+        Update(char variable, int value) {
+            this.variable = variable;
+            this.value = value;
+        }
+
+        static Update parse(InputParser parser, CharSequence line) {
+            if (!parser.parse(line)) {
+                return INVALID;
+            }
+            if (parser.isVariable("a")) {
+                return new Update('a', parser.getValue());
+            }
+            if (parser.isVariable("b")) {
+                return new Update('b', parser.getValue());
+            }
+            return INVALID;
+        }
+    }
+
+    static class Field {
+        static final Field INITIAL = new Field(0, true);
+
+        final int value;
+        final boolean updated;
+
+        Field(int value, boolean updated) {
+            this.value = value;
+            this.updated = updated;
+        }
+
+        Field next(int update) {
+            return new Field(update, update != value);
+        }
+
+        static Long sumIfUpdated(Field a, Field b) {
+            // a long like the imperative model's sum, so two large values do not wrap around
+            return a.updated && b.updated ? (long) a.value + b.value : null;
+        }
+    }
+}
@@ -0,0 +1,479 @@
+package reactive_sum.rx;
+
+import rx.Scheduler;
+import rx.Subscription;
+import rx.functions.Action0;
+import rx.internal.schedulers.SchedulerLifecycle;
+import rx.plugins.RxJavaPlugins;
+import rx.plugins.RxJavaSchedulersHook;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Schedulers hook that instruments computation(), io() and newThread(), and any other scheduler
+ * passed to {@link #wrap(String, Scheduler)}. For each scheduler it tracks how many tasks are
+ * waiting to run, histograms of the time from schedule to run and of the run time, and how many
+ * thread hops the pipelines running on it have taken so far.
+ *
+ * A hop is a task running on another thread than the one that scheduled it. Every task carries the
+ * hop count of the task that scheduled it, so in {@code subscribeOn(io()).observeOn(computation())}
+ * the subscription runs on io() at depth 1 and the observeOn drain on computation() at depth 2.
+ *
+ * Schedulers reads the hook once, when the class is loaded, so the hook has to be in place before
+ * the first scheduler is used: call {@link #install()} at startup, or start the JVM with
+ * {@code -Drxjava.plugin.RxJavaSchedulersHook.implementation=reactive_sum.rx.SchedulerMetrics}.
+ */
+public class SchedulerMetrics extends RxJavaSchedulersHook {
+    private static final ThreadLocal<int[]> HOP_DEPTH = ThreadLocal.withInitial(() -> new int[1]);
+
+    private final ConcurrentHashMap<String, SchedulerStats> schedulers = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the installed metrics hook, registering a new one if no hook has been registered yet.
+     *
+     * @throws IllegalStateException if a different hook is already registered
+     */
+    public static SchedulerMetrics install() {
+        RxJavaPlugins plugins = RxJavaPlugins.getInstance();
+        SchedulerMetrics metrics = new SchedulerMetrics();
+        try {
+            // getSchedulersHook() would register the default hook if none is set, so register first
+            plugins.registerSchedulersHook(metrics);
+            return metrics;
+        } catch (IllegalStateException e) {
+            RxJavaSchedulersHook hook = plugins.getSchedulersHook();
+            if (hook instanceof SchedulerMetrics) {
+                return (SchedulerMetrics) hook;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public Scheduler getComputationScheduler() {
+        return wrap("computation", createComputationScheduler());
+    }
+
+    @Override
+    public Scheduler getIOScheduler() {
+        return wrap("io", createIoScheduler());
+    }
+
+    @Override
+    public Scheduler getNewThreadScheduler() {
+        return wrap("newThread", createNewThreadScheduler());
+    }
+
+    /**
+     * Returns a scheduler that runs everything on the given one and records it under the given
+     * name. Schedulers wrapped under the same name share their statistics.
+     */
+    public Scheduler wrap(String name, Scheduler scheduler) {
+        return new InstrumentedScheduler(stats(name), scheduler);
+    }
+
+    /**
+     * Returns the statistics of the named scheduler, created empty if nothing was recorded yet.
+     */
+    public SchedulerStats stats(String name) {
+        return schedulers.computeIfAbsent(name, SchedulerStats::new);
+    }
+
+    /**
+     * Returns the schedulers seen so far, sorted by name. They keep counting after this returns.
+     */
+    public List<SchedulerStats> getSchedulers() {
+        List<SchedulerStats> stats = new ArrayList<>(schedulers.values());
+        stats.sort(Comparator.comparing(SchedulerStats::getName));
+        return stats;
+    }
+
+    /**
+     * Writes every scheduler as a tab separated line: name, tasks scheduled, pending and run, thread
+     * hops, mean and max hop depth, median, 99th percentile and max of the schedule-to-run delay and
+     * of the run time in microseconds. Percentiles are the upper bounds of power-of-two buckets.
+     */
+    public void export(Appendable output) throws IOException {
+        output.append("scheduler\tscheduled\tpending\trun\thops\tmeanHopDepth\tmaxHopDepth"
+                              + "\tdelayP50\tdelayP99\tdelayMax\trunP50\trunP99\trunMax\n");
+        for (SchedulerStats stats : getSchedulers()) {
+            output.append(stats.getName()).append('\t')
+                  .append(Long.toString(stats.getScheduled())).append('\t')
+                  .append(Long.toString(stats.getPending())).append('\t')
+                  .append(Long.toString(stats.getRun())).append('\t')
+                  .append(Long.toString(stats.getHops())).append('\t')
+                  .append(String.format("%.2f", stats.getMeanHopDepth())).append('\t')
+                  .append(Integer.toString(stats.getMaxHopDepth())).append('\t');
+            appendMicros(output, stats.getDelay());
+            output.append('\t');
+            appendMicros(output, stats.getRunTime());
+            output.append('\n');
+        }
+    }
+
+    /**
+     * Writes {@link #export(Appendable)} to the given file, replacing it.
+     */
+    public void dump(Path file) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            export(writer);
+        }
+    }
+
+    public void reset() {
+        for (SchedulerStats stats : schedulers.values()) {
+            stats.reset();
+        }
+    }
+
+    private static void appendMicros(Appendable output, Histogram histogram) throws IOException {
+        output.append(Long.toString(TimeUnit.NANOSECONDS.toMicros(histogram.getPercentile(0.5)))).append('\t')
+              .append(Long.toString(TimeUnit.NANOSECONDS.toMicros(histogram.getPercentile(0.99)))).append('\t')
+              .append(Long.toString(TimeUnit.NANOSECONDS.toMicros(histogram.getMax())));
+    }
+
+    /**
+     * Totals of one scheduler. Pending counts tasks scheduled but neither started nor cancelled yet,
+     * including delayed ones whose time has not come.
+     */
+    public static class SchedulerStats {
+        private final String name;
+        private final LongAdder scheduled = new LongAdder();
+        private final LongAdder pending = new LongAdder();
+        private final LongAdder run = new LongAdder();
+        private final LongAdder hops = new LongAdder();
+        private final LongAdder hopDepthTotal = new LongAdder();
+        private final AtomicInteger maxHopDepth = new AtomicInteger();
+        private final Histogram delay = new Histogram();
+        private final Histogram runTime = new Histogram();
+
+        SchedulerStats(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getScheduled() {
+            return scheduled.sum();
+        }
+
+        public long getPending() {
+            return pending.sum();
+        }
+
+        public long getRun() {
+            return run.sum();
+        }
+
+        /**
+         * Tasks that ran on a different thread than the one that scheduled them.
+         */
+        public long getHops() {
+            return hops.sum();
+        }
+
+        public double getMeanHopDepth() {
+            long count = run.sum();
+            return count == 0 ? 0 : (double) hopDepthTotal.sum() / count;
+        }
+
+        public int getMaxHopDepth() {
+            return maxHopDepth.get();
+        }
+
+        /**
+         * Nanoseconds from the time a task was due, when it was scheduled plus its delay, to the
+         * time it started running.
+         */
+        public Histogram getDelay() {
+            return delay;
+        }
+
+        public Histogram getRunTime() {
+            return runTime;
+        }
+
+        void reset() {
+            scheduled.reset();
+            run.reset();
+            hops.reset();
+            hopDepthTotal.reset();
+            maxHopDepth.set(0);
+            delay.reset();
+            runTime.reset();
+        }
+
+        void ran(int hopDepth, boolean hopped) {
+            run.increment();
+            hopDepthTotal.add(hopDepth);
+            if (hopped) {
+                hops.increment();
+            }
+            int max;
+            while ((max = maxHopDepth.get()) < hopDepth && !maxHopDepth.compareAndSet(max, hopDepth)) {
+                // retry
+            }
+        }
+
+        @Override
+        public String toString() {
+            return name + " scheduled=" + getScheduled() + " pending=" + getPending() + " run=" + getRun()
+                    + " hops=" + getHops() + " maxHopDepth=" + getMaxHopDepth();
+        }
+    }
+
+    /**
+     * Nanosecond histogram with power-of-two buckets: bucket i counts values below 2^i and at least
+     * 2^(i - 1), bucket 0 the zeros.
+     */
+    public static class Histogram {
+        private final AtomicLongArray buckets = new AtomicLongArray(Long.SIZE);
+
+        void record(long nanos) {
+            buckets.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(Math.max(0, nanos)));
+        }
+
+        public long getCount() {
+            long count = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                count += buckets.get(i);
+            }
+            return count;
+        }
+
+        /**
+         * Returns the counts per bucket; index i counts values in [2^(i - 1), 2^i).
+         */
+        public long[] getBuckets() {
+            long[] counts = new long[buckets.length()];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = buckets.get(i);
+            }
+            return counts;
+        }
+
+        /**
+         * Upper bound of the bucket holding the given fraction of the values, 0 if there are none.
+         */
+        public long getPercentile(double fraction) {
+            long[] counts = getBuckets();
+            long total = 0;
+            for (long count : counts) {
+                total += count;
+            }
+            long wanted = (long) Math.ceil(total * fraction);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen > 0 && seen >= wanted) {
+                    return upperBound(i);
+                }
+            }
+            return 0;
+        }
+
+        /**
+         * Upper bound of the highest bucket with any values, 0 if there are none.
+         */
+        public long getMax() {
+            for (int i = buckets.length() - 1; i >= 0; i--) {
+                if (buckets.get(i) != 0) {
+                    return upperBound(i);
+                }
+            }
+            return 0;
+        }
+
+        void reset() {
+            for (int i = 0; i < buckets.length(); i++) {
+                buckets.set(i, 0);
+            }
+        }
+
+        private static long upperBound(int bucket) {
+            return bucket >= Long.SIZE - 1 ? Long.MAX_VALUE : 1L << bucket;
+        }
+    }
+
+    private static class InstrumentedScheduler extends Scheduler implements SchedulerLifecycle {
+        private final SchedulerStats stats;
+        private final Scheduler actual;
+
+        InstrumentedScheduler(SchedulerStats stats, Scheduler actual) {
+            this.stats = stats;
+            this.actual = actual;
+        }
+
+        @Override
+        public Worker createWorker() {
+            return new InstrumentedWorker(stats, actual.createWorker());
+        }
+
+        @Override
+        public long now() {
+            return actual.now();
+        }
+
+        @Override
+        public void start() {
+            if (actual instanceof SchedulerLifecycle) {
+                ((SchedulerLifecycle) actual).start();
+            }
+        }
+
+        @Override
+        public void shutdown() {
+            if (actual instanceof SchedulerLifecycle) {
+                ((SchedulerLifecycle) actual).shutdown();
+            }
+        }
+    }
+
+    /**
+     * Keeps its pending tasks so they stop counting as pending when the worker is unsubscribed,
+     * which cancels them without telling us.
+     */
+    private static class InstrumentedWorker extends Scheduler.Worker {
+        private final SchedulerStats stats;
+        private final Scheduler.Worker actual;
+        private final Set<InstrumentedAction> pending = ConcurrentHashMap.newKeySet();
+
+        InstrumentedWorker(SchedulerStats stats, Scheduler.Worker actual) {
+            this.stats = stats;
+            this.actual = actual;
+        }
+
+        @Override
+        public Subscription schedule(Action0 action) {
+            InstrumentedAction task = new InstrumentedAction(this, action, System.nanoTime());
+            pending.add(task);
+            task.scheduled = actual.schedule(task);
+            return scheduled(task);
+        }
+
+        @Override
+        public Subscription schedule(Action0 action, long delayTime, TimeUnit unit) {
+            long due = System.nanoTime() + Math.max(0, unit.toNanos(delayTime));
+            InstrumentedAction task = new InstrumentedAction(this, action, due);
+            pending.add(task);
+            task.scheduled = actual.schedule(task, delayTime, unit);
+            return scheduled(task);
+        }
+
+        /**
+         * A task scheduled on an unsubscribed worker never runs, and may have been missed by
+         * {@link #unsubscribe()}.
+         */
+        private Subscription scheduled(InstrumentedAction task) {
+            if (actual.isUnsubscribed()) {
+                task.cancel();
+            }
+            return task;
+        }
+
+        @Override
+        public long now() {
+            return actual.now();
+        }
+
+        @Override
+        public void unsubscribe() {
+            actual.unsubscribe();
+            for (InstrumentedAction task : pending) {
+                task.cancel();
+            }
+        }
+
+        @Override
+        public boolean isUnsubscribed() {
+            return actual.isUnsubscribed();
+        }
+    }
+
+    /**
+     * Task as handed to the wrapped worker, and its subscription as handed back to the caller.
+     */
+    private static class InstrumentedAction extends AtomicInteger implements Action0, Subscription {
+        private static final long serialVersionUID = 1L;
+        private static final int PENDING = 0;
+        private static final int STARTED = 1;
+        private static final int CANCELLED = 2;
+
+        private final InstrumentedWorker worker;
+        private final SchedulerStats stats;
+        private final Action0 action;
+        private final long due;
+        private final Thread schedulingThread = Thread.currentThread();
+        private final int hopDepth = HOP_DEPTH.get()[0];
+        volatile Subscription scheduled;
+
+        InstrumentedAction(InstrumentedWorker worker, Action0 action, long due) {
+            this.worker = worker;
+            this.stats = worker.stats;
+            this.action = action;
+            this.due = due;
+            stats.scheduled.increment();
+            stats.pending.increment();
+        }
+
+        @Override
+        public void call() {
+            if (!compareAndSet(PENDING, STARTED)) {
+                return;
+            }
+            stats.pending.decrement();
+            worker.pending.remove(this);
+            long start = System.nanoTime();
+            stats.delay.record(start - due);
+
+            boolean hopped = Thread.currentThread() != schedulingThread;
+            int[] depth = HOP_DEPTH.get();
+            int previous = depth[0];
+            depth[0] = hopped ? hopDepth + 1 : hopDepth;
+            stats.ran(depth[0], hopped);
+            try {
+                action.call();
+            } finally {
+                depth[0] = previous;
+                stats.runTime.record(System.nanoTime() - start);
+            }
+        }
+
+        void cancel() {
+            if (compareAndSet(PENDING, CANCELLED)) {
+                stats.pending.decrement();
+                worker.pending.remove(this);
+            }
+        }
+
+        @Override
+        public void unsubscribe() {
+            cancel();
+            Subscription subscription = scheduled;
+            if (subscription != null) {
+                subscription.unsubscribe();
+            }
+        }
+
+        @Override
+        public boolean isUnsubscribed() {
+            Subscription subscription = scheduled;
+            return get() == CANCELLED || subscription != null && subscription.isUnsubscribed();
+        }
+    }
+}
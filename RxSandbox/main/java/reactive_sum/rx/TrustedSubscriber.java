@@ -0,0 +1,96 @@
+package reactive_sum.rx;
+
+import rx.Observable;
+import rx.Subscriber;
+import rx.Subscription;
+import rx.exceptions.OnErrorNotImplementedException;
+import rx.functions.Action0;
+import rx.functions.Action1;
+
+/**
+ * Subscriber for internal, well-behaved consumers on hot paths. {@link #subscribe(Observable,
+ * TrustedSubscriber)} hands it to the Observable as is instead of wrapping it in a SafeSubscriber,
+ * which saves an allocation and the wrapper's checks on every event.
+ *
+ * What SafeSubscriber would still have given us, unsubscribing once the stream terminates, is
+ * kept: onCompleted and onError are final and unsubscribe after calling {@link #completed()} or
+ * {@link #failed(Throwable)}. Not kept is the protection against a misbehaving source, such as
+ * events after a terminal event, so only subscribe to Observables that honour the contract.
+ */
+public abstract class TrustedSubscriber<T> extends Subscriber<T> {
+
+    public static <T> Subscription subscribe(Observable<T> observable, TrustedSubscriber<? super T> subscriber) {
+        return observable.unsafeSubscribe(subscriber);
+    }
+
+    /**
+     * Trusted equivalent of {@link Observable#subscribe(Action1)}: an error without a handler is
+     * thrown as an OnErrorNotImplementedException.
+     */
+    public static <T> Subscription subscribe(Observable<T> observable, Action1<? super T> onNext) {
+        return subscribe(observable, new ActionSubscriber<>(onNext, null, null));
+    }
+
+    public static <T> Subscription subscribe(Observable<T> observable, Action1<? super T> onNext,
+                                             Action1<Throwable> onError, Action0 onCompleted) {
+        return subscribe(observable, new ActionSubscriber<>(onNext, onError, onCompleted));
+    }
+
+    @Override
+    public final void onCompleted() {
+        try {
+            completed();
+        } finally {
+            unsubscribe();
+        }
+    }
+
+    @Override
+    public final void onError(Throwable e) {
+        try {
+            failed(e);
+        } finally {
+            unsubscribe();
+        }
+    }
+
+    protected void completed() {
+    }
+
+    protected void failed(Throwable e) {
+        throw new OnErrorNotImplementedException(e);
+    }
+
+    private static class ActionSubscriber<T> extends TrustedSubscriber<T> {
+        private final Action1<? super T> onNext;
+        private final Action1<Throwable> onError;
+        private final Action0 onCompleted;
+
+        ActionSubscriber(Action1<? super T> onNext, Action1<Throwable> onError, Action0 onCompleted) {
+            this.onNext = onNext;
+            this.onError = onError;
+            this.onCompleted = onCompleted;
+        }
+
+        @Override
+        public void onNext(T item) {
+            onNext.call(item);
+        }
+
+        @Override
+        protected void completed() {
+            if (onCompleted != null) {
+                onCompleted.call();
+            }
+        }
+
+        @Override
+        protected void failed(Throwable e) {
+            if (onError == null) {
+                super.failed(e);
+            } else {
+                onError.call(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package reactive_sum.rx;
+
+import rx.Scheduler;
+import rx.Subscription;
+import rx.functions.Action0;
+import rx.plugins.RxJavaPlugins;
+import rx.schedulers.Schedulers;
+import rx.subscriptions.CompositeSubscription;
+import rx.subscriptions.Subscriptions;
+
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Scheduler for blocking subscribeOn work. Like newThread() every worker gets a thread of its own,
+ * but a virtual one, so a subscription blocked on I/O costs a parked continuation rather than a
+ * platform thread and its stack.
+ *
+ * Workers keep newThread()'s semantics: tasks run one at a time in the order they are due, delayed
+ * tasks wait in the worker's own queue, unsubscribing a task before it runs drops it, and
+ * unsubscribing the worker stops its thread, interrupting the task it is running.
+ *
+ * The build targets Java 8, so virtual threads are looked up reflectively. On a JVM without them
+ * (before Java 21) workers come from io() instead; {@link #isVirtual()} tells which is in use.
+ */
+public class VirtualThreadScheduler extends Scheduler {
+    private static final String THREAD_PREFIX = "RxVirtualThread-";
+    private static final ThreadFactory VIRTUAL_THREADS = virtualThreadFactory();
+    private static final VirtualThreadScheduler INSTANCE = new VirtualThreadScheduler(VIRTUAL_THREADS);
+
+    private final ThreadFactory threads;
+
+    /**
+     * Runs workers on threads from the given factory, or on io() if it is null.
+     */
+    VirtualThreadScheduler(ThreadFactory threads) {
+        this.threads = threads;
+    }
+
+    public static VirtualThreadScheduler instance() {
+        return INSTANCE;
+    }
+
+    /**
+     * True if workers run on virtual threads, false if this JVM has none and io() is used.
+     */
+    public static boolean isVirtual() {
+        return VIRTUAL_THREADS != null;
+    }
+
+    @Override
+    public Worker createWorker() {
+        if (threads == null) {
+            return Schedulers.io().createWorker();
+        }
+        return new VirtualWorker(threads);
+    }
+
+    /**
+     * Returns {@code Thread.ofVirtual().name(THREAD_PREFIX, 0).factory()}, or null if this JVM has
+     * no virtual threads (or only as a preview feature that is not enabled).
+     */
+    private static ThreadFactory virtualThreadFactory() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, THREAD_PREFIX, 0L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static class VirtualWorker extends Worker implements Runnable {
+        private final CompositeSubscription tasks = new CompositeSubscription();
+        private final DelayQueue<Task> queue = new DelayQueue<>();
+        private final AtomicLong sequence = new AtomicLong();
+        private final Thread thread;
+
+        VirtualWorker(ThreadFactory threads) {
+            thread = threads.newThread(this);
+            thread.start();
+        }
+
+        @Override
+        public Subscription schedule(Action0 action) {
+            return schedule(action, 0, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public Subscription schedule(Action0 action, long delayTime, TimeUnit unit) {
+            if (isUnsubscribed()) {
+                return Subscriptions.unsubscribed();
+            }
+            long due = System.nanoTime() + Math.max(0, unit.toNanos(delayTime));
+            Task task = new Task(this, action, due, sequence.getAndIncrement());
+            tasks.add(task);
+            queue.offer(task);
+            return task;
+        }
+
+        @Override
+        public void run() {
+            while (!tasks.isUnsubscribed()) {
+                Task task;
+                try {
+                    task = queue.take();
+                } catch (InterruptedException e) {
+                    continue;
+                }
+                if (task.start()) {
+                    try {
+                        task.action.call();
+                    } catch (Throwable e) {
+                        // like ScheduledAction: the default error handler does nothing, and an
+                        // OnErrorNotImplementedException must neither vanish nor stop the worker
+                        RxJavaPlugins.getInstance().getErrorHandler().handleError(e);
+                        thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+                    } finally {
+                        tasks.remove(task);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void unsubscribe() {
+            tasks.unsubscribe();
+            queue.clear();
+            // a task unsubscribing its own worker just lets the loop end after it
+            if (Thread.currentThread() != thread) {
+                thread.interrupt();
+            }
+        }
+
+        @Override
+        public boolean isUnsubscribed() {
+            return tasks.isUnsubscribed();
+        }
+    }
+
+    private static class Task extends AtomicBoolean implements Delayed, Subscription {
+        private static final long serialVersionUID = 1L;
+
+        private final VirtualWorker worker;
+        private final Action0 action;
+        private final long due;
+        private final long sequence;
+        private volatile boolean unsubscribed;
+
+        Task(VirtualWorker worker, Action0 action, long due, long sequence) {
+            this.worker = worker;
+            this.action = action;
+            this.due = due;
+            this.sequence = sequence;
+        }
+
+        /**
+         * Claims the task for running; false if it was unsubscribed first.
+         */
+        boolean start() {
+            return !unsubscribed && compareAndSet(false, true);
+        }
+
+        @Override
+        public void unsubscribe() {
+            if (unsubscribed) {
+                return;
+            }
+            unsubscribed = true;
+            if (compareAndSet(false, true)) {
+                worker.queue.remove(this);
+                worker.tasks.remove(this);
+            }
+        }
+
+        @Override
+        public boolean isUnsubscribed() {
+            return unsubscribed;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(due - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            Task task = (Task) other;
+            if (due != task.due) {
+                return due - task.due < 0 ? -1 : 1;
+            }
+            return Long.compare(sequence, task.sequence);
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package reactive_sum.rx;
+
+import rx.Scheduler;
+import rx.Subscription;
+import rx.functions.Action0;
+import rx.subscriptions.BooleanSubscription;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drop-in replacement for {@link rx.schedulers.TestScheduler} for long virtual-time simulations.
+ * TestScheduler keeps every pending action in one priority queue and cancels by searching it, so
+ * thousands of intervals over hours of virtual time spend most of their time there. This one files
+ * actions into a hierarchical timing wheel of 64-slot levels, each level a tick 64 times coarser
+ * than the one below, and skips straight to the next occupied slot using a bitmap per level.
+ * Scheduling and cancelling are O(1); an action moves down at most one level per cascade.
+ *
+ * Actions run in exactly the order TestScheduler runs them: by due time, ties broken by the order
+ * they were scheduled in, where actions scheduled without a delay count as due at time zero. The
+ * tick only decides which actions are sorted together.
+ *
+ * Like TestScheduler it is meant to be driven from one thread.
+ */
+public class WheelTestScheduler extends Scheduler {
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = (Long.SIZE + SLOT_BITS - 1) / SLOT_BITS;
+    private static final Comparator<TimedAction> BY_TIME =
+            (a, b) -> a.time != b.time ? Long.compare(a.time, b.time) : Long.compare(a.sequence, b.sequence);
+
+    private final long tickNanos;
+    private final TimedAction[][] slots = new TimedAction[LEVELS][SLOTS];
+    private final long[] occupied = new long[LEVELS];
+    private final ArrayDeque<TimedAction> immediate = new ArrayDeque<>();
+    // actions due in the current tick: the ones cascaded in, sorted, and the ones scheduled since
+    private final List<TimedAction> due = new ArrayList<>();
+    private final PriorityQueue<TimedAction> lateDue = new PriorityQueue<>(BY_TIME);
+    private int dueIndex;
+    private long currentTick;
+    private long sequence;
+    // in nanoseconds, like TestScheduler
+    private long time;
+
+    public WheelTestScheduler() {
+        this(1, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param tick resolution of the lowest level; actions due within the same tick are sorted when
+     *             the clock reaches it, so this is best around the shortest period scheduled
+     */
+    public WheelTestScheduler(long tick, TimeUnit unit) {
+        if (tick <= 0) {
+            throw new IllegalArgumentException("Tick must be positive: " + tick);
+        }
+        this.tickNanos = unit.toNanos(tick);
+    }
+
+    @Override
+    public long now() {
+        return TimeUnit.NANOSECONDS.toMillis(time);
+    }
+
+    public void advanceTimeBy(long delayTime, TimeUnit unit) {
+        advanceTimeTo(time + unit.toNanos(delayTime), TimeUnit.NANOSECONDS);
+    }
+
+    public void advanceTimeTo(long delayTime, TimeUnit unit) {
+        triggerActions(unit.toNanos(delayTime));
+    }
+
+    /**
+     * Runs the actions due at or before the present time.
+     */
+    public void triggerActions() {
+        triggerActions(time);
+    }
+
+    /**
+     * Number of actions waiting to run, cancelled ones that have not been discarded yet included.
+     */
+    public int getPendingCount() {
+        int count = immediate.size() + due.size() - dueIndex + lateDue.size();
+        for (TimedAction[] level : slots) {
+            for (TimedAction head : level) {
+                for (TimedAction action = head; action != null; action = action.next) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private void triggerActions(long targetTime) {
+        long targetTick = targetTime < 0 ? -1 : targetTime / tickNanos;
+        while (true) {
+            TimedAction action = peekDue();
+            TimedAction first = immediate.peek();
+            if (first != null && (action == null || BY_TIME.compare(first, action) < 0)) {
+                action = immediate.poll();
+            } else {
+                if (action == null) {
+                    if (advanceWheel(targetTick)) {
+                        continue;
+                    }
+                    break;
+                }
+                if (action.time > targetTime) {
+                    break;
+                }
+                pollDue();
+                time = action.time;
+            }
+            if (!action.unsubscribed && !action.worker.isUnsubscribed()) {
+                action.unsubscribed = true;
+                action.action.call();
+            }
+        }
+        time = targetTime;
+    }
+
+    private TimedAction peekDue() {
+        TimedAction sorted = dueIndex < due.size() ? due.get(dueIndex) : null;
+        TimedAction late = lateDue.peek();
+        if (sorted == null) {
+            return late;
+        }
+        return late != null && BY_TIME.compare(late, sorted) < 0 ? late : sorted;
+    }
+
+    private void pollDue() {
+        TimedAction sorted = dueIndex < due.size() ? due.get(dueIndex) : null;
+        TimedAction late = lateDue.peek();
+        if (sorted != null && (late == null || BY_TIME.compare(sorted, late) < 0)) {
+            due.set(dueIndex++, null);
+            if (dueIndex == due.size()) {
+                due.clear();
+                dueIndex = 0;
+            }
+        } else {
+            lateDue.poll();
+        }
+    }
+
+    /**
+     * Moves the clock to the start of the earliest occupied slot, if that is no later than the target
+     * tick, and files the slot's actions one level down, or into the due list if they are due in that
+     * tick. Lower levels always hold earlier actions than higher ones, and no level has an occupied
+     * slot before the one the current tick falls in.
+     */
+    private boolean advanceWheel(long targetTick) {
+        for (int level = 0; level < LEVELS; level++) {
+            if (occupied[level] == 0) {
+                continue;
+            }
+            int shift = level * SLOT_BITS;
+            int from = (int) (currentTick >>> shift) & SLOT_MASK;
+            int slot = Long.numberOfTrailingZeros(occupied[level] & (-1L << from));
+            long slotStart = ((currentTick >>> shift) & ~(long) SLOT_MASK | slot) << shift;
+            long start = Math.max(currentTick, slotStart);
+            if (start > targetTick) {
+                return false;
+            }
+            currentTick = start;
+
+            TimedAction action = slots[level][slot];
+            slots[level][slot] = null;
+            occupied[level] &= ~(1L << slot);
+            int cascaded = due.size();
+            while (action != null) {
+                TimedAction next = action.next;
+                action.previous = null;
+                action.next = null;
+                action.level = -1;
+                if (!action.unsubscribed) {
+                    file(action, false);
+                }
+                action = next;
+            }
+            if (due.size() - cascaded > 1) {
+                due.subList(dueIndex, due.size()).sort(BY_TIME);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private void file(TimedAction action, boolean scheduled) {
+        long tick = Math.max(currentTick, action.time / tickNanos);
+        if (tick == currentTick) {
+            if (scheduled) {
+                lateDue.add(action);
+            } else {
+                due.add(action);
+            }
+            return;
+        }
+        int level = (63 - Long.numberOfLeadingZeros(tick ^ currentTick)) / SLOT_BITS;
+        int slot = (int) (tick >>> (level * SLOT_BITS)) & SLOT_MASK;
+        TimedAction head = slots[level][slot];
+        action.next = head;
+        if (head != null) {
+            head.previous = action;
+        }
+        slots[level][slot] = action;
+        occupied[level] |= 1L << slot;
+        action.level = level;
+        action.slot = slot;
+    }
+
+    private void unlink(TimedAction action) {
+        if (action.previous == null) {
+            slots[action.level][action.slot] = action.next;
+            if (action.next == null) {
+                occupied[action.level] &= ~(1L << action.slot);
+            }
+        } else {
+            action.previous.next = action.next;
+        }
+        if (action.next != null) {
+            action.next.previous = action.previous;
+        }
+        action.previous = null;
+        action.next = null;
+        action.level = -1;
+    }
+
+    @Override
+    public Worker createWorker() {
+        return new InnerWheelTestScheduler();
+    }
+
+    private final class InnerWheelTestScheduler extends Worker {
+        private final BooleanSubscription subscription = new BooleanSubscription();
+
+        @Override
+        public void unsubscribe() {
+            subscription.unsubscribe();
+        }
+
+        @Override
+        public boolean isUnsubscribed() {
+            return subscription.isUnsubscribed();
+        }
+
+        @Override
+        public Subscription schedule(Action0 action, long delayTime, TimeUnit unit) {
+            TimedAction timedAction = new TimedAction(this, time + unit.toNanos(delayTime), action, sequence++);
+            file(timedAction, true);
+            return timedAction;
+        }
+
+        @Override
+        public Subscription schedule(Action0 action) {
+            TimedAction timedAction = new TimedAction(this, 0, action, sequence++);
+            immediate.add(timedAction);
+            return timedAction;
+        }
+
+        @Override
+        public long now() {
+            return WheelTestScheduler.this.now();
+        }
+    }
+
+    /**
+     * A scheduled action, linked into its wheel slot while it is filed in one.
+     */
+    private final class TimedAction implements Subscription {
+        final Worker worker;
+        final long time;
+        final Action0 action;
+        final long sequence;
+        boolean unsubscribed;
+        TimedAction previous;
+        TimedAction next;
+        int level = -1;
+        int slot;
+
+        TimedAction(Worker worker, long time, Action0 action, long sequence) {
+            this.worker = worker;
+            this.time = time;
+            this.action = action;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public void unsubscribe() {
+            if (!unsubscribed) {
+                unsubscribed = true;
+                if (level >= 0) {
+                    unlink(this);
+                }
+            }
+        }
+
+        @Override
+        public boolean isUnsubscribed() {
+            return unsubscribed;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package randolph;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import rx.Observable;
+import rx.observables.ConnectableObservable;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The three FizzBuzz formulations from FizzBuzzTest.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+public class FizzBuzzBenchmark {
+
+    @Param({"21", "1000"})
+    public int count;
+
+    @Benchmark
+    public List<String> mapToList() {
+        return Observable.range(0, count)
+                .map((ii) -> {
+                    String tmp = "";
+                    if (ii % 3 == 0) {
+                        tmp += "Fizz";
+                    }
+                    if (ii % 5 == 0) {
+                        tmp += "Buzz";
+                    }
+                    if (ii % 3 != 0 && ii % 5 != 0) {
+                        tmp += ii;
+                    }
+                    return tmp;
+                }).toList().toBlocking().first();
+    }
+
+    @Benchmark
+    public void publishZip(Blackhole blackhole) {
+        ConnectableObservable<Integer> master = Observable.range(0, count).publish();
+        Observable<String> fizz = master.map(ii -> ii % 3 == 0 ? "Fizz" : "");
+        Observable<String> buzz = master.map(ii -> ii % 5 == 0 ? "Buzz" : "");
+        Observable<String> nums = master
+                .map(ii -> (ii % 3 != 0 && ii % 5 != 0) ? String.valueOf(ii) : "");
+
+        Observable.zip(fizz, buzz, nums, (f, b, n) -> f + b + n).subscribe(blackhole::consume);
+        master.connect();
+    }
+
+    @Benchmark
+    public void publishMerge(Blackhole blackhole) {
+        ConnectableObservable<Integer> observable = Observable.range(0, count).publish();
+        Observable<String> fizz = observable.filter(num -> num % 3 == 0).map(num -> "Fizz");
+        Observable<String> buzz = observable.filter(num -> num % 5 == 0).map(num -> "Buzz");
+        Observable<String> nums = observable.filter(num -> num % 3 != 0 && num % 5 != 0).map(String::valueOf);
+
+        fizz.mergeWith(buzz).mergeWith(nums).subscribe(blackhole::consume);
+        observable.connect();
+    }
+}
@@ -0,0 +1,76 @@
+package reactive_sum.imperative;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Ingest throughput with and without a ModelStore journaling every update. The short snapshot
+ * interval starts a snapshot every 64 invocations, to show what starting one costs the ingest
+ * thread.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+public class JournalBenchmark {
+    private static final int LINE_COUNT = 1024;
+
+    @Param({"16000000", "65536"})
+    public long snapshotInterval;
+
+    private String lines;
+    private ReactiveSum plain;
+    private ReactiveSum journaled;
+    private ModelStore store;
+    private Path directory;
+
+    @Setup
+    public void setup() throws IOException {
+        Random random = new Random(42);
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < LINE_COUNT; i++) {
+            builder.append(random.nextBoolean() ? "a: " : "b: ").append(random.nextInt(1000)).append('\n');
+        }
+        lines = builder.toString();
+
+        directory = Files.createTempDirectory("journal-benchmark");
+        store = ModelStore.open(directory, ModelStore.DEFAULT_COMMIT_POLICY, snapshotInterval);
+        plain = new ReactiveSum();
+        journaled = new ReactiveSum(store.getModel());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        store.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINE_COUNT)
+    public IngestResult ingestPlain() {
+        return plain.ingest(lines);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINE_COUNT)
+    public IngestResult ingestJournaled() {
+        return journaled.ingest(lines);
+    }
+}
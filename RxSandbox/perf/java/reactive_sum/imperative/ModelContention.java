@@ -0,0 +1,118 @@
+package reactive_sum.imperative;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Multi-threaded throughput of ConcurrentReactiveSumModel against a ReactiveSumModel guarded by
+ * synchronized. Every thread alternates setA/setB and takes a snapshot every 16 sets.
+ *
+ * Usage: ModelContention [setsPerThread] [rounds]
+ */
+public class ModelContention {
+    private static final int DEFAULT_SETS_PER_THREAD = 5_000_000;
+    private static final int DEFAULT_ROUNDS = 3;
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8};
+
+    interface Model {
+        void setA(int a);
+
+        void setB(int b);
+
+        long snapshot();
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int sets = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_SETS_PER_THREAD;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_ROUNDS;
+
+        for (int round = 1; round <= rounds; round++) {
+            System.out.println("Round " + round);
+            for (int threads : THREAD_COUNTS) {
+                double lockFree = run(lockFree(), threads, sets);
+                double synchronizedModel = run(synchronizedModel(), threads, sets);
+                System.out.printf("  %d threads: lock-free %,14.0f sets/s   synchronized %,14.0f sets/s%n",
+                                  threads, lockFree, synchronizedModel);
+            }
+        }
+    }
+
+    static double run(Model model, int threadCount, int setsPerThread) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threadCount; t++) {
+            threads[t] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long sink = 0;
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < setsPerThread; i++) {
+                    int value = random.nextInt(64);
+                    if ((i & 1) == 0) {
+                        model.setA(value);
+                    } else {
+                        model.setB(value);
+                    }
+                    if ((i & 15) == 0) {
+                        sink += model.snapshot();
+                    }
+                }
+                if (sink == 42) {
+                    System.out.print("");
+                }
+            });
+            threads[t].start();
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return (double) threadCount * setsPerThread * 1e9 / (System.nanoTime() - begin);
+    }
+
+    static Model lockFree() {
+        ConcurrentReactiveSumModel model = new ConcurrentReactiveSumModel();
+        return new Model() {
+            @Override
+            public void setA(int a) {
+                model.setA(a);
+            }
+
+            @Override
+            public void setB(int b) {
+                model.setB(b);
+            }
+
+            @Override
+            public long snapshot() {
+                ConcurrentReactiveSumModel.Snapshot snapshot = model.getSnapshot();
+                return snapshot.isSumUpdated() ? snapshot.getSum() : -1;
+            }
+        };
+    }
+
+    static Model synchronizedModel() {
+        ReactiveSumModel model = new ReactiveSumModel();
+        return new Model() {
+            @Override
+            public synchronized void setA(int a) {
+                model.setA(a);
+            }
+
+            @Override
+            public synchronized void setB(int b) {
+                model.setB(b);
+            }
+
+            @Override
+            public synchronized long snapshot() {
+                return model.isSumUpdated() ? model.getSum() : -1;
+            }
+        };
+    }
+}
@@ -0,0 +1,50 @@
+package reactive_sum.imperative;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+public class PartitionedIngestBenchmark {
+    private static final int LINES = 1_000_000;
+
+    @Param({"1", "2", "4", "8"})
+    public int partitions;
+
+    @Param({"10000"})
+    public int sessions;
+
+    private String input;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        StringBuilder builder = new StringBuilder(LINES * 16);
+        for (int i = 0; i < LINES; i++) {
+            builder.append('s').append(random.nextInt(sessions))
+                   .append(random.nextBoolean() ? " a: " : " b: ")
+                   .append(random.nextInt(1000)).append('\n');
+        }
+        input = builder.toString();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public long ingest() {
+        PartitionedIngest ingest = new PartitionedIngest(partitions, 4096);
+        IngestResult result = ingest.ingest(input);
+        ingest.close();
+        return result.getProcessed();
+    }
+}
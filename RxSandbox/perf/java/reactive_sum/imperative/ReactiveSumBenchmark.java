@@ -0,0 +1,66 @@
+package reactive_sum.imperative;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+public class ReactiveSumBenchmark {
+    private static final int LINE_COUNT = 1024;
+
+    private ReactiveSum reactiveSum;
+    private StubIoWrapper ioWrapper;
+
+    @Setup
+    public void setup(Blackhole blackhole) {
+        Random random = new Random(42);
+        String[] lines = new String[LINE_COUNT];
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = random.nextInt(50) == 0
+                    ? "junk"
+                    : (random.nextBoolean() ? "a: " : "b: ") + random.nextInt(1000);
+        }
+
+        reactiveSum = new ReactiveSum();
+        ioWrapper = new StubIoWrapper(lines, blackhole);
+    }
+
+    @Benchmark
+    public boolean parseInput() {
+        return reactiveSum.parseInput(ioWrapper);
+    }
+
+    private static class StubIoWrapper extends IoWrapper {
+        private final String[] lines;
+        private final Blackhole blackhole;
+        private int next;
+
+        StubIoWrapper(String[] lines, Blackhole blackhole) {
+            super((MessageOutput) null);
+            this.lines = lines;
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public String getInput() {
+            String line = lines[next];
+            next = (next + 1) & (lines.length - 1);
+            return line;
+        }
+
+        @Override
+        public void printMessage(String message) {
+            blackhole.consume(message);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package reactive_sum.imperative;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+public class ReactiveSumModelBenchmark {
+    private ReactiveSumModel model;
+    private ConcurrentReactiveSumModel concurrentModel;
+    private int aSlot;
+    private int bSlot;
+    private int value;
+
+    @Setup
+    public void setup() {
+        model = new ReactiveSumModel();
+        concurrentModel = new ConcurrentReactiveSumModel();
+        aSlot = model.slot("a");
+        bSlot = model.slot("b");
+    }
+
+    @Benchmark
+    public long setAAndB() {
+        int next = value++ & 63;
+        model.setA(next);
+        model.setB(next);
+        return model.getSum();
+    }
+
+    @Benchmark
+    public long setBySlot() {
+        int next = value++ & 63;
+        model.set(aSlot, next);
+        model.set(bSlot, next);
+        return model.getSum();
+    }
+
+    @Benchmark
+    public long concurrentSetAAndB() {
+        int next = value++ & 63;
+        concurrentModel.setA(next);
+        concurrentModel.setB(next);
+        return concurrentModel.getSum();
+    }
+}
@@ -0,0 +1,84 @@
+package reactive_sum.rx;
+
+import rx.Observable;
+import rx.Scheduler;
+import rx.Subscription;
+import rx.schedulers.Schedulers;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Many concurrent subscriptions that each block in subscribeOn, on VirtualThreadScheduler, on
+ * newThread() and on io(). For each scheduler prints the total time, the heap and the number of
+ * live threads once every subscription has started blocking, and the mean and max latency from
+ * subscribe to the blocking work starting.
+ *
+ * Usage: BlockingSubscribeComparison [subscriptions] [blockMillis]
+ */
+public class BlockingSubscribeComparison {
+    private static final int DEFAULT_SUBSCRIPTIONS = 100_000;
+    private static final int DEFAULT_BLOCK_MILLIS = 1_000;
+
+    public static void main(String[] args) throws InterruptedException {
+        int subscriptions = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_SUBSCRIPTIONS;
+        int blockMillis = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_BLOCK_MILLIS;
+
+        System.out.println("Virtual threads " + (VirtualThreadScheduler.isVirtual() ? "available" : "not available, using io()"));
+        run("virtual", VirtualThreadScheduler.instance(), subscriptions, blockMillis);
+        run("newThread", Schedulers.newThread(), subscriptions, blockMillis);
+        run("io", Schedulers.io(), subscriptions, blockMillis);
+    }
+
+    static void run(String name, Scheduler scheduler, int subscriptions, int blockMillis) throws InterruptedException {
+        System.gc();
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long heapBefore = memory.getHeapMemoryUsage().getUsed();
+
+        CountDownLatch started = new CountDownLatch(subscriptions);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(subscriptions);
+        AtomicLong totalLatency = new AtomicLong();
+        AtomicLong maxLatency = new AtomicLong();
+        List<Subscription> running = new ArrayList<>(subscriptions);
+
+        long begin = System.nanoTime();
+        try {
+            for (int i = 0; i < subscriptions; i++) {
+                long subscribed = System.nanoTime();
+                running.add(Observable.fromCallable(() -> {
+                    long latency = System.nanoTime() - subscribed;
+                    totalLatency.addAndGet(latency);
+                    maxLatency.accumulateAndGet(latency, Math::max);
+                    started.countDown();
+                    release.await(blockMillis, TimeUnit.MILLISECONDS);
+                    return latency;
+                }).subscribeOn(scheduler).subscribe(latency -> finished.countDown(), e -> finished.countDown()));
+            }
+        } catch (OutOfMemoryError e) {
+            // platform threads run out long before virtual ones do
+            System.out.printf("  %-10s failed after %,d subscriptions: %s%n", name, running.size(), e);
+            release.countDown();
+            running.forEach(Subscription::unsubscribe);
+            return;
+        }
+
+        started.await();
+        long heap = memory.getHeapMemoryUsage().getUsed() - heapBefore;
+        int liveThreads = threads.getThreadCount();
+        release.countDown();
+        finished.await();
+        long elapsed = System.nanoTime() - begin;
+
+        System.out.printf("  %-10s %,8d ms total   %,8d MB heap   %,7d threads   latency mean %,8d us max %,8d us%n",
+                          name, TimeUnit.NANOSECONDS.toMillis(elapsed), heap >> 20, liveThreads,
+                          totalLatency.get() / subscriptions / 1000, maxLatency.get() / 1000);
+    }
+}
@@ -0,0 +1,61 @@
+package reactive_sum.rx;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import rx.Observable;
+import rx.schedulers.Schedulers;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Flattening inner observables that each wait a millisecond before emitting, like a remote call,
+ * and inner observables that emit straight away. concatMap waits for each call in turn, flatMap
+ * and ConcatMapEager overlap them; the synchronous case shows what the eager bookkeeping costs.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+public class ConcatMapEagerBenchmark {
+    private static final int CALLS = 32;
+
+    @Param({"1", "8", "32"})
+    public int concurrency;
+
+    @Benchmark
+    public Integer ioConcatMap() {
+        return Observable.range(0, CALLS).concatMap(ConcatMapEagerBenchmark::call).toBlocking().last();
+    }
+
+    @Benchmark
+    public Integer ioFlatMap() {
+        return Observable.range(0, CALLS).flatMap(ConcatMapEagerBenchmark::call, concurrency).toBlocking().last();
+    }
+
+    @Benchmark
+    public Integer ioConcatMapEager() {
+        return Observable.range(0, CALLS)
+                         .lift(new ConcatMapEager<Integer, Integer>(ConcatMapEagerBenchmark::call, concurrency, 16 * concurrency))
+                         .toBlocking().last();
+    }
+
+    @Benchmark
+    public Integer syncConcatMap() {
+        return Observable.range(0, 1000).concatMap(i -> Observable.range(i, 10)).toBlocking().last();
+    }
+
+    @Benchmark
+    public Integer syncConcatMapEager() {
+        return Observable.range(0, 1000)
+                         .lift(new ConcatMapEager<Integer, Integer>(i -> Observable.range(i, 10), concurrency, 16 * concurrency))
+                         .toBlocking().last();
+    }
+
+    private static Observable<Integer> call(int id) {
+        return Observable.range(id * 16, 16).delaySubscription(1, TimeUnit.MILLISECONDS, Schedulers.io());
+    }
+}
@@ -0,0 +1,102 @@
+package reactive_sum.rx;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import rx.Subscriber;
+import rx.subjects.BehaviorSubject;
+import rx.subjects.Subject;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * onNext into BehaviorSubject and FanoutBehaviorSubject with a fixed set of subscribers, on its own
+ * and with a second thread subscribing and unsubscribing as fast as it can. In the churn groups
+ * the onNext score is the one to compare; the churn score is how many subscribe/unsubscribe pairs
+ * got through meanwhile.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Group)
+public class FanoutBehaviorSubjectBenchmark {
+
+    @Param({"1", "10", "100", "1000", "10000"})
+    public int subscribers;
+
+    private Subject<Integer, Integer> behavior;
+    private Subject<Integer, Integer> fanout;
+
+    @Setup
+    public void setup() {
+        behavior = BehaviorSubject.create(0);
+        fanout = FanoutBehaviorSubject.create(0);
+        for (int i = 0; i < subscribers; i++) {
+            behavior.subscribe(new Sink());
+            fanout.subscribe(new Sink());
+        }
+    }
+
+    @Benchmark
+    @Group("behavior")
+    public void behaviorOnNext() {
+        behavior.onNext(1);
+    }
+
+    @Benchmark
+    @Group("fanout")
+    public void fanoutOnNext() {
+        fanout.onNext(1);
+    }
+
+    @Benchmark
+    @Group("behaviorChurn")
+    @GroupThreads(1)
+    public void behaviorChurnOnNext() {
+        behavior.onNext(1);
+    }
+
+    @Benchmark
+    @Group("behaviorChurn")
+    @GroupThreads(1)
+    public void behaviorChurnSubscribe() {
+        behavior.subscribe(new Sink()).unsubscribe();
+    }
+
+    @Benchmark
+    @Group("fanoutChurn")
+    @GroupThreads(1)
+    public void fanoutChurnOnNext() {
+        fanout.onNext(1);
+    }
+
+    @Benchmark
+    @Group("fanoutChurn")
+    @GroupThreads(1)
+    public void fanoutChurnSubscribe() {
+        fanout.subscribe(new Sink()).unsubscribe();
+    }
+
+    private static class Sink extends Subscriber<Integer> {
+        private int sum;
+
+        @Override
+        public void onNext(Integer value) {
+            sum += value;
+        }
+
+        @Override
+        public void onError(Throwable e) {
+        }
+
+        @Override
+        public void onCompleted() {
+        }
+    }
+}
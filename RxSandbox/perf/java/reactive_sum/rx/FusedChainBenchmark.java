@@ -0,0 +1,76 @@
+package reactive_sum.rx;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import rx.Observable;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * just().map() chains from DemystifyingSubscribers.iteration5, through Observable operators and
+ * through FusedChain. Run with -prof gc to compare the bytes allocated per subscription.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+public class FusedChainBenchmark {
+    private final Observable<Integer> justMap = Observable.just("Hi!").map(String::length);
+    private final Observable<Integer> fusedJustMap = FusedChain.just("Hi!").map(String::length).toObservable();
+
+    private final Observable<Integer> justChain = Observable.just("Hi!")
+                                                            .map(String::length)
+                                                            .map(length -> length * 2)
+                                                            .filter(length -> length > 0)
+                                                            .map(length -> length + 1);
+    private final Observable<Integer> fusedJustChain = FusedChain.just("Hi!")
+                                                                 .map(String::length)
+                                                                 .map(length -> length * 2)
+                                                                 .filter(length -> length > 0)
+                                                                 .map(length -> length + 1)
+                                                                 .toObservable();
+
+    private final Observable<Integer> rangeChain = Observable.range(0, 1000)
+                                                             .map(i -> i * 2)
+                                                             .map(i -> i + 1)
+                                                             .filter(i -> i % 3 != 0);
+    private final Observable<Integer> fusedRangeChain = FusedChain.from(Observable.range(0, 1000))
+                                                                  .map(i -> i * 2)
+                                                                  .map(i -> i + 1)
+                                                                  .filter(i -> i % 3 != 0)
+                                                                  .toObservable();
+
+    @Benchmark
+    public void justMap(Blackhole blackhole) {
+        justMap.subscribe(blackhole::consume);
+    }
+
+    @Benchmark
+    public void fusedJustMap(Blackhole blackhole) {
+        fusedJustMap.subscribe(blackhole::consume);
+    }
+
+    @Benchmark
+    public void justChain(Blackhole blackhole) {
+        justChain.subscribe(blackhole::consume);
+    }
+
+    @Benchmark
+    public void fusedJustChain(Blackhole blackhole) {
+        fusedJustChain.subscribe(blackhole::consume);
+    }
+
+    @Benchmark
+    public void rangeChain(Blackhole blackhole) {
+        rangeChain.subscribe(blackhole::consume);
+    }
+
+    @Benchmark
+    public void fusedRangeChain(Blackhole blackhole) {
+        fusedRangeChain.subscribe(blackhole::consume);
+    }
+}
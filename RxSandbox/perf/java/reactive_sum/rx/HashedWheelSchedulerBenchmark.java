@@ -0,0 +1,82 @@
+package reactive_sum.rx;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import rx.Scheduler;
+import rx.Subscription;
+import rx.functions.Action0;
+import rx.schedulers.Schedulers;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starting and cancelling timeouts on computation() and on HashedWheelScheduler, the way timeout()
+ * restarts its timer on every item. pendingTimeouts keeps TIMER_COUNT timeouts pending before
+ * cancelling them, so the cost of filing each one among many others shows. Run with -prof gc to
+ * compare the bytes allocated per timer.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+public class HashedWheelSchedulerBenchmark {
+    private static final int TIMER_COUNT = 10_000;
+    private static final Action0 NOTHING = () -> {
+    };
+
+    private final Subscription[] timers = new Subscription[TIMER_COUNT];
+    private HashedWheelScheduler wheel;
+    private Scheduler.Worker computationWorker;
+    private Scheduler.Worker wheelWorker;
+
+    @Setup
+    public void setup() {
+        wheel = new HashedWheelScheduler();
+        computationWorker = Schedulers.computation().createWorker();
+        wheelWorker = wheel.createWorker();
+    }
+
+    @TearDown
+    public void tearDown() {
+        computationWorker.unsubscribe();
+        wheelWorker.unsubscribe();
+        wheel.shutdown();
+    }
+
+    @Benchmark
+    public void computationTimeout() {
+        computationWorker.schedule(NOTHING, 10, TimeUnit.SECONDS).unsubscribe();
+    }
+
+    @Benchmark
+    public void wheelTimeout() {
+        wheelWorker.schedule(NOTHING, 10, TimeUnit.SECONDS).unsubscribe();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TIMER_COUNT)
+    public void computationPendingTimeouts() {
+        pendingTimeouts(computationWorker);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TIMER_COUNT)
+    public void wheelPendingTimeouts() {
+        pendingTimeouts(wheelWorker);
+    }
+
+    private void pendingTimeouts(Scheduler.Worker worker) {
+        for (int i = 0; i < TIMER_COUNT; i++) {
+            timers[i] = worker.schedule(NOTHING, 10 + i % 1000, TimeUnit.SECONDS);
+        }
+        for (Subscription timer : timers) {
+            timer.unsubscribe();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package reactive_sum.rx;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import rx.Observable;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Flattening Arrays.asList chunks, as in FlatMapTest.testIterable, through flatMapIterable and
+ * IndexedFlatMapIterable, and flattening the same chunks as arrays. Every invocation emits
+ * ELEMENTS values whatever the chunk size, so scores are elements per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+public class IndexedFlatMapIterableBenchmark {
+    private static final int ELEMENTS = 100_000;
+
+    @Param({"10", "100", "1000", "10000"})
+    public int size;
+
+    private Observable<Integer[]> chunks;
+
+    @Setup
+    public void setup() {
+        Integer[] chunk = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            chunk[i] = i;
+        }
+        chunks = Observable.range(0, ELEMENTS / size).map(i -> chunk);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ELEMENTS)
+    public void flatMapIterable(Blackhole blackhole) {
+        chunks.flatMapIterable(Arrays::asList).subscribe(blackhole::consume);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ELEMENTS)
+    public void indexedList(Blackhole blackhole) {
+        chunks.lift(IndexedFlatMapIterable.<Integer[], Integer>iterable(Arrays::asList)).subscribe(blackhole::consume);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ELEMENTS)
+    public void indexedArray(Blackhole blackhole) {
+        chunks.lift(IndexedFlatMapIterable.<Integer[], Integer>array(chunk -> chunk)).subscribe(blackhole::consume);
+    }
+}
@@ -0,0 +1,70 @@
+package reactive_sum.rx;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import rx.Observable;
+import rx.schedulers.Schedulers;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The range/map pipelines of FizzBuzzTest and SubscribeOn_ObserveOnTest, boxed through Observable
+ * and unboxed through IntObservable.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+public class IntObservableBenchmark {
+
+    @Param({"1000", "1000000"})
+    public int count;
+
+    @Benchmark
+    public Integer boxedMapFilterReduce() {
+        return Observable.range(1, count)
+                .map(i -> i * 100)
+                .filter(i -> i % 3 != 0)
+                .reduce(0, (sum, i) -> sum + i)
+                .toBlocking()
+                .single();
+    }
+
+    @Benchmark
+    public Integer intMapFilterReduce() {
+        return IntObservable.range(1, count)
+                .map(i -> i * 100)
+                .filter(i -> i % 3 != 0)
+                .reduce(0, (sum, i) -> sum + i)
+                .toObservable()
+                .toBlocking()
+                .single();
+    }
+
+    @Benchmark
+    public Integer boxedObserveOn() {
+        return Observable.range(1, count)
+                .map(i -> i * 100)
+                .observeOn(Schedulers.computation())
+                .map(i -> i * 10)
+                .reduce(0, (sum, i) -> sum + i)
+                .toBlocking()
+                .single();
+    }
+
+    @Benchmark
+    public Integer intObserveOn() {
+        return IntObservable.range(1, count)
+                .map(i -> i * 100)
+                .observeOn(Schedulers.computation())
+                .map(i -> i * 10)
+                .reduce(0, (sum, i) -> sum + i)
+                .toObservable()
+                .toBlocking()
+                .single();
+    }
+}
@@ -0,0 +1,70 @@
+package reactive_sum.rx;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import rx.Observable;
+import rx.schedulers.Schedulers;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Type-ahead style switching: every outer item replaces an inner observable that emits one item
+ * and then stays subscribed, so every switch has to cancel the previous inner. Scores are switches
+ * per second. The cancel latency percentiles of LockFreeSwitchMap are printed at the end of each
+ * trial.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+public class LockFreeSwitchMapBenchmark {
+    private static final int SWITCHES = 1000;
+
+    private final LockFreeSwitchMap<Integer, Integer> operator =
+            new LockFreeSwitchMap<>(LockFreeSwitchMapBenchmark::query);
+    // cancels on the emitting thread, to separate the cost of the swap from the cost of the hop
+    private final LockFreeSwitchMap<Integer, Integer> inlineCancelOperator =
+            new LockFreeSwitchMap<>(LockFreeSwitchMapBenchmark::query, Schedulers.immediate(), 128);
+
+    @TearDown
+    public void tearDown() {
+        printCancelLatency("computation", operator.getCancelLatency());
+        printCancelLatency("inline", inlineCancelOperator.getCancelLatency());
+    }
+
+    private static void printCancelLatency(String name, SchedulerMetrics.Histogram latency) {
+        if (latency.getCount() > 0) {
+            System.out.printf("%n%s cancel latency over %d switches: p50 < %d ns, p99 < %d ns, max < %d ns%n", name,
+                              latency.getCount(), latency.getPercentile(0.5), latency.getPercentile(0.99),
+                              latency.getMax());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SWITCHES)
+    public void switchMap(Blackhole blackhole) {
+        Observable.range(0, SWITCHES).switchMap(LockFreeSwitchMapBenchmark::query).subscribe(blackhole::consume);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SWITCHES)
+    public void lockFreeSwitchMap(Blackhole blackhole) {
+        Observable.range(0, SWITCHES).lift(operator).subscribe(blackhole::consume);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SWITCHES)
+    public void lockFreeSwitchMapInlineCancel(Blackhole blackhole) {
+        Observable.range(0, SWITCHES).lift(inlineCancelOperator).subscribe(blackhole::consume);
+    }
+
+    private static Observable<Integer> query(int i) {
+        return Observable.<Integer>never().startWith(i);
+    }
+}
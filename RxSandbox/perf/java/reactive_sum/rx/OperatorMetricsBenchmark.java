@@ -0,0 +1,77 @@
+package reactive_sum.rx;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import rx.Observable;
+import rx.Subscriber;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the metrics hook on a short and a long chain; sampleInterval 0 is the hook installed but
+ * disabled.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Fork(jvmArgsAppend = "-Drxjava.plugin.RxJavaObservableExecutionHook.implementation=reactive_sum.rx.OperatorMetrics")
+public class OperatorMetricsBenchmark {
+
+    @Param({"0", "1", "100"})
+    public int sampleInterval;
+
+    private Observable<Integer> just;
+    private Observable<Integer> range;
+
+    @Setup
+    public void setup() {
+        OperatorMetrics metrics = OperatorMetrics.install();
+        if (sampleInterval == 0) {
+            metrics.disable();
+        } else {
+            metrics.enable(sampleInterval);
+        }
+        just = Observable.just(1).map(i -> i + 1);
+        range = Observable.range(0, 1000).map(i -> i + 1).filter(i -> (i & 1) == 0);
+    }
+
+    @Benchmark
+    public void justMap(Blackhole blackhole) {
+        just.subscribe(new BlackholeSubscriber(blackhole));
+    }
+
+    @Benchmark
+    public void rangeMapFilter(Blackhole blackhole) {
+        range.subscribe(new BlackholeSubscriber(blackhole));
+    }
+
+    private static class BlackholeSubscriber extends Subscriber<Integer> {
+        private final Blackhole blackhole;
+
+        BlackholeSubscriber(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void onNext(Integer item) {
+            blackhole.consume(item);
+        }
+
+        @Override
+        public void onCompleted() {
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            blackhole.consume(e);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package reactive_sum.rx;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import rx.Observable;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A CPU-heavy map and a filter over a range, on one thread and split over rails. Scores are
+ * elements per second; the rails only pull ahead of sequential on a machine with that many cores.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+public class ParallelRangeBenchmark {
+    private static final int COUNT = 1 << 20;
+
+    @Param({"1", "2", "4", "8"})
+    public int rails;
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public Long sequential() {
+        return Observable.range(0, COUNT)
+                         .map(ParallelRangeBenchmark::work)
+                         .filter(i -> (i & 1) == 0)
+                         .toBlocking().last();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public Long ordered() {
+        return ParallelRange.range(0, COUNT, rails)
+                            .map(ParallelRangeBenchmark::work)
+                            .filter(i -> (i & 1) == 0)
+                            .ordered()
+                            .toBlocking().last();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public Long unordered() {
+        return ParallelRange.range(0, COUNT, rails)
+                            .map(ParallelRangeBenchmark::work)
+                            .filter(i -> (i & 1) == 0)
+                            .unordered()
+                            .toBlocking().last();
+    }
+
+    private static long work(int value) {
+        long hash = value;
+        for (int i = 0; i < 64; i++) {
+            hash = hash * 6364136223846793005L + 1442695040888963407L;
+            hash ^= hash >>> 29;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,64 @@
+package reactive_sum.rx;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import rx.Observable;
+import rx.Scheduler;
+import rx.schedulers.Schedulers;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of instrumenting a scheduler: the observeOn pipeline of SubscribeOnObserveOnBenchmark on
+ * the same single-thread executor, plain and wrapped by SchedulerMetrics.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+public class SchedulerMetricsBenchmark {
+
+    @Param({"1", "1000"})
+    public int count;
+
+    private ExecutorService executor;
+    private Scheduler plain;
+    private Scheduler instrumented;
+
+    @Setup
+    public void setup() {
+        executor = Executors.newSingleThreadExecutor();
+        plain = Schedulers.from(executor);
+        instrumented = new SchedulerMetrics().wrap("benchmark", plain);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Benchmark
+    public Integer plainObserveOn() {
+        return observeOn(plain);
+    }
+
+    @Benchmark
+    public Integer instrumentedObserveOn() {
+        return observeOn(instrumented);
+    }
+
+    private Integer observeOn(Scheduler scheduler) {
+        return Observable.range(1, count)
+                         .observeOn(scheduler)
+                         .map(i -> i * 10)
+                         .toBlocking().last();
+    }
+}
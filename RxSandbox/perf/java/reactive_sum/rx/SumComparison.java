@@ -0,0 +1,126 @@
+package reactive_sum.rx;
+
+import reactive_sum.imperative.IoWrapper;
+import reactive_sum.imperative.ReactiveSum;
+import rx.Observable;
+import rx.functions.Action1;
+import rx.subjects.PublishSubject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Runs the imperative ReactiveSum and RxReactiveSum over the same generated input, checks that
+ * they print the same messages and reports throughput and per-line latency for both.
+ *
+ * Usage: SumComparison [lines] [rounds]
+ */
+public class SumComparison {
+    private static final int DEFAULT_LINES = 1_000_000;
+    private static final int DEFAULT_ROUNDS = 5;
+
+    public static void main(String[] args) {
+        int lineCount = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_LINES;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_ROUNDS;
+        List<String> lines = generate(lineCount, new Random(42));
+
+        List<String> imperative = new ArrayList<>();
+        runImperative(lines, imperative::add);
+        List<String> reactive = new ArrayList<>();
+        runRx(lines, reactive::add);
+        if (!imperative.equals(reactive)) {
+            throw new IllegalStateException("Outputs differ: " + imperative.size() + " imperative vs "
+                                                    + reactive.size() + " rx messages");
+        }
+        System.out.println("Outputs match: " + imperative.size() + " messages for " + lineCount + " lines");
+
+        for (int round = 1; round <= rounds; round++) {
+            System.out.println("Round " + round);
+            report("  imperative", lineCount, time(() -> runImperative(lines, message -> {})),
+                   imperativeLatencies(lines));
+            report("  rx        ", lineCount, time(() -> runRx(lines, message -> {})), rxLatencies(lines));
+        }
+    }
+
+    private static List<String> generate(int count, Random random) {
+        List<String> lines = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            if (random.nextInt(100) == 0) {
+                lines.add("junk " + i);
+            } else {
+                lines.add((random.nextBoolean() ? "a: " : "b: ") + random.nextInt(16));
+            }
+        }
+        return lines;
+    }
+
+    private static void runImperative(List<String> lines, Action1<String> output) {
+        ReactiveSum reactiveSum = new ReactiveSum();
+        IoWrapper ioWrapper = new CallbackIoWrapper(output);
+        for (String line : lines) {
+            reactiveSum.parseLine(line, ioWrapper);
+        }
+    }
+
+    private static void runRx(List<String> lines, Action1<String> output) {
+        RxReactiveSum.sums(Observable.from(lines)).subscribe(output);
+    }
+
+    private static long[] imperativeLatencies(List<String> lines) {
+        ReactiveSum reactiveSum = new ReactiveSum();
+        IoWrapper ioWrapper = new CallbackIoWrapper(message -> {});
+        long[] latencies = new long[lines.size()];
+        for (int i = 0; i < latencies.length; i++) {
+            long start = System.nanoTime();
+            reactiveSum.parseLine(lines.get(i), ioWrapper);
+            latencies[i] = System.nanoTime() - start;
+        }
+        return latencies;
+    }
+
+    private static long[] rxLatencies(List<String> lines) {
+        PublishSubject<String> subject = PublishSubject.create();
+        RxReactiveSum.sums(subject).subscribe(message -> {});
+        long[] latencies = new long[lines.size()];
+        for (int i = 0; i < latencies.length; i++) {
+            long start = System.nanoTime();
+            subject.onNext(lines.get(i));
+            latencies[i] = System.nanoTime() - start;
+        }
+        subject.onCompleted();
+        return latencies;
+    }
+
+    private static long time(Runnable runnable) {
+        long start = System.nanoTime();
+        runnable.run();
+        return System.nanoTime() - start;
+    }
+
+    private static void report(String name, int lineCount, long elapsedNanos, long[] latencies) {
+        Arrays.sort(latencies);
+        System.out.printf("%s: %,12.0f lines/s   latency p50 %,6d ns  p99 %,6d ns  p99.9 %,8d ns%n",
+                          name, lineCount * 1e9 / elapsedNanos,
+                          percentile(latencies, 0.50), percentile(latencies, 0.99), percentile(latencies, 0.999));
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.floor(sorted.length * percentile))];
+    }
+
+    private static class CallbackIoWrapper extends IoWrapper {
+        private final Action1<String> output;
+
+        CallbackIoWrapper(Action1<String> output) {
+            super(null);
+            this.output = output;
+        }
+
+        @Override
+        public void printMessage(String message) {
+            output.call(message);
+        }
+    }
+}
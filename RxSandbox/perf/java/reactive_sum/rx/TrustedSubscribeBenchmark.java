@@ -0,0 +1,73 @@
+package reactive_sum.rx;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import rx.Observable;
+import rx.Subscriber;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Short-lived just() subscriptions, as in DemystifyingSubscribers.iteration1, through subscribe()
+ * and its SafeSubscriber and through TrustedSubscriber.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+public class TrustedSubscribeBenchmark {
+    private final Observable<String> just = Observable.just("Hi!");
+    private final Observable<Integer> justMap = Observable.just("Hi!").map(String::length);
+
+    @Benchmark
+    public void justSafeAction(Blackhole blackhole) {
+        just.subscribe(blackhole::consume);
+    }
+
+    @Benchmark
+    public void justTrustedAction(Blackhole blackhole) {
+        TrustedSubscriber.subscribe(just, blackhole::consume);
+    }
+
+    @Benchmark
+    public void justSafeSubscriber(Blackhole blackhole) {
+        just.subscribe(new Subscriber<String>() {
+            @Override
+            public void onNext(String item) {
+                blackhole.consume(item);
+            }
+
+            @Override
+            public void onCompleted() {
+            }
+
+            @Override
+            public void onError(Throwable e) {
+            }
+        });
+    }
+
+    @Benchmark
+    public void justTrustedSubscriber(Blackhole blackhole) {
+        TrustedSubscriber.subscribe(just, new TrustedSubscriber<String>() {
+            @Override
+            public void onNext(String item) {
+                blackhole.consume(item);
+            }
+        });
+    }
+
+    @Benchmark
+    public void justMapSafeAction(Blackhole blackhole) {
+        justMap.subscribe(blackhole::consume);
+    }
+
+    @Benchmark
+    public void justMapTrustedAction(Blackhole blackhole) {
+        TrustedSubscriber.subscribe(justMap, blackhole::consume);
+    }
+}
@@ -0,0 +1,80 @@
+package reactive_sum.rx;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import rx.Observable;
+import rx.Scheduler;
+import rx.Subscription;
+import rx.schedulers.TestScheduler;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * One virtual second on TestScheduler and on WheelTestScheduler. intervals runs that many
+ * Observable.interval()s with periods of 1 to 10 ms; timeouts keeps that many 10 s timeouts pending
+ * and restarts one of them every virtual millisecond, the way timeout() and debounce() do.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+public class WheelTestSchedulerBenchmark {
+
+    @Param({"1", "100", "10000"})
+    public int count;
+
+    @Benchmark
+    public long testSchedulerIntervals() {
+        TestScheduler scheduler = new TestScheduler();
+        return intervals(scheduler, scheduler::advanceTimeBy);
+    }
+
+    @Benchmark
+    public long wheelSchedulerIntervals() {
+        WheelTestScheduler scheduler = new WheelTestScheduler();
+        return intervals(scheduler, scheduler::advanceTimeBy);
+    }
+
+    @Benchmark
+    public long testSchedulerTimeouts() {
+        TestScheduler scheduler = new TestScheduler();
+        return timeouts(scheduler, scheduler::advanceTimeBy);
+    }
+
+    @Benchmark
+    public long wheelSchedulerTimeouts() {
+        WheelTestScheduler scheduler = new WheelTestScheduler();
+        return timeouts(scheduler, scheduler::advanceTimeBy);
+    }
+
+    private long intervals(Scheduler scheduler, BiConsumer<Long, TimeUnit> advance) {
+        long[] ticks = new long[1];
+        for (int i = 0; i < count; i++) {
+            Observable.interval(1 + i % 10, TimeUnit.MILLISECONDS, scheduler).subscribe(tick -> ticks[0]++);
+        }
+        advance.accept(1L, TimeUnit.SECONDS);
+        return ticks[0];
+    }
+
+    private long timeouts(Scheduler scheduler, BiConsumer<Long, TimeUnit> advance) {
+        Scheduler.Worker worker = scheduler.createWorker();
+        Subscription[] pending = new Subscription[count];
+        long[] fired = new long[1];
+        for (int i = 0; i < count; i++) {
+            pending[i] = worker.schedule(() -> fired[0]++, 10, TimeUnit.SECONDS);
+        }
+        int[] next = new int[1];
+        worker.schedulePeriodically(() -> {
+            int i = next[0]++ % count;
+            pending[i].unsubscribe();
+            pending[i] = worker.schedule(() -> fired[0]++, 10, TimeUnit.SECONDS);
+        }, 1, 1, TimeUnit.MILLISECONDS);
+        advance.accept(1L, TimeUnit.SECONDS);
+        return fired[0] + next[0];
+    }
+}
@@ -0,0 +1,62 @@
+package sandbox;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import reactive_sum.rx.BatchedObserveOn;
+import rx.Observable;
+import rx.schedulers.Schedulers;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The subscribeOn/observeOn pipelines from SubscribeOn_ObserveOnTest, minus the printing. Each
+ * invocation blocks until the last item has crossed the thread hop. batchedObserveOnComputation is
+ * observeOnComputation with BatchedObserveOn in place of observeOn.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+public class SubscribeOnObserveOnBenchmark {
+
+    @Param({"1", "1000", "100000"})
+    public int count;
+
+    @Benchmark
+    public Integer subscribeOnComputation() {
+        return Observable.range(1, count)
+                .subscribeOn(Schedulers.computation())
+                .map(i -> i * 10)
+                .toBlocking().last();
+    }
+
+    @Benchmark
+    public Integer subscribeOnNewThread() {
+        return Observable.range(1, count)
+                .subscribeOn(Schedulers.newThread())
+                .map(i -> i * 10)
+                .toBlocking().last();
+    }
+
+    @Benchmark
+    public Integer observeOnComputation() {
+        return Observable.range(1, count)
+                .map(i -> i * 100)
+                .observeOn(Schedulers.computation())
+                .map(i -> i * 10)
+                .toBlocking().last();
+    }
+
+    @Benchmark
+    public Integer batchedObserveOnComputation() {
+        return Observable.range(1, count)
+                .map(i -> i * 100)
+                .lift(new BatchedObserveOn<>(Schedulers.computation()))
+                .map(i -> i * 10)
+                .toBlocking().last();
+    }
+}
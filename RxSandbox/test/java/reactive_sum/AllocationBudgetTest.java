@@ -0,0 +1,158 @@
+package reactive_sum;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import rx.Observable;
+import rx.Subscriber;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Allocation budgets for the subscription patterns of DemystifyingSubscribers and FlatMapTest.
+ * Each pattern is warmed up, then run many times while the thread's allocated bytes are read
+ * through com.sun.management.ThreadMXBean; going over the budget fails the test.
+ *
+ * Per-subscribe budgets cover the whole subscription, subscriber included. Per-onNext budgets are
+ * the extra bytes of a 1000 item stream over a single item one, divided by 999; they include the
+ * boxing of ints above the Integer cache.
+ *
+ * When a change makes a pattern cheaper, lower its budget to keep it there. The budgets are set
+ * about a third above the cost measured on a 64-bit JVM with compressed oops, with C2 and with C1
+ * only.
+ */
+public class AllocationBudgetTest {
+    private static final int WARMUP_ITERATIONS = 20_000;
+    private static final int MEASURED_ITERATIONS = 10_000;
+
+    private static com.sun.management.ThreadMXBean threads;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        threads = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    @Test
+    public void testJustSubscribe() throws Exception {
+        Observable<String> observable = Observable.just("Hi!");
+
+        assertPerSubscribe("just().subscribe()", 180, observable::subscribe);
+    }
+
+    @Test
+    public void testJustSubscribeSubscriber() throws Exception {
+        Observable<String> observable = Observable.just("Hi!");
+
+        assertPerSubscribe("just().subscribe(Subscriber)", 160, () -> observable.subscribe(new NoOpSubscriber<>()));
+    }
+
+    @Test
+    public void testCreateSubscribeSubscriber() throws Exception {
+        Observable<String> observable = Observable.create(subscriber -> {
+            subscriber.onNext("Hi");
+            subscriber.onCompleted();
+        });
+
+        assertPerSubscribe("create().subscribe(Subscriber)", 130, () -> observable.subscribe(new NoOpSubscriber<>()));
+    }
+
+    @Test
+    public void testJustMapSubscribeAction() throws Exception {
+        Observable<Integer> observable = Observable.just("Hi!").map(String::length);
+
+        assertPerSubscribe("just().map().subscribe(Action1)", 400, () -> observable.subscribe(length -> { }));
+    }
+
+    @Test
+    public void testRangeMapSubscribeActionPerOnNext() throws Exception {
+        Observable<Integer> single = Observable.range(1000, 1).map(i -> i + 1);
+        Observable<Integer> many = Observable.range(1000, 1000).map(i -> i + 1);
+
+        assertPerOnNext("range().map().subscribe(Action1)", 48,
+                        () -> single.subscribe(i -> { }), () -> many.subscribe(i -> { }));
+    }
+
+    @Test
+    public void testFlatMapJust() throws Exception {
+        Observable<Integer> observable = Observable.just(1, 2, 3).flatMap(Observable::just);
+
+        assertPerSubscribe("just(1, 2, 3).flatMap(just)", 880, () -> observable.subscribe(new NoOpSubscriber<>()));
+    }
+
+    @Test
+    public void testFlatMapFromLists() throws Exception {
+        Observable<Integer> observable = Observable.just(Arrays.asList(1, 2, 3), Arrays.asList(4, 5, 6))
+                                                   .flatMap(Observable::from);
+
+        assertPerSubscribe("just(list, list).flatMap(from)", 1600, () -> observable.subscribe(new NoOpSubscriber<>()));
+    }
+
+    @Test
+    public void testFlatMapIterable() throws Exception {
+        Observable<Integer> observable = Observable.just(Arrays.asList(1, 2, 3), Arrays.asList(4, 5, 6))
+                                                   .flatMapIterable(list -> list);
+
+        assertPerSubscribe("just(list, list).flatMapIterable()", 2400, () -> observable.subscribe(new NoOpSubscriber<>()));
+    }
+
+    @Test
+    public void testFlatMapWithResultSelector() throws Exception {
+        Observable<Integer> observable = Observable.just(Arrays.asList(1), Arrays.asList(2, 3))
+                                                   .flatMap(Observable::from, (list, item) -> item);
+
+        assertPerSubscribe("just(list, list).flatMap(from, selector)", 2200, () -> observable.subscribe(new NoOpSubscriber<>()));
+    }
+
+    @Test
+    public void testFlatMapJustPerOnNext() throws Exception {
+        Observable<Integer> single = Observable.range(1000, 1).flatMap(Observable::just);
+        Observable<Integer> many = Observable.range(1000, 1000).flatMap(Observable::just);
+
+        assertPerOnNext("range().flatMap(just)", 80,
+                        () -> single.subscribe(new NoOpSubscriber<>()), () -> many.subscribe(new NoOpSubscriber<>()));
+    }
+
+    private static void assertPerSubscribe(String pattern, long budget, Runnable subscribe) {
+        long bytes = bytesPerRun(subscribe);
+        assertTrue(pattern + " allocated " + bytes + " bytes per subscribe, budget is " + budget, bytes <= budget);
+    }
+
+    private static void assertPerOnNext(String pattern, long budget, Runnable single, Runnable many) {
+        long bytes = (bytesPerRun(many) - bytesPerRun(single)) / 999;
+        assertTrue(pattern + " allocated " + bytes + " bytes per onNext, budget is " + budget, bytes <= budget);
+    }
+
+    private static long bytesPerRun(Runnable run) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            run.run();
+        }
+        long thread = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            run.run();
+        }
+        return (threads.getThreadAllocatedBytes(thread) - before) / MEASURED_ITERATIONS;
+    }
+
+    private static class NoOpSubscriber<T> extends Subscriber<T> {
+        @Override
+        public void onNext(T item) {
+        }
+
+        @Override
+        public void onCompleted() {
+        }
+
+        @Override
+        public void onError(Throwable e) {
+        }
+    }
+}
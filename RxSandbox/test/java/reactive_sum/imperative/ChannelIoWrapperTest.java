@@ -0,0 +1,85 @@
+package reactive_sum.imperative;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.*;
+
+public class ChannelIoWrapperTest {
+
+    private static final String INPUT = "a: 5\r\nb: 13\n\njunk\nquit";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testReadLinesFromMappedFile() throws Exception {
+        try (ChannelIoWrapper ioWrapper = new ChannelIoWrapper(writeFile(INPUT), null)) {
+            assertThat(readAll(ioWrapper), contains("a: 5", "b: 13", "", "junk", "quit"));
+        }
+    }
+
+    @Test
+    public void testLinesSpanningMappedWindows() throws Exception {
+        FileChannel channel = FileChannel.open(writeFile(INPUT));
+
+        try (ChannelIoWrapper ioWrapper = new ChannelIoWrapper(channel, null, 7)) {
+            assertThat(readAll(ioWrapper), contains("a: 5", "b: 13", "", "junk", "quit"));
+        }
+    }
+
+    @Test
+    public void testReadLinesFromStreamChannel() throws Exception {
+        ByteArrayInputStream input = new ByteArrayInputStream(INPUT.getBytes(StandardCharsets.US_ASCII));
+
+        try (ChannelIoWrapper ioWrapper = new ChannelIoWrapper(Channels.newChannel(input), null, 7)) {
+            assertThat(readAll(ioWrapper), contains("a: 5", "b: 13", "", "junk", "quit"));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testLineLongerThanWindowFails() throws Exception {
+        FileChannel channel = FileChannel.open(writeFile("a: 1234567890\n"));
+
+        try (ChannelIoWrapper ioWrapper = new ChannelIoWrapper(channel, null, 4)) {
+            ioWrapper.nextLine();
+        }
+    }
+
+    @Test
+    public void testIngestFileWithReactiveSum() throws Exception {
+        ReactiveSum reactiveSum = new ReactiveSum();
+
+        IngestResult result = reactiveSum.ingest(writeFile(INPUT));
+
+        assertThat(result.getProcessed(), equalTo(4L));
+        assertThat(result.getRejected(), equalTo(2L));
+        assertThat(reactiveSum.getReactiveSumModel().getSum(), equalTo(18L));
+    }
+
+    private Path writeFile(String content) throws Exception {
+        Path file = folder.newFile().toPath();
+        Files.write(file, content.getBytes(StandardCharsets.US_ASCII));
+        return file;
+    }
+
+    private List<String> readAll(IoWrapper ioWrapper) {
+        List<String> lines = new ArrayList<>();
+        while (ioWrapper.nextLine()) {
+            lines.add(ioWrapper.getLine().toString());
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,97 @@
+package reactive_sum.imperative;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.*;
+
+public class ConcurrentReactiveSumModelTest {
+
+    private ConcurrentReactiveSumModel model;
+
+    @Before
+    public void setUp() throws Exception {
+        model = new ConcurrentReactiveSumModel();
+    }
+
+    @Test
+    public void testBothValuesInitializedToTrue() throws Exception {
+        assertTrue(model.isSumUpdated());
+        assertThat(model.getSum(), equalTo(0L));
+    }
+
+    @Test
+    public void testSettingValueToExistingValueDoesNotUpdate() throws Exception {
+        model.setA(5);
+        model.setA(5);
+        assertFalse(model.isSumUpdated());
+
+        model.setA(6);
+        model.setB(0);
+        assertFalse(model.isSumUpdated());
+    }
+
+    @Test
+    public void testGetSumReturnsTotalOfAPlusB() throws Exception {
+        model.setA(5);
+        model.setB(Integer.MAX_VALUE - 5);
+
+        ConcurrentReactiveSumModel.Snapshot snapshot = model.getSnapshot();
+        assertThat(snapshot.getA(), equalTo(5));
+        assertThat(snapshot.getB(), equalTo(Integer.MAX_VALUE - 5));
+        assertThat(snapshot.getSum(), equalTo((long) Integer.MAX_VALUE));
+        assertTrue(snapshot.isSumUpdated());
+    }
+
+    @Test
+    public void testSumDoesNotOverflow() throws Exception {
+        model.setA(Integer.MAX_VALUE);
+        model.setB(Integer.MAX_VALUE);
+
+        assertThat(model.getSum(), equalTo(2L * Integer.MAX_VALUE));
+        assertThat(model.getSnapshot().getSum(), equalTo(2L * Integer.MAX_VALUE));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeValuesRejected() throws Exception {
+        model.setB(-1);
+    }
+
+    @Test
+    public void testConcurrentWritersNeverTearTheState() throws Exception {
+        // one writer per variable, each counting up, so a set that clobbered the other variable
+        // would show up as that variable going backwards or ending short
+        int count = 200000;
+        CountDownLatch done = new CountDownLatch(2);
+        new Thread(() -> {
+            for (int i = 1; i <= count; i++) {
+                model.setA(i);
+            }
+            done.countDown();
+        }).start();
+        new Thread(() -> {
+            for (int i = 1; i <= count; i++) {
+                model.setB(i);
+            }
+            done.countDown();
+        }).start();
+
+        int lastA = 0;
+        int lastB = 0;
+        while (done.getCount() > 0) {
+            ConcurrentReactiveSumModel.Snapshot snapshot = model.getSnapshot();
+            assertTrue("a went from " + lastA + " to " + snapshot.getA(), snapshot.getA() >= lastA);
+            assertTrue("b went from " + lastB + " to " + snapshot.getB(), snapshot.getB() >= lastB);
+            assertTrue(snapshot.isSumUpdated());
+            lastA = snapshot.getA();
+            lastB = snapshot.getB();
+        }
+
+        assertThat(model.getA(), equalTo(count));
+        assertThat(model.getB(), equalTo(count));
+        assertTrue(model.isSumUpdated());
+    }
+}
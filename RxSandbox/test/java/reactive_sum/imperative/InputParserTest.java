@@ -0,0 +1,78 @@
+package reactive_sum.imperative;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.*;
+
+public class InputParserTest {
+
+    private InputParser parser;
+
+    @Before
+    public void setUp() throws Exception {
+        parser = new InputParser();
+    }
+
+    @Test
+    public void testParseVariableAndValue() throws Exception {
+        assertTrue(parser.parse("b: 42"));
+
+        assertThat(parser.getVariable(), equalTo("b"));
+        assertThat(parser.getValue(), equalTo(42));
+    }
+
+    @Test
+    public void testParseIdentifier() throws Exception {
+        assertTrue(parser.parse("_total_2: 9"));
+
+        assertThat(parser.getVariable(), equalTo("_total_2"));
+        assertThat(parser.getNameStart(), equalTo(0));
+        assertThat(parser.getNameEnd(), equalTo(8));
+        assertTrue(parser.isVariable("_total_2"));
+        assertFalse(parser.isVariable("_total"));
+    }
+
+    @Test
+    public void testParseWithinRange() throws Exception {
+        assertTrue(parser.parse("junk a: 7 junk", 5, 9));
+
+        assertThat(parser.getVariable(), equalTo("a"));
+        assertThat(parser.getValue(), equalTo(7));
+    }
+
+    @Test
+    public void testParseLargestInt() throws Exception {
+        assertTrue(parser.parse("a: " + Integer.MAX_VALUE));
+
+        assertThat(parser.getValue(), equalTo(Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void testRejectOverflow() throws Exception {
+        assertFalse(parser.parse("a: 2147483648"));
+        assertFalse(parser.parse("a: 99999999999999999999"));
+    }
+
+    @Test
+    public void testRejectMalformedInput() throws Exception {
+        assertFalse(parser.parse(""));
+        assertFalse(parser.parse("a:"));
+        assertFalse(parser.parse("a: "));
+        assertFalse(parser.parse("a:5"));
+        assertFalse(parser.parse("2a: 5"));
+        assertFalse(parser.parse("a-b: 5"));
+        assertFalse(parser.parse(": 5"));
+        assertFalse(parser.parse("a: -5"));
+        assertFalse(parser.parse("a: 5 "));
+        assertFalse(parser.parse("a:  5"));
+    }
+
+    @Test
+    public void testQuitIsCaseInsensitive() throws Exception {
+        assertTrue(parser.isQuit("quit"));
+        assertTrue(parser.isQuit("QuIt"));
+        assertFalse(parser.isQuit("quit!"));
+    }
+}
@@ -0,0 +1,110 @@
+package reactive_sum.imperative;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertThat;
+
+public class MessageOutputTest {
+
+    private static final String NL = System.lineSeparator();
+
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    private final PrintStream sink = new PrintStream(bytes);
+
+    @Test
+    public void testImmediatePolicyWritesEveryMessage() throws Exception {
+        MessageOutput output = new MessageOutput(sink, FlushPolicy.immediate());
+
+        output.print("Sum: 1");
+        assertThat(written(), equalTo("Sum: 1"));
+
+        output.newLine();
+        assertThat(written(), equalTo("Sum: 1" + NL));
+    }
+
+    @Test
+    public void testFlushAfterUpdateCount() throws Exception {
+        MessageOutput output = new MessageOutput(sink, FlushPolicy.buffered(1024, 2, 1, TimeUnit.HOURS));
+
+        output.print("Sum: 1");
+        output.newLine();
+        assertThat(written(), equalTo(""));
+
+        output.print("Sum: 2");
+        output.newLine();
+        assertThat(written(), equalTo("Sum: 1" + NL + "Sum: 2" + NL));
+    }
+
+    @Test
+    public void testFlushAfterBufferSize() throws Exception {
+        MessageOutput output = new MessageOutput(sink, FlushPolicy.buffered(10, 100, 1, TimeUnit.HOURS));
+
+        output.print("Sum: 1");
+        assertThat(written(), equalTo(""));
+
+        output.print("Sum: 2");
+        assertThat(written(), equalTo("Sum: 1Sum: 2"));
+    }
+
+    @Test
+    public void testFlushAfterElapsedTime() throws Exception {
+        MessageOutput output = new MessageOutput(sink, FlushPolicy.buffered(1024, 100, 0, TimeUnit.MILLISECONDS));
+
+        output.print("Sum: 1");
+        output.newLine();
+
+        assertThat(written(), equalTo("Sum: 1" + NL));
+    }
+
+    @Test
+    public void testConflationKeepsLatestSumPerWindow() throws Exception {
+        FlushPolicy policy = FlushPolicy.buffered(1024, 3, 1, TimeUnit.HOURS).conflating("Sum: ");
+        MessageOutput output = new MessageOutput(sink, policy);
+
+        output.print("Sum: 1");
+        output.newLine();
+        output.print("Error: Invalid input");
+        output.newLine();
+        output.print("Sum: 3");
+        output.newLine();
+
+        assertThat(written(), equalTo("Error: Invalid input" + NL + "Sum: 3" + NL));
+    }
+
+    @Test
+    public void testSizeTriggeredFlushDoesNotSplitALine() throws Exception {
+        FlushPolicy policy = FlushPolicy.buffered(10, 100, 1, TimeUnit.HOURS).conflating("Sum: ");
+        MessageOutput output = new MessageOutput(sink, policy);
+
+        output.print("Sum: 1");
+        output.newLine();
+        output.print("Error: Invalid input");
+        output.newLine();
+        output.flush();
+
+        assertThat(written(), equalTo("Error: Invalid input" + NL + "Sum: 1" + NL));
+    }
+
+    @Test
+    public void testExplicitFlushWritesPendingMessages() throws Exception {
+        FlushPolicy policy = FlushPolicy.buffered(1024, 100, 1, TimeUnit.HOURS).conflating("Sum: ");
+        MessageOutput output = new MessageOutput(sink, policy);
+
+        output.print("Sum: 1");
+        output.flush();
+        output.newLine();
+        output.flush();
+
+        assertThat(written(), equalTo("Sum: 1" + NL));
+    }
+
+    private String written() {
+        sink.flush();
+        return bytes.toString();
+    }
+}
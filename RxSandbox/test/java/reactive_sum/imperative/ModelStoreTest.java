@@ -0,0 +1,120 @@
+package reactive_sum.imperative;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.*;
+
+public class ModelStoreTest {
+
+    private static final CommitPolicy COMMIT_POLICY = CommitPolicy.grouped(4096, 16, 1, TimeUnit.SECONDS);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testStateSurvivesReopen() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        try (ModelStore store = ModelStore.open(directory, COMMIT_POLICY, 1000)) {
+            new ReactiveSum(store.getModel()).ingest("a: 5\nb: 3\nprice: 10\nb: 3\n");
+        }
+
+        try (ModelStore store = ModelStore.open(directory, COMMIT_POLICY, 1000)) {
+            ReactiveSumModel model = store.getModel();
+            assertThat(model.getSum(), equalTo(18L));
+            assertThat(model.get(model.indexOf("price")), equalTo(10));
+            assertFalse(model.isSumUpdated());
+
+            model.setB(4);
+            assertTrue(model.isSumUpdated());
+        }
+    }
+
+    @Test
+    public void testRecoverFromJournalWithoutClose() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        ModelStore crashed = ModelStore.open(directory, COMMIT_POLICY, 1000);
+        new ReactiveSum(crashed.getModel()).ingest("a: 1\nb: 2\nc: 0\n");
+        crashed.commit();
+
+        try (ModelStore store = ModelStore.open(directory, COMMIT_POLICY, 1000)) {
+            ReactiveSumModel model = store.getModel();
+            assertThat(model.size(), equalTo(3));
+            assertThat(model.getSum(), equalTo(3L));
+            assertFalse(model.isUpdated(model.indexOf("c")));
+        }
+    }
+
+    @Test
+    public void testReplayStopsAtATornRecord() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        ModelStore crashed = ModelStore.open(directory, COMMIT_POLICY, 1000);
+        new ReactiveSum(crashed.getModel()).ingest("a: 1\nb: 2\n");
+        crashed.commit();
+        // what a power loss can leave behind: the type byte of the next set made it to disk, its
+        // payload did not
+        try (FileChannel journal = FileChannel.open(directory.resolve("journal-1"), StandardOpenOption.WRITE)) {
+            long end = 2 * (3 + 1 + 4) + 2 * 13;
+            journal.write(ByteBuffer.wrap(new byte[] {Journal.SET}), end);
+        }
+
+        try (ModelStore store = ModelStore.open(directory, COMMIT_POLICY, 1000)) {
+            ReactiveSumModel model = store.getModel();
+            assertThat(model.size(), equalTo(2));
+            assertThat(model.getSum(), equalTo(3L));
+        }
+    }
+
+    @Test
+    public void testPeriodicSnapshotsCompactOldGenerations() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        StringBuilder lines = new StringBuilder();
+        for (int i = 1; i <= 1000; i++) {
+            lines.append("v").append(i % 50).append(": ").append(i).append('\n');
+        }
+
+        try (ModelStore store = ModelStore.open(directory, COMMIT_POLICY, 100)) {
+            new ReactiveSum(store.getModel()).ingest(lines);
+        }
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files.map(file -> file.getFileName().toString()).collect(Collectors.toList()),
+                       containsInAnyOrder("snapshot-11", "journal-11"));
+        }
+        try (ModelStore store = ModelStore.open(directory, COMMIT_POLICY, 100)) {
+            long expected = 0;
+            for (int i = 951; i <= 1000; i++) {
+                expected += i;
+            }
+            assertThat(store.getModel().getSum(), equalTo(expected));
+            assertThat(store.getModel().size(), equalTo(50));
+        }
+    }
+
+    @Test
+    public void testNextJournalClosesThePreviousOne() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        Journal first = new Journal(directory.resolve("journal-1"), COMMIT_POLICY);
+        first.appendSet(0, 1);
+        Journal second = new Journal(directory.resolve("journal-2"), COMMIT_POLICY, first);
+        second.appendSet(0, 2);
+        second.commit();
+
+        // closing truncates the mapped file to what was appended
+        assertThat(Files.size(directory.resolve("journal-1")), equalTo(13L));
+        second.close();
+        assertThat(Files.size(directory.resolve("journal-2")), equalTo(13L));
+    }
+}
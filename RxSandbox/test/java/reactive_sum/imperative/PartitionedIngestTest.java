@@ -0,0 +1,93 @@
+package reactive_sum.imperative;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.*;
+
+public class PartitionedIngestTest {
+
+    @Test
+    public void testUpdatesOfAKeyAreAppliedInOrder() throws Exception {
+        PartitionedIngest ingest = new PartitionedIngest(4, 8);
+        StringBuilder lines = new StringBuilder();
+        for (int i = 1; i <= 10_000; i++) {
+            lines.append("s1 a: ").append(i).append('\n');
+            lines.append("s2 b: ").append(i * 2).append('\n');
+        }
+        IngestResult result = ingest.ingest(lines);
+        ingest.close();
+
+        assertThat(result.getProcessed(), equalTo(20_000L));
+        assertThat(result.getRejected(), equalTo(0L));
+        assertThat(ingest.getModel("s1").getA(), equalTo(10_000));
+        assertThat(ingest.getModel("s2").getB(), equalTo(20_000));
+    }
+
+    @Test
+    public void testEverySessionHasItsOwnModel() throws Exception {
+        PartitionedIngest ingest = new PartitionedIngest(3, 16);
+        for (int session = 0; session < 100; session++) {
+            ingest.submit("s" + session + " a: " + session);
+            ingest.submit("s" + session + " total: " + (session + 1));
+        }
+        ingest.close();
+
+        assertThat(ingest.getSessionCount(), equalTo(100));
+        for (int session = 0; session < 100; session++) {
+            ReactiveSumModel model = ingest.getModel("s" + session);
+            assertThat(model.getSum(), equalTo(2L * session + 1));
+        }
+        assertNull(ingest.getModel("s100"));
+    }
+
+    @Test
+    public void testLinesWithoutKeyOrValidUpdateAreRejected() throws Exception {
+        PartitionedIngest ingest = new PartitionedIngest(2, 4);
+        IngestResult result = ingest.ingest("a: 1\ns1\ns1 a 1\n s1 a: 1\ns1 a: 2\n");
+        ingest.close();
+
+        assertThat(result.getProcessed(), equalTo(5L));
+        assertThat(result.getRejected(), equalTo(4L));
+        assertThat(ingest.getSessionCount(), equalTo(1));
+    }
+
+    @Test
+    public void testIngestStopsAtQuit() throws Exception {
+        PartitionedIngest ingest = new PartitionedIngest(2, 4);
+        IngestResult result = ingest.ingest("s1 a: 1\nquit\ns1 a: 2\n");
+        ingest.close();
+
+        assertThat(result.getProcessed(), equalTo(1L));
+        assertThat(ingest.getModel("s1").getA(), equalTo(1));
+    }
+
+    @Test
+    public void testListenerSeesEachSessionsSumsInOrder() throws Exception {
+        List<String> sums = Collections.synchronizedList(new ArrayList<>());
+        PartitionedIngest ingest = new PartitionedIngest(2, 4, (key, sum) -> {
+            if (key.toString().equals("s7")) {
+                sums.add("Sum: " + sum);
+            }
+        });
+        ingest.ingest("s7 a: 1\ns8 a: 5\ns7 b: 2\ns7 b: 2\ns7 a: 3\n");
+        ingest.close();
+
+        assertThat(sums, equalTo(Arrays.asList("Sum: 1", "Sum: 3")));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testModelsCannotBeReadBeforeClose() throws Exception {
+        PartitionedIngest ingest = new PartitionedIngest(1, 2);
+        try {
+            ingest.getModel("s1");
+        } finally {
+            ingest.close();
+        }
+    }
+}
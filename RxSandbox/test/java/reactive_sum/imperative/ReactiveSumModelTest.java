@@ -42,6 +42,60 @@ public class ReactiveSumModelTest {
         reactiveSumModel.setA(5);
         reactiveSumModel.setB(7);
 
-        assertThat(reactiveSumModel.getSum(), equalTo(12));
+        assertThat(reactiveSumModel.getSum(), equalTo(12L));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testSumOverManyVariables() throws Exception {
+        for (int i = 0; i < 1000; i++) {
+            reactiveSumModel.set(reactiveSumModel.slot("v" + i), i + 1);
+        }
+
+        assertThat(reactiveSumModel.size(), equalTo(1002));
+        assertThat(reactiveSumModel.getSum(), equalTo(1000L * 1001 / 2));
+        assertTrue(reactiveSumModel.isSumUpdated());
+    }
+
+    @Test
+    public void testSumUpdatedOnlyWhenEveryVariablesLastSetChanged() throws Exception {
+        int c = reactiveSumModel.slot("c");
+        reactiveSumModel.set(c, 3);
+        reactiveSumModel.setA(0);
+        assertFalse(reactiveSumModel.isSumUpdated());
+
+        reactiveSumModel.set(c, 4);
+        assertFalse(reactiveSumModel.isSumUpdated());
+
+        reactiveSumModel.setA(1);
+        assertTrue(reactiveSumModel.isSumUpdated());
+        assertThat(reactiveSumModel.getSum(), equalTo(5L));
+    }
+
+    @Test
+    public void testSlotLookupByRange() throws Exception {
+        int slot = reactiveSumModel.slot("total");
+
+        assertThat(reactiveSumModel.slot("sub total: 5", 4, 9), equalTo(slot));
+        assertThat(reactiveSumModel.indexOf("total"), equalTo(slot));
+        assertThat(reactiveSumModel.getName(slot), equalTo("total"));
+        assertThat(reactiveSumModel.indexOf("missing"), equalTo(-1));
+    }
+
+    @Test
+    public void testSumDoesNotOverflow() throws Exception {
+        reactiveSumModel.setA(Integer.MAX_VALUE);
+        reactiveSumModel.setB(Integer.MAX_VALUE);
+        reactiveSumModel.set(reactiveSumModel.slot("c"), Integer.MAX_VALUE);
+
+        assertThat(reactiveSumModel.getSum(), equalTo(3L * Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void testGettersDoNotAddVariables() throws Exception {
+        ReactiveSumModel model = new ReactiveSumModel("x");
+
+        assertThat(model.getA(), equalTo(0));
+        assertThat(model.getB(), equalTo(0));
+        assertThat(model.size(), equalTo(1));
+    }
+}
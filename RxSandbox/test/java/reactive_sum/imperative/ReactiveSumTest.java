@@ -5,6 +5,8 @@ import org.junit.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.io.StringReader;
+
 import static org.hamcrest.core.IsEqual.equalTo;
 import static org.junit.Assert.*;
 import static org.mockito.Matchers.anyString;
@@ -52,7 +54,7 @@ public class ReactiveSumTest {
 
         enterInput("b: 3");
 
-        assertThat(reactiveSum.getReactiveSumModel().getSum(), equalTo(8));
+        assertThat(reactiveSum.getReactiveSumModel().getSum(), equalTo(8L));
     }
 
     @Test
@@ -95,6 +97,55 @@ public class ReactiveSumTest {
         verify(ioWrapper, times(2)).printMessage(anyString());
     }
 
+    @Test
+    public void testParseNamedVariables() throws Exception {
+        enterInput("price: 5");
+        enterInput("tax_2: 3");
+
+        ReactiveSumModel model = reactiveSum.getReactiveSumModel();
+        assertThat(model.get(model.indexOf("price")), equalTo(5));
+        verify(ioWrapper).printMessage("Sum: 8");
+    }
+
+    @Test
+    public void testShowErrorMessageWhenValueOverflowsInt() throws Exception {
+        enterInput("a: 2147483648");
+
+        verify(ioWrapper).printMessage("Error: Invalid input");
+    }
+
+    @Test
+    public void testIngestAppliesEveryLine() throws Exception {
+        IngestResult result = reactiveSum.ingest("a: 5\nb: 3\njunk\r\na: 7\n");
+
+        assertThat(result.getProcessed(), equalTo(4L));
+        assertThat(result.getRejected(), equalTo(1L));
+        assertThat(reactiveSum.getReactiveSumModel().getSum(), equalTo(10L));
+    }
+
+    @Test
+    public void testIngestStopsAtQuit() throws Exception {
+        IngestResult result = reactiveSum.ingest("a: 5\nQUIT\nb: 3");
+
+        assertThat(result.getProcessed(), equalTo(1L));
+        assertThat(reactiveSum.getReactiveSumModel().getB(), equalTo(0));
+    }
+
+    @Test
+    public void testIngestReaderHandlesLinesAcrossBufferBoundaries() throws Exception {
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            lines.append(i % 2 == 0 ? "a: " : "b: ").append(i).append('\n');
+        }
+        lines.append("b: 1");
+
+        IngestResult result = reactiveSum.ingest(new StringReader(lines.toString()));
+
+        assertThat(result.getProcessed(), equalTo(20001L));
+        assertThat(result.getRejected(), equalTo(0L));
+        assertThat(reactiveSum.getReactiveSumModel().getSum(), equalTo(19998L + 1));
+    }
+
     private void enterInput(String input) {
         when(ioWrapper.getInput()).thenReturn(input);
         reactiveSum.parseInput(ioWrapper);
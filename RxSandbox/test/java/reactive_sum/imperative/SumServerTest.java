@@ -0,0 +1,179 @@
+package reactive_sum.imperative;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class SumServerTest {
+
+    private SumServer server;
+    private Thread serverThread;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new SumServer(new InetSocketAddress("localhost", 0));
+        serverThread = new Thread(() -> {
+            try {
+                server.run();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        serverThread.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.close();
+        serverThread.join(5000);
+    }
+
+    @Test
+    public void testRepliesWithSums() throws Exception {
+        try (Client client = new Client()) {
+            client.send("a: 5\nb: 3\njunk\n");
+
+            assertThat(client.readLine(), equalTo("Sum: 5"));
+            assertThat(client.readLine(), equalTo("Sum: 8"));
+            assertThat(client.readLine(), equalTo("Error: Invalid input"));
+        }
+    }
+
+    @Test
+    public void testEachConnectionHasItsOwnModel() throws Exception {
+        try (Client first = new Client(); Client second = new Client()) {
+            first.send("a: 5\n");
+            second.send("a: 7\n");
+            first.send("b: 1\n");
+
+            assertThat(first.readLine(), equalTo("Sum: 5"));
+            assertThat(second.readLine(), equalTo("Sum: 7"));
+            assertThat(first.readLine(), equalTo("Sum: 6"));
+        }
+    }
+
+    @Test
+    public void testLinesSplitAcrossWrites() throws Exception {
+        try (Client client = new Client()) {
+            client.send("a: 1");
+            Thread.sleep(50);
+            client.send("23\r\n");
+
+            assertThat(client.readLine(), equalTo("Sum: 123"));
+        }
+    }
+
+    @Test
+    public void testQuitClosesTheConnection() throws Exception {
+        try (Client client = new Client()) {
+            client.send("a: 2\nquit\nb: 3\n");
+
+            assertThat(client.readLine(), equalTo("Sum: 2"));
+            assertThat(client.readLine(), nullValue());
+        }
+    }
+
+    @Test
+    public void testManyRepliesArriveInOrder() throws Exception {
+        try (Client client = new Client()) {
+            StringBuilder lines = new StringBuilder();
+            for (int i = 1; i <= 20000; i++) {
+                lines.append("a: ").append(i).append('\n');
+            }
+            client.send(lines.toString());
+
+            for (int i = 1; i <= 20000; i++) {
+                assertThat(client.readLine(), equalTo("Sum: " + i));
+            }
+        }
+    }
+
+    @Test
+    public void testErrorReplyAtTheEndOfTheReplyBuffer() throws Exception {
+        // leaves 20 bytes of the 64 KB reply buffer before the last error reply, which needs 21
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < 4; i++) {
+            lines.append("junk\n");
+        }
+        for (int i = 0; i < 8179; i++) {
+            lines.append(i % 2 == 0 ? "a: 10\n" : "a: 11\n");
+        }
+        lines.append("junk\n");
+
+        try (Client client = new Client()) {
+            client.send(lines.toString());
+
+            for (int i = 0; i < 4; i++) {
+                assertThat(client.readLine(), equalTo("Error: Invalid input"));
+            }
+            for (int i = 0; i < 8179; i++) {
+                assertThat(client.readLine(), equalTo(i % 2 == 0 ? "Sum: 10" : "Sum: 11"));
+            }
+            assertThat(client.readLine(), equalTo("Error: Invalid input"));
+        }
+        try (Client client = new Client()) {
+            client.send("a: 1\n");
+
+            assertThat(client.readLine(), equalTo("Sum: 1"));
+        }
+    }
+
+    @Test
+    public void testVariablesPerConnectionAreCapped() throws Exception {
+        try (Client client = new Client()) {
+            StringBuilder lines = new StringBuilder();
+            // a and b are already defined
+            int defined = SumServer.MAX_VARIABLES - 2;
+            for (int i = 0; i < defined; i++) {
+                lines.append('v').append(i).append(": 1\n");
+            }
+            lines.append("extra: 1\nv0: 2\n");
+            client.send(lines.toString());
+
+            for (int i = 1; i <= defined; i++) {
+                assertThat(client.readLine(), equalTo("Sum: " + i));
+            }
+            assertThat(client.readLine(), equalTo("Error: Invalid input"));
+            assertThat(client.readLine(), equalTo("Sum: " + (defined + 1)));
+        }
+    }
+
+    private class Client implements AutoCloseable {
+        private final Socket socket;
+        private final OutputStream output;
+        private final BufferedReader input;
+
+        Client() throws Exception {
+            socket = new Socket("localhost", server.getAddress().getPort());
+            socket.setSoTimeout(5000);
+            output = socket.getOutputStream();
+            input = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+        }
+
+        void send(String text) throws Exception {
+            output.write(text.getBytes(StandardCharsets.US_ASCII));
+            output.flush();
+        }
+
+        String readLine() throws Exception {
+            return input.readLine();
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}
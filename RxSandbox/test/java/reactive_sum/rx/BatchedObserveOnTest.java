@@ -0,0 +1,112 @@
+package reactive_sum.rx;
+
+import org.junit.Test;
+import rx.Observable;
+import rx.observers.TestSubscriber;
+import rx.schedulers.Schedulers;
+import rx.subjects.PublishSubject;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.StringStartsWith.startsWith;
+import static org.junit.Assert.assertTrue;
+
+public class BatchedObserveOnTest {
+
+    private final TestSubscriber<Integer> ts = new TestSubscriber<>();
+
+    @Test
+    public void testDeliversEveryItemInOrderOnTheScheduler() throws Exception {
+        AtomicBoolean inOrder = new AtomicBoolean(true);
+        int[] expected = {1};
+        Observable.range(1, 1_000_000)
+                  .lift(new BatchedObserveOn<>(Schedulers.computation()))
+                  .doOnNext(i -> {
+                      if (i != expected[0]++) {
+                          inOrder.set(false);
+                      }
+                  })
+                  .subscribe(ts);
+
+        ts.awaitTerminalEvent(10, TimeUnit.SECONDS);
+        ts.assertCompleted();
+        assertThat(ts.getOnNextEvents().size(), equalTo(1_000_000));
+        assertTrue(inOrder.get());
+        assertThat(ts.getLastSeenThread().getName(), startsWith("RxComputationScheduler-"));
+    }
+
+    @Test
+    public void testHonoursDownstreamRequests() throws Exception {
+        TestSubscriber<Integer> slow = new TestSubscriber<>(0);
+        Observable.range(1, 10_000).lift(new BatchedObserveOn<>(Schedulers.computation())).subscribe(slow);
+
+        slow.requestMore(3);
+        Thread.sleep(100);
+        slow.assertValues(1, 2, 3);
+
+        slow.requestMore(Long.MAX_VALUE);
+        slow.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        slow.assertCompleted();
+        assertThat(slow.getOnNextEvents().size(), equalTo(10_000));
+    }
+
+    @Test
+    public void testDeliversNulls() throws Exception {
+        Observable.just(1, null, 3).lift(new BatchedObserveOn<>(Schedulers.computation())).subscribe(ts);
+
+        ts.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        ts.assertValues(1, null, 3);
+    }
+
+    @Test
+    public void testDeliversErrors() throws Exception {
+        Observable.<Integer>error(new IllegalStateException())
+                  .lift(new BatchedObserveOn<>(Schedulers.computation()))
+                  .subscribe(ts);
+
+        ts.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        ts.assertError(IllegalStateException.class);
+    }
+
+    @Test
+    public void testSlowSourceIsNotHeldBack() throws Exception {
+        PublishSubject<Integer> subject = PublishSubject.create();
+        CountDownLatch received = new CountDownLatch(1);
+        subject.lift(new BatchedObserveOn<>(Schedulers.computation()))
+               .subscribe(i -> received.countDown());
+
+        for (int i = 0; i < 100; i++) {
+            subject.onNext(i);
+        }
+        Thread.sleep(50);
+        CountDownLatch late = new CountDownLatch(1);
+        subject.lift(new BatchedObserveOn<>(Schedulers.computation(), 1024, 1, TimeUnit.MILLISECONDS))
+               .subscribe(i -> late.countDown());
+        subject.onNext(100);
+
+        assertTrue(received.await(1, TimeUnit.SECONDS));
+        assertTrue(late.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testStopsWhenUnsubscribed() throws Exception {
+        Observable.interval(1, TimeUnit.MILLISECONDS)
+                  .map(Long::intValue)
+                  .lift(new BatchedObserveOn<>(Schedulers.computation()))
+                  .take(5)
+                  .subscribe(ts);
+
+        ts.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        ts.assertValues(0, 1, 2, 3, 4);
+        ts.assertCompleted();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBufferSizeMustBeAPowerOfTwo() throws Exception {
+        new BatchedObserveOn<Integer>(Schedulers.computation(), 1000, 1, TimeUnit.MILLISECONDS);
+    }
+}
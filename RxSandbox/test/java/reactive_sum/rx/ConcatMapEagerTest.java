@@ -0,0 +1,154 @@
+package reactive_sum.rx;
+
+import org.junit.Test;
+import rx.Observable;
+import rx.observers.TestSubscriber;
+import rx.schedulers.Schedulers;
+import rx.subjects.PublishSubject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ConcatMapEagerTest {
+
+    @Test
+    public void testCombineListsInOrder() throws Exception {
+        TestSubscriber<Integer> ts = new TestSubscriber<>();
+        Observable.just(Arrays.asList(1, 2, 3), Arrays.asList(4, 5, 6))
+                  .lift(new ConcatMapEager<List<Integer>, Integer>(Observable::from))
+                  .subscribe(ts);
+
+        ts.assertValues(1, 2, 3, 4, 5, 6);
+        ts.assertCompleted();
+    }
+
+    @Test
+    public void testKeepsSourceOrderWhenLaterInnersFinishFirst() throws Exception {
+        TestSubscriber<Integer> ts = new TestSubscriber<>();
+        Observable.range(0, 20)
+                  .lift(new ConcatMapEager<Integer, Integer>(
+                          i -> Observable.range(i * 10, 10).delay(20 - i, TimeUnit.MILLISECONDS), 8, 80))
+                  .subscribe(ts);
+
+        ts.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        ts.assertValueCount(200);
+        for (int i = 0; i < 200; i++) {
+            assertThat(ts.getOnNextEvents().get(i), equalTo(i));
+        }
+    }
+
+    @Test
+    public void testSubscribesToInnersEagerly() throws Exception {
+        List<PublishSubject<Integer>> subjects = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            subjects.add(PublishSubject.create());
+        }
+        TestSubscriber<Integer> ts = new TestSubscriber<>();
+        Observable.range(0, 5).lift(new ConcatMapEager<Integer, Integer>(subjects::get, 3, 30)).subscribe(ts);
+
+        assertTrue(subjects.get(2).hasObservers());
+        assertFalse(subjects.get(3).hasObservers());
+
+        subjects.get(1).onNext(10);
+        subjects.get(1).onCompleted();
+        ts.assertNoValues();
+
+        subjects.get(0).onNext(0);
+        ts.assertValues(0);
+        subjects.get(0).onCompleted();
+        ts.assertValues(0, 10);
+        // two slots freed up
+        assertTrue(subjects.get(4).hasObservers());
+    }
+
+    @Test
+    public void testBoundsConcurrency() throws Exception {
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        TestSubscriber<Integer> ts = new TestSubscriber<>();
+        Observable.range(0, 50)
+                  .lift(new ConcatMapEager<Integer, Integer>(
+                          i -> Observable.just(i)
+                                         .delay(1, TimeUnit.MILLISECONDS, Schedulers.io())
+                                         .doOnSubscribe(() -> maxActive.accumulateAndGet(active.incrementAndGet(), Math::max))
+                                         .doOnTerminate(active::decrementAndGet), 4, 16))
+                  .subscribe(ts);
+
+        ts.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        ts.assertValueCount(50);
+        assertThat(maxActive.get(), lessThanOrEqualTo(4));
+    }
+
+    @Test
+    public void testBoundsBufferedItems() throws Exception {
+        AtomicLong requestedFromWaiting = new AtomicLong();
+        PublishSubject<Integer> head = PublishSubject.create();
+        TestSubscriber<Integer> ts = new TestSubscriber<>();
+        Observable.range(0, 2)
+                  .lift(new ConcatMapEager<Integer, Integer>(
+                          i -> i == 0 ? head : Observable.range(0, 1000).doOnRequest(requestedFromWaiting::addAndGet), 2, 64))
+                  .subscribe(ts);
+
+        ts.assertNoValues();
+        assertThat(requestedFromWaiting.get(), equalTo(32L));
+
+        head.onCompleted();
+        ts.assertValueCount(1000);
+        ts.assertCompleted();
+    }
+
+    @Test
+    public void testBackpressure() throws Exception {
+        TestSubscriber<Integer> ts = new TestSubscriber<>(0);
+        Observable.range(0, 10)
+                  .lift(new ConcatMapEager<Integer, Integer>(i -> Observable.range(i * 100, 100), 4, 64))
+                  .subscribe(ts);
+
+        ts.assertNoValues();
+        ts.requestMore(150);
+        ts.assertValueCount(150);
+        assertThat(ts.getOnNextEvents().get(149), equalTo(149));
+
+        ts.requestMore(Long.MAX_VALUE);
+        ts.assertValueCount(1000);
+        ts.assertCompleted();
+    }
+
+    @Test
+    public void testInnerErrorCancelsTheOthers() throws Exception {
+        PublishSubject<Integer> head = PublishSubject.create();
+        PublishSubject<Integer> failing = PublishSubject.create();
+        TestSubscriber<Integer> ts = new TestSubscriber<>();
+        Observable.just(head, failing).lift(new ConcatMapEager<PublishSubject<Integer>, Integer>(s -> s)).subscribe(ts);
+
+        head.onNext(1);
+        failing.onError(new IllegalStateException("boom"));
+
+        ts.assertValues(1);
+        ts.assertError(IllegalStateException.class);
+        assertFalse(head.hasObservers());
+    }
+
+    @Test
+    public void testUnsubscribeCancelsInners() throws Exception {
+        PublishSubject<Integer> first = PublishSubject.create();
+        PublishSubject<Integer> second = PublishSubject.create();
+        TestSubscriber<Integer> ts = new TestSubscriber<>();
+        Observable.just(first, second).lift(new ConcatMapEager<PublishSubject<Integer>, Integer>(s -> s)).subscribe(ts);
+
+        ts.unsubscribe();
+
+        assertFalse(first.hasObservers());
+        assertFalse(second.hasObservers());
+    }
+}
@@ -0,0 +1,199 @@
+package reactive_sum.rx;
+
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import rx.Subscriber;
+import rx.Subscription;
+import rx.observers.TestSubscriber;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class FanoutBehaviorSubjectTest {
+
+    private final FanoutBehaviorSubject<String> subject = FanoutBehaviorSubject.create();
+    private final TestSubscriber<String> subscriber = new TestSubscriber<>();
+
+    @Test
+    public void testIGetMostRecentNotification() throws Exception {
+        subject.onNext("hi");
+
+        subject.subscribe(subscriber);
+
+        assertThat(subscriber.getOnNextEvents(), Matchers.contains("hi"));
+    }
+
+    @Test
+    public void testSubscriberOnlyGetsMostRecentNotification() throws Exception {
+        subject.onNext("hi");
+        subject.onNext("bye");
+
+        subject.subscribe(subscriber);
+
+        assertThat(subscriber.getOnNextEvents(), Matchers.contains("bye"));
+    }
+
+    @Test
+    public void testTwoSubscribers() throws Exception {
+        TestSubscriber<String> sub2 = new TestSubscriber<>();
+        subject.onNext("hi");
+        subject.subscribe(subscriber);
+        subject.onNext("there");
+        subject.subscribe(sub2);
+        subject.onNext("foo");
+
+        assertThat(subscriber.getOnNextEvents(), Matchers.contains("hi", "there", "foo"));
+        assertThat(sub2.getOnNextEvents(), Matchers.contains("there", "foo"));
+    }
+
+    @Test
+    public void testStoreLatestErrorNotificationAndNotLatestOnNextNotification() throws Exception {
+        RuntimeException omg = new RuntimeException("omg");
+        subject.onNext("hi");
+        subject.onError(omg);
+
+        subject.subscribe(subscriber);
+
+        assertThat(subscriber.getOnNextEvents(), Matchers.empty());
+        assertThat(subscriber.getOnErrorEvents(), Matchers.contains(omg));
+        assertThat(subject.getThrowable(), equalTo(omg));
+        assertNull(subject.getValue());
+    }
+
+    @Test
+    public void testDefaultValue() throws Exception {
+        FanoutBehaviorSubject<String> withDefault = FanoutBehaviorSubject.create("default");
+        assertThat(withDefault.getValue(), equalTo("default"));
+
+        withDefault.subscribe(subscriber);
+        withDefault.onNext("next");
+
+        assertThat(subscriber.getOnNextEvents(), Matchers.contains("default", "next"));
+    }
+
+    @Test
+    public void testCompleted() throws Exception {
+        subject.subscribe(subscriber);
+        subject.onNext("hi");
+        subject.onCompleted();
+        subject.onNext("ignored");
+        TestSubscriber<String> late = new TestSubscriber<>();
+        subject.subscribe(late);
+
+        subscriber.assertValue("hi");
+        subscriber.assertCompleted();
+        late.assertNoValues();
+        late.assertCompleted();
+        assertTrue(subject.hasCompleted());
+        assertFalse(subject.hasObservers());
+    }
+
+    @Test
+    public void testUnsubscribe() throws Exception {
+        Subscription first = subject.subscribe(subscriber);
+        TestSubscriber<String> sub2 = new TestSubscriber<>();
+        subject.subscribe(sub2);
+        subject.onNext("hi");
+        first.unsubscribe();
+        subject.onNext("there");
+
+        subscriber.assertValue("hi");
+        assertThat(sub2.getOnNextEvents(), Matchers.contains("hi", "there"));
+        sub2.unsubscribe();
+        assertFalse(subject.hasObservers());
+    }
+
+    @Test
+    public void testChurnWhileEmitting() throws Exception {
+        FanoutBehaviorSubject<Integer> numbers = FanoutBehaviorSubject.create(0);
+        AtomicReference<String> failure = new AtomicReference<>();
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicInteger checked = new AtomicInteger();
+        List<Thread> churners = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            churners.add(new Thread(() -> {
+                while (!stop.get()) {
+                    SequenceChecker checker = new SequenceChecker(failure);
+                    numbers.subscribe(checker);
+                    Thread.yield();
+                    checker.unsubscribe();
+                    checked.incrementAndGet();
+                }
+            }));
+        }
+        SequenceChecker steady = new SequenceChecker(failure);
+        numbers.subscribe(steady);
+        churners.forEach(Thread::start);
+
+        for (int i = 1; i <= 200_000; i++) {
+            numbers.onNext(i);
+        }
+        stop.set(true);
+        for (Thread churner : churners) {
+            churner.join(5000);
+        }
+
+        assertNull(failure.get());
+        assertThat(steady.last, equalTo(200_000));
+        assertThat(checked.get(), Matchers.greaterThan(0));
+    }
+
+    @Test
+    public void testManySubscribers() throws Exception {
+        FanoutBehaviorSubject<Integer> numbers = FanoutBehaviorSubject.create();
+        CountDownLatch done = new CountDownLatch(10_000);
+        for (int i = 0; i < 10_000; i++) {
+            numbers.filter(n -> n == 99).subscribe(n -> done.countDown());
+        }
+        for (int i = 0; i < 100; i++) {
+            numbers.onNext(i);
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Expects consecutive numbers from whatever it gets first, one call at a time.
+     */
+    private static class SequenceChecker extends Subscriber<Integer> {
+        private final AtomicReference<String> failure;
+        private final AtomicBoolean inOnNext = new AtomicBoolean();
+        volatile int last = -1;
+
+        SequenceChecker(AtomicReference<String> failure) {
+            this.failure = failure;
+        }
+
+        @Override
+        public void onNext(Integer value) {
+            if (!inOnNext.compareAndSet(false, true)) {
+                failure.compareAndSet(null, "concurrent onNext");
+            }
+            if (last >= 0 && value != last + 1) {
+                failure.compareAndSet(null, "got " + value + " after " + last);
+            }
+            last = value;
+            inOnNext.set(false);
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            failure.compareAndSet(null, e.toString());
+        }
+
+        @Override
+        public void onCompleted() {
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package reactive_sum.rx;
+
+import org.junit.Test;
+import rx.Observable;
+import rx.observers.TestSubscriber;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.IsEqual.equalTo;
+
+public class FusedChainTest {
+
+    @Test
+    public void testScalarMapChain() throws Exception {
+        TestSubscriber<Integer> ts = new TestSubscriber<>();
+        FusedChain.just("Hi!").map(String::length).map(length -> length * 10).toObservable().subscribe(ts);
+
+        ts.assertValue(30);
+        ts.assertCompleted();
+    }
+
+    @Test
+    public void testAdjacentMapsCollapseIntoOneStage() throws Exception {
+        FusedChain<Integer> chain = FusedChain.just(1).map(i -> i + 1).map(i -> i * 2).map(i -> i - 1);
+        assertThat(chain.getStageCount(), equalTo(1));
+
+        FusedChain<Integer> filtered = chain.filter(i -> i > 0).map(i -> i + 1).map(i -> i + 1);
+        assertThat(filtered.getStageCount(), equalTo(3));
+    }
+
+    @Test
+    public void testFilteredScalarCompletesEmpty() throws Exception {
+        TestSubscriber<Integer> ts = new TestSubscriber<>();
+        FusedChain.just(3).filter(i -> i > 5).map(i -> i * 2).toObservable().subscribe(ts);
+
+        ts.assertNoValues();
+        ts.assertCompleted();
+    }
+
+    @Test
+    public void testScalarChainRunsOnEverySubscribe() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        Observable<Integer> observable = FusedChain.just(2).map(i -> calls.incrementAndGet() + i).toObservable();
+        assertThat(calls.get(), equalTo(0));
+
+        TestSubscriber<Integer> first = new TestSubscriber<>();
+        TestSubscriber<Integer> second = new TestSubscriber<>();
+        observable.subscribe(first);
+        observable.subscribe(second);
+
+        first.assertValue(3);
+        second.assertValue(4);
+    }
+
+    @Test
+    public void testScalarHonoursBackpressure() throws Exception {
+        TestSubscriber<Integer> ts = new TestSubscriber<>(0);
+        FusedChain.just(1).map(i -> i + 1).toObservable().subscribe(ts);
+        ts.assertNoValues();
+
+        ts.requestMore(1);
+        ts.assertValue(2);
+        ts.assertCompleted();
+    }
+
+    @Test
+    public void testErrorInStageIsDelivered() throws Exception {
+        TestSubscriber<Integer> ts = new TestSubscriber<>();
+        FusedChain.just(0).map(i -> 10 / i).toObservable().subscribe(ts);
+
+        ts.assertError(ArithmeticException.class);
+    }
+
+    @Test
+    public void testNonScalarSourceRunsStagesInOneOperator() throws Exception {
+        TestSubscriber<String> ts = new TestSubscriber<>();
+        FusedChain.from(Observable.range(1, 10))
+                  .map(i -> i * 3)
+                  .filter(i -> i % 2 == 0)
+                  .map(i -> "#" + i)
+                  .toObservable()
+                  .subscribe(ts);
+
+        ts.assertValues("#6", "#12", "#18", "#24", "#30");
+        ts.assertCompleted();
+    }
+
+    @Test
+    public void testNonScalarFilterRequestsReplacements() throws Exception {
+        TestSubscriber<Integer> ts = new TestSubscriber<>(2);
+        FusedChain.from(Observable.range(1, 100)).filter(i -> i % 10 == 0).toObservable().subscribe(ts);
+
+        ts.assertValues(10, 20);
+        ts.assertNotCompleted();
+    }
+}
@@ -0,0 +1,212 @@
+package reactive_sum.rx;
+
+import org.hamcrest.Matchers;
+import org.junit.After;
+import org.junit.Test;
+import rx.Observable;
+import rx.Scheduler;
+import rx.Subscription;
+import rx.exceptions.OnErrorNotImplementedException;
+import rx.observers.TestSubscriber;
+import rx.subjects.PublishSubject;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class HashedWheelSchedulerTest {
+
+    private final HashedWheelScheduler scheduler = new HashedWheelScheduler(1, TimeUnit.MILLISECONDS, 64, null);
+
+    @After
+    public void tearDown() throws Exception {
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void testInterval() throws Exception {
+        TestSubscriber<Long> ts = new TestSubscriber<>();
+        Observable.interval(10, TimeUnit.MILLISECONDS, scheduler).take(5).subscribe(ts);
+
+        ts.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        ts.assertValues(0L, 1L, 2L, 3L, 4L);
+        ts.assertCompleted();
+    }
+
+    @Test
+    public void testDelayedActionNeverRunsEarly() throws Exception {
+        Scheduler.Worker worker = scheduler.createWorker();
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicLong ranAfter = new AtomicLong();
+        long start = System.nanoTime();
+        // more than a turn of the 64-tick wheel away
+        worker.schedule(() -> {
+            ranAfter.set(System.nanoTime() - start);
+            done.countDown();
+        }, 150, TimeUnit.MILLISECONDS);
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertThat(ranAfter.get(), Matchers.greaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(150)));
+        worker.unsubscribe();
+    }
+
+    @Test
+    public void testCancelledTimerDoesNotRun() throws Exception {
+        Scheduler.Worker worker = scheduler.createWorker();
+        AtomicBoolean ran = new AtomicBoolean();
+        CountDownLatch done = new CountDownLatch(1);
+        Subscription timer = worker.schedule(() -> ran.set(true), 20, TimeUnit.MILLISECONDS);
+        worker.schedule(done::countDown, 50, TimeUnit.MILLISECONDS);
+        timer.unsubscribe();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertFalse(ran.get());
+        assertTrue(timer.isUnsubscribed());
+        worker.unsubscribe();
+    }
+
+    @Test
+    public void testWorkerRunsActionsInOrder() throws Exception {
+        Scheduler.Worker worker = scheduler.createWorker();
+        List<Integer> order = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(1);
+        for (int i = 0; i < 1000; i++) {
+            int value = i;
+            worker.schedule(() -> order.add(value));
+        }
+        worker.schedule(done::countDown);
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 1000; i++) {
+            assertThat(order.get(i), equalTo(i));
+        }
+        worker.unsubscribe();
+    }
+
+    @Test
+    public void testUnsubscribedWorkerDropsPendingTimers() throws Exception {
+        Scheduler.Worker worker = scheduler.createWorker();
+        AtomicBoolean ran = new AtomicBoolean();
+        worker.schedule(() -> ran.set(true), 20, TimeUnit.MILLISECONDS);
+        worker.unsubscribe();
+
+        Thread.sleep(100);
+        assertFalse(ran.get());
+    }
+
+    @Test
+    public void testTaskErrorsReachTheUncaughtExceptionHandler() throws Exception {
+        List<Throwable> uncaught = new CopyOnWriteArrayList<>();
+        ExecutorService pool = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task);
+            thread.setDaemon(true);
+            thread.setUncaughtExceptionHandler((t, e) -> uncaught.add(e));
+            return thread;
+        });
+        HashedWheelScheduler reporting = new HashedWheelScheduler(1, TimeUnit.MILLISECONDS, 64, pool);
+        Scheduler.Worker worker = reporting.createWorker();
+        IllegalStateException failure = new IllegalStateException("boom");
+        OnErrorNotImplementedException notImplemented = new OnErrorNotImplementedException(failure);
+        CountDownLatch done = new CountDownLatch(1);
+        try {
+            worker.schedule(() -> {
+                throw failure;
+            });
+            worker.schedule(() -> {
+                throw notImplemented;
+            }, 10, TimeUnit.MILLISECONDS);
+            worker.schedule(done::countDown, 20, TimeUnit.MILLISECONDS);
+
+            // the worker keeps running actions after reporting the errors
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertThat(uncaught, Matchers.contains((Throwable) failure, notImplemented));
+        } finally {
+            reporting.shutdown();
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testRejectingExecutorDoesNotStopTheTicker() throws Exception {
+        AtomicBoolean reject = new AtomicBoolean(true);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        HashedWheelScheduler rejecting = new HashedWheelScheduler(1, TimeUnit.MILLISECONDS, 64, task -> {
+            if (reject.getAndSet(false)) {
+                throw new RejectedExecutionException();
+            }
+            pool.execute(task);
+        });
+        Scheduler.Worker rejected = rejecting.createWorker();
+        Scheduler.Worker worker = rejecting.createWorker();
+        CountDownLatch done = new CountDownLatch(1);
+        try {
+            // rejected on the ticker thread
+            rejected.schedule(() -> { }, 10, TimeUnit.MILLISECONDS);
+            worker.schedule(done::countDown, 30, TimeUnit.MILLISECONDS);
+
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertTrue(rejected.isUnsubscribed());
+        } finally {
+            rejecting.shutdown();
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testUnsubscribedWorkerCancelsItsTimers() throws Exception {
+        Scheduler.Worker worker = scheduler.createWorker();
+        Subscription timer = worker.schedule(() -> { }, 1, TimeUnit.HOURS);
+        Subscription fired = worker.schedule(() -> { }, 1, TimeUnit.MILLISECONDS);
+        Thread.sleep(50);
+
+        worker.unsubscribe();
+        assertTrue(timer.isUnsubscribed());
+        assertTrue(fired.isUnsubscribed());
+        assertTrue(worker.schedule(() -> { }, 1, TimeUnit.HOURS).isUnsubscribed());
+    }
+
+    @Test
+    public void testManyTimersAllFire() throws Exception {
+        int count = 20_000;
+        CountDownLatch done = new CountDownLatch(count);
+        for (int i = 0; i < count; i++) {
+            scheduler.createWorker().schedule(done::countDown, 1 + i % 200, TimeUnit.MILLISECONDS);
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        TestSubscriber<Integer> ts = new TestSubscriber<>();
+        PublishSubject<Integer> subject = PublishSubject.create();
+        subject.timeout(30, TimeUnit.MILLISECONDS, scheduler).subscribe(ts);
+        subject.onNext(1);
+
+        ts.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        ts.assertValue(1);
+        ts.assertError(TimeoutException.class);
+    }
+
+    @Test
+    public void testPicksUpAfterSleeping() throws Exception {
+        TestSubscriber<Long> ts = new TestSubscriber<>();
+        Thread.sleep(50);
+        Observable.timer(10, TimeUnit.MILLISECONDS, scheduler).subscribe(ts);
+
+        ts.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        ts.assertValue(0L);
+    }
+}
@@ -0,0 +1,145 @@
+package reactive_sum.rx;
+
+import org.junit.Test;
+import rx.Observable;
+import rx.observers.TestSubscriber;
+import rx.schedulers.Schedulers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.IsEqual.equalTo;
+
+public class IndexedFlatMapIterableTest {
+
+    @Test
+    public void testCombineLists() throws Exception {
+        TestSubscriber<Integer> ts = new TestSubscriber<>();
+        Observable.just(Arrays.asList(1, 2, 3), Arrays.asList(4, 5, 6))
+                  .lift(IndexedFlatMapIterable.<List<Integer>, Integer>iterable(ii -> ii))
+                  .subscribe(ts);
+
+        ts.assertValues(1, 2, 3, 4, 5, 6);
+        ts.assertCompleted();
+    }
+
+    @Test
+    public void testArrays() throws Exception {
+        TestSubscriber<String> ts = new TestSubscriber<>();
+        Observable.just("a b", "", "c d e")
+                  .lift(IndexedFlatMapIterable.<String, String>array(s -> s.isEmpty() ? new String[0] : s.split(" ")))
+                  .subscribe(ts);
+
+        ts.assertValues("a", "b", "c", "d", "e");
+        ts.assertCompleted();
+    }
+
+    @Test
+    public void testIterablesThatAreNotRandomAccess() throws Exception {
+        TestSubscriber<Integer> ts = new TestSubscriber<>();
+        Observable.just(new LinkedList<>(Arrays.asList(1, 2)), Collections.<Integer>emptySet(), Collections.singleton(3))
+                  .lift(IndexedFlatMapIterable.<Iterable<Integer>, Integer>iterable(ii -> ii))
+                  .subscribe(ts);
+
+        ts.assertValues(1, 2, 3);
+        ts.assertCompleted();
+    }
+
+    @Test
+    public void testEmitsOnlyWhatIsRequested() throws Exception {
+        List<Integer> chunk = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            chunk.add(i);
+        }
+        TestSubscriber<Integer> ts = new TestSubscriber<>(0);
+        Observable.just(chunk, chunk, chunk)
+                  .lift(IndexedFlatMapIterable.<List<Integer>, Integer>iterable(ii -> ii))
+                  .subscribe(ts);
+
+        ts.assertNoValues();
+        ts.requestMore(3);
+        ts.assertValues(0, 1, 2);
+        ts.requestMore(12);
+        ts.assertValueCount(15);
+        assertThat(ts.getOnNextEvents().get(14), equalTo(4));
+        ts.assertNotCompleted();
+
+        ts.requestMore(15);
+        ts.assertValueCount(30);
+        ts.assertCompleted();
+    }
+
+    @Test
+    public void testUnboundedRequestAfterABoundedOne() throws Exception {
+        TestSubscriber<Integer> ts = new TestSubscriber<>(3);
+        Observable.just(Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8, 9, 10))
+                  .lift(IndexedFlatMapIterable.<List<Integer>, Integer>iterable(ii -> ii))
+                  .subscribe(ts);
+
+        ts.assertValues(1, 2, 3);
+        ts.requestMore(Long.MAX_VALUE);
+        ts.assertValues(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+        ts.assertCompleted();
+    }
+
+    @Test
+    public void testUnboundedRequestAfterABoundedOneOverAnArray() throws Exception {
+        TestSubscriber<String> ts = new TestSubscriber<>(2);
+        Observable.just("a b c d e")
+                  .lift(IndexedFlatMapIterable.<String, String>array(s -> s.split(" ")))
+                  .subscribe(ts);
+
+        ts.assertValues("a", "b");
+        ts.requestMore(Long.MAX_VALUE);
+        ts.assertValues("a", "b", "c", "d", "e");
+        ts.assertCompleted();
+    }
+
+    @Test
+    public void testAsyncSourceWithManyChunks() throws Exception {
+        TestSubscriber<Integer> ts = new TestSubscriber<>();
+        Observable.range(0, 1000)
+                  .observeOn(Schedulers.computation())
+                  .lift(IndexedFlatMapIterable.<Integer, Integer>iterable(i -> Arrays.asList(i * 3, i * 3 + 1, i * 3 + 2)))
+                  .subscribe(ts);
+
+        ts.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        ts.assertValueCount(3000);
+        for (int i = 0; i < 3000; i++) {
+            assertThat(ts.getOnNextEvents().get(i), equalTo(i));
+        }
+    }
+
+    @Test
+    public void testMapperError() throws Exception {
+        TestSubscriber<Integer> ts = new TestSubscriber<>();
+        Observable.just(1, 2)
+                  .lift(IndexedFlatMapIterable.<Integer, Integer>iterable(i -> {
+                      if (i == 2) {
+                          throw new IllegalStateException("boom");
+                      }
+                      return Arrays.asList(i, i);
+                  }))
+                  .subscribe(ts);
+
+        ts.assertValues(1, 1);
+        ts.assertError(IllegalStateException.class);
+    }
+
+    @Test
+    public void testTakeStopsInsideAChunk() throws Exception {
+        TestSubscriber<Integer> ts = new TestSubscriber<>();
+        Observable.just(Arrays.asList(1, 2, 3, 4, 5))
+                  .lift(IndexedFlatMapIterable.<List<Integer>, Integer>iterable(ii -> ii))
+                  .take(2)
+                  .subscribe(ts);
+
+        ts.assertValues(1, 2);
+        ts.assertCompleted();
+    }
+}
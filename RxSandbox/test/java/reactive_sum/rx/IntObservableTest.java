@@ -0,0 +1,177 @@
+package reactive_sum.rx;
+
+import org.junit.Test;
+import rx.Observable;
+import rx.observers.TestSubscriber;
+import rx.schedulers.Schedulers;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsNot.not;
+
+public class IntObservableTest {
+
+    private final TestSubscriber<Integer> ts = new TestSubscriber<>();
+
+    @Test
+    public void testRangeMapFilter() throws Exception {
+        IntObservable.range(1, 10).map(i -> i * 100).filter(i -> i % 300 != 0).toObservable().subscribe(ts);
+
+        ts.assertValues(100, 200, 400, 500, 700, 800, 1000);
+        ts.assertCompleted();
+    }
+
+    @Test
+    public void testEmptyRangeCompletes() throws Exception {
+        IntObservable.range(5, 0).toObservable().subscribe(ts);
+
+        ts.assertNoValues();
+        ts.assertCompleted();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRangePastMaxValueIsRejected() throws Exception {
+        IntObservable.range(Integer.MAX_VALUE, 2);
+    }
+
+    @Test
+    public void testReduce() throws Exception {
+        IntObservable.range(1, 100).reduce(0, Integer::sum).toObservable().subscribe(ts);
+
+        ts.assertValue(5050);
+        ts.assertCompleted();
+    }
+
+    @Test
+    public void testReduceWaitsForRequest() throws Exception {
+        TestSubscriber<Integer> slow = new TestSubscriber<>(0);
+        IntObservable.range(1, 4).reduce(1, (a, b) -> a * b).toObservable().subscribe(slow);
+        slow.assertNoValues();
+
+        slow.requestMore(1);
+        slow.assertValue(24);
+        slow.assertCompleted();
+    }
+
+    @Test
+    public void testBackpressureThroughFilter() throws Exception {
+        TestSubscriber<Integer> slow = new TestSubscriber<>(3);
+        IntObservable.range(1, 1000).filter(i -> i % 2 == 0).toObservable().subscribe(slow);
+
+        slow.assertValues(2, 4, 6);
+        slow.requestMore(2);
+        slow.assertValues(2, 4, 6, 8, 10);
+        slow.assertNotCompleted();
+    }
+
+    @Test
+    public void testUnsubscribeStopsTheRange() throws Exception {
+        AtomicInteger received = new AtomicInteger();
+        IntObservable.range(0, 1_000_000).subscribe(new IntSubscriber() {
+            @Override
+            public void onNext(int value) {
+                if (received.incrementAndGet() == 5) {
+                    unsubscribe();
+                }
+            }
+
+            @Override
+            public void onError(Throwable e) {
+            }
+
+            @Override
+            public void onCompleted() {
+            }
+        });
+
+        assertThat(received.get(), equalTo(5));
+    }
+
+    @Test
+    public void testErrorInMapIsDelivered() throws Exception {
+        IntObservable.range(0, 3).map(i -> 10 / i).toObservable().subscribe(ts);
+
+        ts.assertNoValues();
+        ts.assertError(ArithmeticException.class);
+    }
+
+    @Test
+    public void testErrorInMapStopsTheSource() throws Exception {
+        AtomicInteger errors = new AtomicInteger();
+        AtomicInteger completions = new AtomicInteger();
+        IntObservable.range(0, 10).map(i -> 1 / (i - i)).subscribe(new IntSubscriber() {
+            @Override
+            public void onNext(int value) {
+            }
+
+            @Override
+            public void onError(Throwable e) {
+                errors.incrementAndGet();
+            }
+
+            @Override
+            public void onCompleted() {
+                completions.incrementAndGet();
+            }
+        });
+
+        assertThat(errors.get(), equalTo(1));
+        assertThat(completions.get(), equalTo(0));
+    }
+
+    @Test
+    public void testObserveOnKeepsOrderPastTheBuffer() throws Exception {
+        int count = IntObservable.OBSERVE_ON_BUFFER_SIZE * 100;
+        AtomicInteger mismatches = new AtomicInteger();
+        AtomicInteger expected = new AtomicInteger();
+
+        IntObservable.range(0, count)
+                     .observeOn(Schedulers.computation())
+                     .map(i -> {
+                         if (i != expected.getAndIncrement()) {
+                             mismatches.incrementAndGet();
+                         }
+                         return i;
+                     })
+                     .reduce(0, (a, b) -> a + 1)
+                     .toObservable()
+                     .subscribe(ts);
+
+        ts.awaitTerminalEvent(10, TimeUnit.SECONDS);
+        ts.assertValue(count);
+        assertThat(mismatches.get(), equalTo(0));
+        assertThat(ts.getLastSeenThread(), not(equalTo(Thread.currentThread())));
+    }
+
+    @Test
+    public void testObserveOnHonoursDownstreamRequests() throws Exception {
+        TestSubscriber<Integer> slow = new TestSubscriber<>(5);
+        IntObservable.range(0, 1000).observeOn(Schedulers.computation()).toObservable().subscribe(slow);
+
+        Thread.sleep(100);
+        slow.assertValues(0, 1, 2, 3, 4);
+        slow.requestMore(Long.MAX_VALUE);
+        slow.awaitTerminalEvent(10, TimeUnit.SECONDS);
+        assertThat(slow.getOnNextEvents().size(), equalTo(1000));
+    }
+
+    @Test
+    public void testFromObservable() throws Exception {
+        IntObservable.from(Observable.just(3, 4, 5)).map(i -> i * i).toObservable().subscribe(ts);
+
+        ts.assertValues(9, 16, 25);
+        ts.assertCompleted();
+    }
+
+    @Test
+    public void testFromObservablePassesRequestsThrough() throws Exception {
+        TestSubscriber<Integer> slow = new TestSubscriber<>(2);
+        IntObservable.from(Observable.range(1, 100)).toObservable().subscribe(slow);
+
+        slow.assertValues(1, 2);
+        slow.assertNotCompleted();
+    }
+}
@@ -0,0 +1,215 @@
+package reactive_sum.rx;
+
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import rx.Observable;
+import rx.observers.TestSubscriber;
+import rx.schedulers.Schedulers;
+import rx.schedulers.TestScheduler;
+import rx.subjects.PublishSubject;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LockFreeSwitchMapTest {
+    private final TestScheduler cancelScheduler = new TestScheduler();
+
+    @Test
+    public void testSwitch() throws Exception {
+        TestSubscriber<String> ts = new TestSubscriber<>();
+        Observable.just(Observable.just("one", "two"), Observable.just("three"))
+                  .lift(switchOnNext())
+                  .subscribe(ts);
+
+        assertThat(ts.getOnNextEvents(), Matchers.contains("one", "two", "three"));
+        ts.assertCompleted();
+    }
+
+    @Test
+    public void testSwitchKeepsGoingWhenFirstObservableCompletes() throws Exception {
+        TestSubscriber<String> ts = new TestSubscriber<>();
+        PublishSubject<Observable<String>> obsobs = PublishSubject.create();
+        PublishSubject<String> first = PublishSubject.create();
+        PublishSubject<String> second = PublishSubject.create();
+
+        obsobs.lift(switchOnNext()).subscribe(ts);
+        obsobs.onNext(first);
+        first.onNext("one");
+        first.onNext("two");
+        first.onCompleted();
+        obsobs.onNext(second);
+        second.onNext("three");
+
+        ts.assertNoErrors();
+        assertThat(ts.getOnNextEvents(), Matchers.contains("one", "two", "three"));
+        ts.assertNotCompleted();
+        obsobs.onCompleted();
+        ts.assertNotCompleted();
+        second.onCompleted();
+        ts.assertCompleted();
+    }
+
+    @Test
+    public void testSwitchStopsWhenObservableFails() throws Exception {
+        TestSubscriber<String> ts = new TestSubscriber<>();
+        PublishSubject<Observable<String>> obsobs = PublishSubject.create();
+        PublishSubject<String> first = PublishSubject.create();
+
+        obsobs.lift(switchOnNext()).subscribe(ts);
+        obsobs.onNext(first);
+        first.onNext("one");
+        Exception exception = new Exception("hi");
+        first.onError(exception);
+
+        assertThat(ts.getOnErrorEvents(), Matchers.contains(exception));
+        assertFalse(obsobs.hasObservers());
+    }
+
+    @Test
+    public void testSwitchDoesNotEmitAfterSwitch() throws Exception {
+        TestSubscriber<String> ts = new TestSubscriber<>();
+        PublishSubject<Observable<String>> obsobs = PublishSubject.create();
+        PublishSubject<String> first = PublishSubject.create();
+        PublishSubject<String> second = PublishSubject.create();
+
+        obsobs.lift(switchOnNext()).subscribe(ts);
+        obsobs.onNext(first);
+        first.onNext("one");
+        obsobs.onNext(second);
+        first.onNext("two"); // ignored
+        second.onNext("three");
+
+        ts.assertNoErrors();
+        assertThat(ts.getOnNextEvents(), Matchers.contains("one", "three"));
+    }
+
+    @Test
+    public void testCancelsReplacedInnerOnTheCancelScheduler() throws Exception {
+        LockFreeSwitchMap<Observable<String>, String> operator = switchOnNext();
+        TestSubscriber<String> ts = new TestSubscriber<>();
+        PublishSubject<Observable<String>> obsobs = PublishSubject.create();
+        PublishSubject<String> first = PublishSubject.create();
+
+        obsobs.lift(operator).subscribe(ts);
+        obsobs.onNext(first);
+        obsobs.onNext(Observable.never());
+
+        // still subscribed until the cancel scheduler gets to it
+        assertTrue(first.hasObservers());
+        cancelScheduler.triggerActions();
+        assertFalse(first.hasObservers());
+        assertThat(operator.getCancelLatency().getCount(), equalTo(1L));
+    }
+
+    @Test
+    public void testIgnoresErrorsFromReplacedInner() throws Exception {
+        TestSubscriber<String> ts = new TestSubscriber<>();
+        PublishSubject<Observable<String>> obsobs = PublishSubject.create();
+        PublishSubject<String> first = PublishSubject.create();
+        PublishSubject<String> second = PublishSubject.create();
+
+        obsobs.lift(switchOnNext()).subscribe(ts);
+        obsobs.onNext(first);
+        obsobs.onNext(second);
+        first.onError(new Exception("stale"));
+        second.onNext("one");
+
+        ts.assertNoErrors();
+        ts.assertValue("one");
+    }
+
+    @Test
+    public void testUnsubscribeCancelsEverything() throws Exception {
+        TestSubscriber<String> ts = new TestSubscriber<>();
+        PublishSubject<Observable<String>> obsobs = PublishSubject.create();
+        PublishSubject<String> first = PublishSubject.create();
+        PublishSubject<String> second = PublishSubject.create();
+
+        obsobs.lift(switchOnNext()).subscribe(ts);
+        obsobs.onNext(first);
+        obsobs.onNext(second);
+        ts.unsubscribe();
+
+        assertFalse(obsobs.hasObservers());
+        assertFalse(first.hasObservers());
+        assertFalse(second.hasObservers());
+    }
+
+    @Test
+    public void testUnsubscribeWhileSwitchingCancelsEveryInner() throws Exception {
+        for (int round = 0; round < 200; round++) {
+            TestSubscriber<String> ts = new TestSubscriber<>();
+            PublishSubject<Observable<String>> obsobs = PublishSubject.create();
+            List<PublishSubject<String>> inners = new CopyOnWriteArrayList<>();
+            obsobs.lift(new LockFreeSwitchMap<Observable<String>, String>(o -> o, Schedulers.computation(), 128))
+                  .subscribe(ts);
+
+            Thread switcher = new Thread(() -> {
+                while (!ts.isUnsubscribed()) {
+                    PublishSubject<String> inner = PublishSubject.create();
+                    inners.add(inner);
+                    obsobs.onNext(inner);
+                }
+            });
+            switcher.start();
+            while (inners.size() < 10) {
+                Thread.yield();
+            }
+            // a switch racing the unsubscribe retires its inner after the cancel worker is gone
+            ts.unsubscribe();
+            switcher.join();
+
+            // a batch the cancel worker had already taken may still be being unsubscribed
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            for (PublishSubject<String> inner : inners) {
+                while (inner.hasObservers() && System.nanoTime() < deadline) {
+                    Thread.sleep(1);
+                }
+                assertFalse(inner.hasObservers());
+            }
+        }
+    }
+
+    @Test
+    public void testBackpressure() throws Exception {
+        TestSubscriber<Integer> ts = new TestSubscriber<>(0);
+        Observable.just(1, 2)
+                  .lift(new LockFreeSwitchMap<Integer, Integer>(i -> Observable.range(i * 1000, 1000), cancelScheduler, 16))
+                  .subscribe(ts);
+
+        // the first range was replaced before anything was requested
+        ts.requestMore(5);
+        ts.assertValues(2000, 2001, 2002, 2003, 2004);
+        ts.requestMore(Long.MAX_VALUE);
+        ts.assertValueCount(1000);
+        ts.assertCompleted();
+    }
+
+    @Test
+    public void testNeverEmitsFromAnOlderInnerAfterANewerOne() throws Exception {
+        TestSubscriber<Long> ts = new TestSubscriber<>();
+        LockFreeSwitchMap<Long, Long> operator =
+                new LockFreeSwitchMap<>(i -> Observable.interval(0, 1, TimeUnit.MICROSECONDS, Schedulers.computation())
+                                                       .take(200)
+                                                       .map(j -> i), Schedulers.computation(), 128);
+        Observable.interval(100, TimeUnit.MICROSECONDS, Schedulers.io()).take(500).lift(operator).subscribe(ts);
+
+        ts.awaitTerminalEvent(10, TimeUnit.SECONDS);
+        ts.assertNoErrors();
+        List<Long> values = ts.getOnNextEvents();
+        for (int i = 1; i < values.size(); i++) {
+            assertThat(values.get(i), Matchers.greaterThanOrEqualTo(values.get(i - 1)));
+        }
+        assertThat(operator.getCancelLatency().getCount(), Matchers.greaterThan(0L));
+    }
+
+    private LockFreeSwitchMap<Observable<String>, String> switchOnNext() {
+        return new LockFreeSwitchMap<>(o -> o, cancelScheduler, 128);
+    }
+}
@@ -0,0 +1,146 @@
+package reactive_sum.rx;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import rx.Observable;
+import rx.observers.TestSubscriber;
+import rx.plugins.RxJavaErrorHandler;
+import rx.plugins.RxJavaObservableExecutionHook;
+import rx.plugins.RxJavaPlugins;
+import rx.plugins.RxJavaSchedulersHook;
+import rx.plugins.RxJavaSingleExecutionHook;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * Needs the hook installed before Observable is loaded; the build passes
+ * rxjava.plugin.RxJavaObservableExecutionHook.implementation to the test JVM.
+ */
+public class OperatorMetricsTest {
+    private static final String PROPERTY = "rxjava.plugin.RxJavaObservableExecutionHook.implementation";
+
+    private OperatorMetrics metrics;
+
+    @Before
+    public void setUp() throws Exception {
+        metrics = OperatorMetrics.install();
+        metrics.reset();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        metrics.disable();
+        metrics.reset();
+    }
+
+    @Test
+    public void testNothingRecordedWhileDisabled() throws Exception {
+        Observable.range(1, 10).map(i -> i * 2).subscribe(new TestSubscriber<>());
+
+        assertThat(metrics.getStages(), empty());
+    }
+
+    @Test
+    public void testEveryStageOfTheChainIsCounted() throws Exception {
+        metrics.enable(1);
+        TestSubscriber<Integer> ts = new TestSubscriber<>();
+        Observable.range(1, 10).map(i -> i * 2).filter(i -> i > 10).subscribe(ts);
+
+        ts.assertValues(12, 14, 16, 18, 20);
+        OperatorMetrics.Stage map = stage("rx.internal.operators.OperatorMap");
+        OperatorMetrics.Stage filter = stage("rx.internal.operators.OperatorFilter");
+        OperatorMetrics.Stage subscriber = stage("subscriber rx.observers.TestSubscriber");
+
+        assertThat(filter.getOnNextCount(), equalTo(10L));
+        assertThat(map.getOnNextCount(), equalTo(10L));
+        assertThat(subscriber.getOnNextCount(), equalTo(5L));
+        assertThat(subscriber.getMaxDepth(), equalTo(1));
+        assertThat(filter.getMaxDepth(), equalTo(2));
+        assertThat(map.getMaxDepth(), equalTo(3));
+    }
+
+    @Test
+    public void testStagesAccumulateAcrossSubscriptions() throws Exception {
+        metrics.enable(1);
+        Observable<String> observable = Observable.just("Hi!").map(String::toUpperCase);
+        for (int i = 0; i < 5; i++) {
+            observable.subscribe(item -> { });
+        }
+
+        OperatorMetrics.Stage map = stage("rx.internal.operators.OperatorMap");
+        assertThat(map.getSubscriptions(), equalTo(5L));
+        assertThat(map.getOnNextCount(), equalTo(5L));
+        assertThat(stage("subscriber rx.internal.util.ActionSubscriber").getSubscriptions(), equalTo(5L));
+    }
+
+    @Test
+    public void testSamplingMetersOnlySomeSubscriptions() throws Exception {
+        metrics.enable(10);
+        Observable<Integer> observable = Observable.just(1).map(i -> i + 1);
+        for (int i = 0; i < 10_000; i++) {
+            observable.subscribe(new TestSubscriber<>());
+        }
+
+        long metered = stage("rx.internal.operators.OperatorMap").getSubscriptions();
+        assertThat(metered > 500 && metered < 1500, equalTo(true));
+        assertThat(stage("subscriber rx.observers.TestSubscriber").getSubscriptions(), equalTo(metered));
+    }
+
+    @Test
+    public void testExportWritesOneLinePerStage() throws Exception {
+        metrics.enable(1);
+        Observable.just(1, 2, 3).map(i -> i + 1).subscribe(new TestSubscriber<>());
+
+        StringBuilder output = new StringBuilder();
+        metrics.export(output);
+
+        String[] lines = output.toString().split("\n");
+        assertThat(lines.length, equalTo(3));
+        assertThat(lines[1], containsString("rx.internal.operators.OperatorMap\t1\t3\t"));
+    }
+
+    /**
+     * Runs install() the way an application does at startup: no hook registered and no property set.
+     * Clearing the hooks also drops the ones this JVM already uses, so they are put back afterwards.
+     */
+    @Test
+    public void testInstallWithoutTheProperty() throws Exception {
+        RxJavaPlugins plugins = RxJavaPlugins.getInstance();
+        RxJavaErrorHandler errorHandler = plugins.getErrorHandler();
+        RxJavaObservableExecutionHook observableHook = plugins.getObservableExecutionHook();
+        RxJavaSingleExecutionHook singleHook = plugins.getSingleExecutionHook();
+        RxJavaSchedulersHook schedulersHook = plugins.getSchedulersHook();
+        String property = System.clearProperty(PROPERTY);
+        plugins.reset();
+        try {
+            OperatorMetrics installed = OperatorMetrics.install();
+
+            assertThat(plugins.getObservableExecutionHook(), sameInstance((RxJavaObservableExecutionHook) installed));
+            assertThat(OperatorMetrics.install(), sameInstance(installed));
+        } finally {
+            plugins.reset();
+            plugins.registerErrorHandler(errorHandler);
+            plugins.registerObservableExecutionHook(observableHook);
+            plugins.registerSingleExecutionHook(singleHook);
+            plugins.registerSchedulersHook(schedulersHook);
+            if (property != null) {
+                System.setProperty(PROPERTY, property);
+            }
+        }
+    }
+
+    private OperatorMetrics.Stage stage(String name) {
+        List<OperatorMetrics.Stage> stages = metrics.getStages();
+        OperatorMetrics.Stage found = stages.stream().filter(stage -> stage.getName().equals(name)).findFirst().orElse(null);
+        assertNotNull(name + " not in " + stages, found);
+        return found;
+    }
+}
@@ -0,0 +1,127 @@
+package reactive_sum.rx;
+
+import org.junit.Test;
+import rx.Observable;
+import rx.observers.TestSubscriber;
+import rx.schedulers.Schedulers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.IsEqual.equalTo;
+
+public class ParallelRangeTest {
+
+    @Test
+    public void testOrderedMatchesSequential() throws Exception {
+        List<Long> expected = Observable.range(0, 100_000)
+                                        .map(i -> (long) i * i)
+                                        .filter(i -> i % 3 != 0)
+                                        .toList().toBlocking().single();
+
+        List<Long> actual = ParallelRange.range(0, 100_000, 4)
+                                         .map(i -> (long) i * i)
+                                         .filter(i -> i % 3 != 0)
+                                         .ordered()
+                                         .toList().toBlocking().single();
+
+        assertThat(actual, equalTo(expected));
+    }
+
+    @Test
+    public void testUnorderedEmitsEveryValue() throws Exception {
+        List<Integer> actual = new ArrayList<>(ParallelRange.range(1, 50_000, 8)
+                                                            .map(i -> i * 2)
+                                                            .unordered()
+                                                            .toList().toBlocking().single());
+        Collections.sort(actual);
+
+        assertThat(actual, equalTo(Observable.range(1, 50_000).map(i -> i * 2).toList().toBlocking().single()));
+    }
+
+    @Test
+    public void testFizzBuzz() throws Exception {
+        List<String> stuff = ParallelRange.range(0, 21, 3)
+                                          .map(ii -> ii % 15 == 0 ? "FizzBuzz" : ii % 3 == 0 ? "Fizz" : ii % 5 == 0 ? "Buzz" : String.valueOf(ii))
+                                          .ordered()
+                                          .toList().toBlocking().single();
+
+        assertThat(String.join(",", stuff),
+                   equalTo("FizzBuzz,1,2,Fizz,4,Buzz,Fizz,7,8,Fizz,Buzz,11,Fizz,13,14,FizzBuzz,16,17,Fizz,19,Buzz"));
+    }
+
+    @Test
+    public void testRunsOnSeveralThreads() throws Exception {
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        ParallelRange.range(0, 10 * ParallelRange.BLOCK_SIZE, 2)
+                     .runOn(Schedulers.newThread())
+                     .map(i -> threads.add(Thread.currentThread().getName()))
+                     .unordered()
+                     .toBlocking().last();
+
+        assertThat(threads.size(), equalTo(2));
+    }
+
+    @Test
+    public void testBackpressure() throws Exception {
+        TestSubscriber<Integer> ts = new TestSubscriber<>(0);
+        ParallelRange.range(0, 10_000, 4).ordered().subscribe(ts);
+
+        ts.assertNoValues();
+        ts.requestMore(5);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (ts.getOnNextEvents().size() < 5 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        Thread.sleep(50);
+        ts.assertValues(0, 1, 2, 3, 4);
+
+        ts.requestMore(Long.MAX_VALUE);
+        ts.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        ts.assertValueCount(10_000);
+        ts.assertCompleted();
+    }
+
+    @Test
+    public void testErrorAfterPrecedingValues() throws Exception {
+        TestSubscriber<Integer> ts = new TestSubscriber<>();
+        ParallelRange.range(0, 5000, 4)
+                     .map(i -> {
+                         if (i == 3000) {
+                             throw new IllegalStateException("boom");
+                         }
+                         return i;
+                     })
+                     .ordered()
+                     .subscribe(ts);
+
+        ts.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        ts.assertValueCount(3000);
+        assertThat(ts.getOnNextEvents().get(2999), equalTo(2999));
+        ts.assertError(IllegalStateException.class);
+    }
+
+    @Test
+    public void testTakeStopsTheRails() throws Exception {
+        TestSubscriber<Integer> ts = new TestSubscriber<>();
+        ParallelRange.range(0, Integer.MAX_VALUE, 4).unordered().take(10).subscribe(ts);
+
+        ts.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        ts.assertValueCount(10);
+        ts.assertCompleted();
+    }
+
+    @Test
+    public void testEmptyRange() throws Exception {
+        TestSubscriber<Integer> ts = new TestSubscriber<>();
+        ParallelRange.range(0, 0, 4).ordered().subscribe(ts);
+
+        ts.assertNoValues();
+        ts.assertCompleted();
+    }
+}
@@ -0,0 +1,116 @@
+package reactive_sum.rx;
+
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import reactive_sum.imperative.IoWrapper;
+import reactive_sum.imperative.ReactiveSum;
+import rx.Observable;
+import rx.observers.TestSubscriber;
+import rx.subjects.PublishSubject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Matchers.anyString;
+
+public class RxReactiveSumTest {
+
+    private TestSubscriber<String> ts = new TestSubscriber<>();
+
+    @Test
+    public void testSumPrintedOnFirstValueUpdated() throws Exception {
+        RxReactiveSum.sums(Observable.just("a: 7")).subscribe(ts);
+
+        assertThat(ts.getOnNextEvents(), Matchers.contains("Sum: 7"));
+    }
+
+    @Test
+    public void testSumPrintedWhenBothValuesUpdated() throws Exception {
+        RxReactiveSum.sums(Observable.just("a: 3", "b: 3")).subscribe(ts);
+
+        assertThat(ts.getOnNextEvents(), Matchers.contains("Sum: 3", "Sum: 6"));
+    }
+
+    @Test
+    public void testSumNotPrintedWhenValueUpdatedToSameNumber() throws Exception {
+        RxReactiveSum.sums(Observable.just("a: 33", "b: 1", "a: 33")).subscribe(ts);
+
+        assertThat(ts.getOnNextEvents(), Matchers.contains("Sum: 33", "Sum: 34"));
+    }
+
+    @Test
+    public void testSumNotPrintedWhileOtherValuesLastUpdateWasARepeat() throws Exception {
+        RxReactiveSum.sums(Observable.just("a: 1", "b: 0", "a: 2", "b: 5")).subscribe(ts);
+
+        assertThat(ts.getOnNextEvents(), Matchers.contains("Sum: 1", "Sum: 7"));
+    }
+
+    @Test
+    public void testErrorsInterleavedInOrder() throws Exception {
+        RxReactiveSum.sums(Observable.just("a: 1", "junkkkk", "b: 2")).subscribe(ts);
+
+        assertThat(ts.getOnNextEvents(), Matchers.contains("Sum: 1", "Error: Invalid input", "Sum: 3"));
+    }
+
+    @Test
+    public void testQuitCompletesTheStream() throws Exception {
+        PublishSubject<String> lines = PublishSubject.create();
+        RxReactiveSum.sums(lines).subscribe(ts);
+
+        lines.onNext("a: 1");
+        lines.onNext("QUIT");
+        lines.onNext("b: 1");
+
+        assertThat(ts.getOnNextEvents(), Matchers.contains("Sum: 1"));
+        ts.assertCompleted();
+        assertThat(lines.hasObservers(), equalTo(false));
+    }
+
+    @Test
+    public void testSameOutputAsImperativeReactiveSum() throws Exception {
+        assertSameOutputAsImperativeReactiveSum(generate(10000, new Random(7)));
+    }
+
+    @Test
+    public void testSameOutputAsImperativeReactiveSumBeyondIntRange() throws Exception {
+        assertSameOutputAsImperativeReactiveSum(Arrays.asList("a: " + Integer.MAX_VALUE, "b: 1"));
+
+        assertThat(ts.getOnNextEvents(), Matchers.contains("Sum: " + Integer.MAX_VALUE, "Sum: 2147483648"));
+    }
+
+    /**
+     * Lines setting a or b to a random value, with the odd invalid one in between.
+     */
+    private static List<String> generate(int count, Random random) {
+        List<String> lines = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            if (random.nextInt(100) == 0) {
+                lines.add("junk " + i);
+            } else {
+                lines.add((random.nextBoolean() ? "a: " : "b: ") + random.nextInt(16));
+            }
+        }
+        return lines;
+    }
+
+    private void assertSameOutputAsImperativeReactiveSum(List<String> lines) {
+        List<String> expected = new ArrayList<>();
+        IoWrapper ioWrapper = mock(IoWrapper.class);
+        doAnswer(invocation -> expected.add((String) invocation.getArguments()[0]))
+                .when(ioWrapper).printMessage(anyString());
+        ReactiveSum reactiveSum = new ReactiveSum();
+        for (String line : lines) {
+            reactiveSum.parseLine(line, ioWrapper);
+        }
+
+        RxReactiveSum.sums(Observable.from(lines)).subscribe(ts);
+
+        assertThat(ts.getOnNextEvents(), equalTo(expected));
+    }
+}
@@ -0,0 +1,200 @@
+package reactive_sum.rx;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import rx.Scheduler;
+import rx.Subscription;
+import rx.observers.TestSubscriber;
+import rx.plugins.RxJavaErrorHandler;
+import rx.plugins.RxJavaObservableExecutionHook;
+import rx.plugins.RxJavaPlugins;
+import rx.plugins.RxJavaSchedulersHook;
+import rx.plugins.RxJavaSingleExecutionHook;
+import rx.schedulers.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.hamcrest.Matchers.startsWith;
+import static org.hamcrest.core.IsEqual.equalTo;
+
+/**
+ * Needs the hook installed before Schedulers is loaded; the build runs this test in a JVM of its
+ * own with rxjava.plugin.RxJavaSchedulersHook.implementation set.
+ */
+public class SchedulerMetricsTest {
+    private static final String PROPERTY = "rxjava.plugin.RxJavaSchedulersHook.implementation";
+
+    private final ExecutorService first = Executors.newSingleThreadExecutor();
+    private final ExecutorService second = Executors.newSingleThreadExecutor();
+    private SchedulerMetrics metrics;
+
+    @Before
+    public void setUp() throws Exception {
+        metrics = SchedulerMetrics.install();
+        metrics.reset();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        first.shutdown();
+        second.shutdown();
+    }
+
+    @Test
+    public void testBuiltInSchedulersAreInstrumented() throws Exception {
+        TestSubscriber<Object> done = new TestSubscriber<>();
+        Scheduler.Worker io = Schedulers.io().createWorker();
+        Scheduler.Worker computation = Schedulers.computation().createWorker();
+        // observeOn may drain everything in the task scheduled from the subscribing thread, so hop
+        // from io to computation by hand
+        io.schedule(() -> computation.schedule(done::onCompleted));
+
+        done.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        io.unsubscribe();
+        computation.unsubscribe();
+        assertThat(metrics.stats("io").getRun(), greaterThanOrEqualTo(1L));
+        assertThat(metrics.stats("computation").getRun(), greaterThanOrEqualTo(1L));
+        assertThat(metrics.stats("computation").getMaxHopDepth(), greaterThanOrEqualTo(2));
+    }
+
+    @Test
+    public void testCountsHopsAlongThePipeline() throws Exception {
+        Scheduler.Worker upstreamWorker = metrics.wrap("hops-subscribeOn", Schedulers.from(first)).createWorker();
+        Scheduler.Worker downstreamWorker = metrics.wrap("hops-observeOn", Schedulers.from(second)).createWorker();
+        TestSubscriber<Object> done = new TestSubscriber<>();
+        // what subscribeOn(...).observeOn(...) does, by hand: observeOn may drain the item in the
+        // task it schedules from the subscribing thread, one hop deep
+        upstreamWorker.schedule(() -> downstreamWorker.schedule(done::onCompleted));
+
+        done.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        upstreamWorker.unsubscribe();
+        downstreamWorker.unsubscribe();
+        SchedulerMetrics.SchedulerStats upstream = metrics.stats("hops-subscribeOn");
+        SchedulerMetrics.SchedulerStats downstream = metrics.stats("hops-observeOn");
+        assertThat(upstream.getMaxHopDepth(), equalTo(1));
+        assertThat(downstream.getMaxHopDepth(), equalTo(2));
+        assertThat(downstream.getHops(), greaterThanOrEqualTo(1L));
+    }
+
+    @Test
+    public void testPendingTasks() throws Exception {
+        Scheduler.Worker worker = metrics.wrap("pending", Schedulers.from(first)).createWorker();
+        SchedulerMetrics.SchedulerStats stats = metrics.stats("pending");
+
+        Subscription cancelled = worker.schedule(() -> { }, 1, TimeUnit.HOURS);
+        worker.schedule(() -> { }, 1, TimeUnit.HOURS);
+        worker.schedule(() -> { }, 1, TimeUnit.HOURS);
+        assertThat(stats.getPending(), equalTo(3L));
+
+        cancelled.unsubscribe();
+        assertThat(stats.getPending(), equalTo(2L));
+
+        worker.unsubscribe();
+        assertThat(stats.getPending(), equalTo(0L));
+        assertThat(stats.getScheduled(), equalTo(3L));
+        assertThat(stats.getRun(), equalTo(0L));
+    }
+
+    @Test
+    public void testRecordsDelayAndRunTime() throws Exception {
+        Scheduler.Worker worker = metrics.wrap("timing", Schedulers.from(first)).createWorker();
+        TestSubscriber<Object> done = new TestSubscriber<>();
+        worker.schedule(() -> sleep(5));
+        worker.schedule(() -> { });
+        // the run time of a task is recorded after it returns, so only the first two are certain
+        worker.schedule(done::onCompleted);
+
+        done.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        SchedulerMetrics.SchedulerStats stats = metrics.stats("timing");
+        assertThat(stats.getRun(), equalTo(3L));
+        assertThat(stats.getRunTime().getCount(), greaterThanOrEqualTo(2L));
+        assertThat(stats.getRunTime().getMax(), greaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(5)));
+        // the second task waited for the first one to finish
+        assertThat(stats.getDelay().getMax(), greaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(4)));
+        worker.unsubscribe();
+    }
+
+    /**
+     * Runs install() the way an application does at startup: no hook registered and no property set.
+     * Clearing the hooks also drops the ones this JVM already uses, so they are put back afterwards.
+     */
+    @Test
+    public void testInstallWithoutTheProperty() throws Exception {
+        RxJavaPlugins plugins = RxJavaPlugins.getInstance();
+        RxJavaErrorHandler errorHandler = plugins.getErrorHandler();
+        RxJavaObservableExecutionHook observableHook = plugins.getObservableExecutionHook();
+        RxJavaSingleExecutionHook singleHook = plugins.getSingleExecutionHook();
+        RxJavaSchedulersHook schedulersHook = plugins.getSchedulersHook();
+        String property = System.clearProperty(PROPERTY);
+        plugins.reset();
+        try {
+            SchedulerMetrics installed = SchedulerMetrics.install();
+
+            assertThat(plugins.getSchedulersHook(), sameInstance((RxJavaSchedulersHook) installed));
+            assertThat(SchedulerMetrics.install(), sameInstance(installed));
+        } finally {
+            plugins.reset();
+            plugins.registerErrorHandler(errorHandler);
+            plugins.registerObservableExecutionHook(observableHook);
+            plugins.registerSingleExecutionHook(singleHook);
+            plugins.registerSchedulersHook(schedulersHook);
+            if (property != null) {
+                System.setProperty(PROPERTY, property);
+            }
+        }
+    }
+
+    @Test
+    public void testHistogramPercentiles() throws Exception {
+        SchedulerMetrics.Histogram histogram = new SchedulerMetrics.Histogram();
+        for (int i = 0; i < 99; i++) {
+            histogram.record(100);
+        }
+        histogram.record(5000);
+
+        assertThat(histogram.getCount(), equalTo(100L));
+        assertThat(histogram.getPercentile(0.5), equalTo(128L));
+        assertThat(histogram.getPercentile(0.99), equalTo(128L));
+        assertThat(histogram.getPercentile(1), equalTo(8192L));
+        assertThat(histogram.getMax(), equalTo(8192L));
+    }
+
+    @Test
+    public void testDump() throws Exception {
+        Scheduler.Worker worker = metrics.wrap("dump", Schedulers.from(first)).createWorker();
+        TestSubscriber<Object> done = new TestSubscriber<>();
+        worker.schedule(done::onCompleted);
+        done.awaitTerminalEvent(5, TimeUnit.SECONDS);
+
+        Path file = Files.createTempFile("scheduler-metrics", ".tsv");
+        try {
+            metrics.dump(file);
+            List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+            assertThat(lines.get(0), startsWith("scheduler\tscheduled\tpending\trun"));
+            assertThat(lines.stream().filter(line -> line.startsWith("dump\t1\t0\t1\t")).count(), equalTo(1L));
+            assertThat(lines.size(), greaterThan(1));
+        } finally {
+            Files.delete(file);
+            worker.unsubscribe();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
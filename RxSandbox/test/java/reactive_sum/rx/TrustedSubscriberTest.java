@@ -0,0 +1,128 @@
+package reactive_sum.rx;
+
+import org.junit.Test;
+import rx.Observable;
+import rx.Subscriber;
+import rx.Subscription;
+import rx.exceptions.OnErrorNotImplementedException;
+import rx.observers.SafeSubscriber;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TrustedSubscriberTest {
+
+    private final List<String> events = new ArrayList<>();
+
+    @Test
+    public void testSubscriberIsNotWrapped() throws Exception {
+        AtomicReference<Subscriber<?>> received = new AtomicReference<>();
+        Observable<String> observable = Observable.create(subscriber -> {
+            received.set(subscriber);
+            subscriber.onCompleted();
+        });
+
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        Subscription subscription = TrustedSubscriber.subscribe(observable, subscriber);
+
+        assertSame(subscriber, received.get());
+        assertSame(subscriber, subscription);
+        assertThat(subscription, not(instanceOf(SafeSubscriber.class)));
+    }
+
+    @Test
+    public void testUnsubscribedAfterCompleted() throws Exception {
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        TrustedSubscriber.subscribe(Observable.just("Hi!"), subscriber);
+
+        assertThat(events, contains("Hi!", "completed"));
+        assertTrue(subscriber.isUnsubscribed());
+    }
+
+    @Test
+    public void testUnsubscribedAfterError() throws Exception {
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        TrustedSubscriber.subscribe(Observable.error(new IllegalStateException("boom")), subscriber);
+
+        assertThat(events, contains("error boom"));
+        assertTrue(subscriber.isUnsubscribed());
+    }
+
+    @Test
+    public void testUnsubscribeStopsTheSource() throws Exception {
+        Subscription subscription = TrustedSubscriber.subscribe(Observable.range(1, 1000), new TrustedSubscriber<Integer>() {
+            @Override
+            public void onNext(Integer item) {
+                events.add(String.valueOf(item));
+                if (item == 3) {
+                    unsubscribe();
+                }
+            }
+        });
+
+        assertThat(events, contains("1", "2", "3"));
+        assertTrue(subscription.isUnsubscribed());
+    }
+
+    @Test
+    public void testActionSubscribe() throws Exception {
+        Subscription subscription = TrustedSubscriber.subscribe(Observable.just(1, 2).map(i -> i * 10),
+                                                                item -> events.add(String.valueOf(item)));
+
+        assertThat(events, contains("10", "20"));
+        assertTrue(subscription.isUnsubscribed());
+    }
+
+    @Test
+    public void testActionSubscribeWithoutErrorHandlerThrows() throws Exception {
+        try {
+            TrustedSubscriber.subscribe(Observable.error(new IllegalStateException("boom")), item -> { });
+            fail();
+        } catch (OnErrorNotImplementedException e) {
+            assertThat(e.getCause().getMessage(), equalTo("boom"));
+        }
+    }
+
+    @Test
+    public void testUnsubscribedEvenIfCompletedThrows() throws Exception {
+        RecordingSubscriber subscriber = new RecordingSubscriber() {
+            @Override
+            protected void completed() {
+                throw new IllegalStateException("completed failed");
+            }
+        };
+        try {
+            TrustedSubscriber.subscribe(Observable.<String>empty(), subscriber);
+        } catch (RuntimeException e) {
+            // surfaced through unsafeSubscribe's error path
+        }
+        assertTrue(subscriber.isUnsubscribed());
+    }
+
+    private class RecordingSubscriber extends TrustedSubscriber<String> {
+        @Override
+        public void onNext(String item) {
+            events.add(item);
+        }
+
+        @Override
+        protected void completed() {
+            events.add("completed");
+        }
+
+        @Override
+        protected void failed(Throwable e) {
+            events.add("error " + e.getMessage());
+        }
+    }
+}
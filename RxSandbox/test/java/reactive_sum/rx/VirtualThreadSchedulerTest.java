@@ -0,0 +1,229 @@
+package reactive_sum.rx;
+
+import org.junit.Test;
+import rx.Observable;
+import rx.Scheduler;
+import rx.Subscription;
+import rx.exceptions.OnErrorNotImplementedException;
+import rx.observers.TestSubscriber;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.startsWith;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Runs against workers on platform threads from the same code path the virtual threads take, so
+ * the worker is covered on JVMs before 21 too, and checks the shared instance separately. The
+ * tests of the virtual threads themselves are skipped on JVMs without them.
+ */
+public class VirtualThreadSchedulerTest {
+
+    private final VirtualThreadScheduler scheduler = new VirtualThreadScheduler(task -> {
+        Thread thread = new Thread(task, "RxVirtualThread-test");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Test
+    public void testInstanceRunsOnVirtualThreadsOrIo() throws Exception {
+        TestSubscriber<String> ts = new TestSubscriber<>();
+        Observable.fromCallable(() -> Thread.currentThread().getName())
+                  .subscribeOn(VirtualThreadScheduler.instance())
+                  .subscribe(ts);
+
+        ts.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        String prefix = VirtualThreadScheduler.isVirtual() ? "RxVirtualThread-" : "RxIoScheduler-";
+        assertThat(ts.getOnNextEvents().get(0), startsWith(prefix));
+    }
+
+    @Test
+    public void testInstanceRunsBlockingWorkOnVirtualThreads() throws Exception {
+        assumeTrue(VirtualThreadScheduler.isVirtual());
+        int count = 10_000;
+        CountDownLatch allStarted = new CountDownLatch(count);
+        TestSubscriber<Boolean> ts = new TestSubscriber<>();
+        Observable.range(0, count)
+                  .flatMap(i -> Observable.fromCallable(() -> {
+                      allStarted.countDown();
+                      allStarted.await();
+                      // Thread.isVirtual() is not in the Java 8 API the build targets
+                      return (Boolean) Thread.class.getMethod("isVirtual").invoke(Thread.currentThread());
+                  }).subscribeOn(VirtualThreadScheduler.instance()), count)
+                  .subscribe(ts);
+
+        ts.awaitTerminalEvent(20, TimeUnit.SECONDS);
+        ts.assertNoErrors();
+        ts.assertValueCount(count);
+        assertFalse(ts.getOnNextEvents().contains(false));
+    }
+
+    @Test
+    public void testSubscribeOnRunsBlockingWorkOffTheCallingThread() throws Exception {
+        TestSubscriber<String> ts = new TestSubscriber<>();
+        Observable.fromCallable(() -> {
+            Thread.sleep(10);
+            return Thread.currentThread().getName();
+        }).subscribeOn(scheduler).subscribe(ts);
+
+        ts.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        ts.assertValueCount(1);
+        assertThat(ts.getOnNextEvents().get(0), startsWith("RxVirtualThread-"));
+        assertFalse(ts.getLastSeenThread() == Thread.currentThread());
+    }
+
+    @Test
+    public void testWorkerRunsItsTasksInOrder() throws Exception {
+        Scheduler.Worker worker = scheduler.createWorker();
+        List<Integer> order = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(1);
+        for (int i = 0; i < 100; i++) {
+            int task = i;
+            worker.schedule(() -> {
+                order.add(task);
+                if (task == 99) {
+                    done.countDown();
+                }
+            });
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 100; i++) {
+            assertThat(order.get(i), equalTo(i));
+        }
+        worker.unsubscribe();
+    }
+
+    @Test
+    public void testUnsubscribedWorkerDropsDelayedTasks() throws Exception {
+        Scheduler.Worker worker = scheduler.createWorker();
+        AtomicBoolean ran = new AtomicBoolean();
+        worker.schedule(() -> ran.set(true), 50, TimeUnit.MILLISECONDS);
+        worker.unsubscribe();
+
+        Thread.sleep(150);
+        assertFalse(ran.get());
+        assertTrue(worker.isUnsubscribed());
+    }
+
+    @Test
+    public void testUnsubscribeInterruptsBlockedTask() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        Scheduler.Worker worker = scheduler.createWorker();
+        worker.schedule(() -> {
+            started.countDown();
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+        });
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        worker.unsubscribe();
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testDelayedTasksRunInDueOrder() throws Exception {
+        Scheduler.Worker worker = scheduler.createWorker();
+        List<String> order = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(3);
+        worker.schedule(() -> { order.add("late"); done.countDown(); }, 60, TimeUnit.MILLISECONDS);
+        worker.schedule(() -> { order.add("early"); done.countDown(); }, 20, TimeUnit.MILLISECONDS);
+        worker.schedule(() -> { order.add("now"); done.countDown(); });
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertThat(order, equalTo(Arrays.asList("now", "early", "late")));
+        worker.unsubscribe();
+    }
+
+    @Test
+    public void testUnsubscribedTaskIsDropped() throws Exception {
+        Scheduler.Worker worker = scheduler.createWorker();
+        AtomicBoolean ran = new AtomicBoolean();
+        CountDownLatch done = new CountDownLatch(1);
+        Subscription task = worker.schedule(() -> ran.set(true), 50, TimeUnit.MILLISECONDS);
+        worker.schedule(done::countDown, 100, TimeUnit.MILLISECONDS);
+        task.unsubscribe();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertFalse(ran.get());
+        assertFalse(worker.isUnsubscribed());
+        worker.unsubscribe();
+    }
+
+    @Test
+    public void testWorkerCanUnsubscribeItselfWithoutInterruptingTheTask() throws Exception {
+        Scheduler.Worker worker = scheduler.createWorker();
+        AtomicBoolean interrupted = new AtomicBoolean(true);
+        CountDownLatch done = new CountDownLatch(1);
+        worker.schedule(() -> {
+            worker.unsubscribe();
+            interrupted.set(Thread.currentThread().isInterrupted());
+            done.countDown();
+        });
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertFalse(interrupted.get());
+    }
+
+    @Test
+    public void testTaskErrorsReachTheUncaughtExceptionHandler() throws Exception {
+        List<Throwable> uncaught = new CopyOnWriteArrayList<>();
+        VirtualThreadScheduler reporting = new VirtualThreadScheduler(task -> {
+            Thread thread = new Thread(task, "RxVirtualThread-test");
+            thread.setDaemon(true);
+            thread.setUncaughtExceptionHandler((t, e) -> uncaught.add(e));
+            return thread;
+        });
+        Scheduler.Worker worker = reporting.createWorker();
+        IllegalStateException failure = new IllegalStateException("boom");
+        OnErrorNotImplementedException notImplemented = new OnErrorNotImplementedException(failure);
+        CountDownLatch done = new CountDownLatch(1);
+
+        worker.schedule(() -> {
+            throw failure;
+        });
+        worker.schedule(() -> {
+            throw notImplemented;
+        });
+        worker.schedule(done::countDown);
+
+        // the worker keeps running tasks after reporting the errors
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertThat(uncaught, contains((Throwable) failure, notImplemented));
+        worker.unsubscribe();
+    }
+
+    @Test
+    public void testManyConcurrentBlockingSubscriptions() throws Exception {
+        int count = 1000;
+        CountDownLatch allStarted = new CountDownLatch(count);
+        TestSubscriber<Integer> ts = new TestSubscriber<>();
+        Observable.range(0, count)
+                  .flatMap(i -> Observable.fromCallable(() -> {
+                      allStarted.countDown();
+                      allStarted.await();
+                      return i;
+                  }).subscribeOn(scheduler), count)
+                  .subscribe(ts);
+
+        ts.awaitTerminalEvent(20, TimeUnit.SECONDS);
+        ts.assertNoErrors();
+        ts.assertValueCount(count);
+        assertThat(Collections.max(ts.getOnNextEvents()), equalTo(count - 1));
+    }
+}
@@ -0,0 +1,173 @@
+package reactive_sum.rx;
+
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import rx.Observable;
+import rx.Scheduler;
+import rx.Subscription;
+import rx.observers.TestSubscriber;
+import rx.schedulers.TestScheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.IsEqual.equalTo;
+
+public class WheelTestSchedulerTest {
+
+    @Test
+    public void testInterval() throws Exception {
+        WheelTestScheduler scheduler = new WheelTestScheduler();
+        List<Long> list = new ArrayList<>();
+
+        Observable.interval(1, TimeUnit.SECONDS, scheduler).take(5).subscribe(list::add);
+        scheduler.advanceTimeBy(10, TimeUnit.SECONDS);
+
+        assertThat(list, Matchers.contains(0L, 1L, 2L, 3L, 4L));
+        assertThat(scheduler.now(), equalTo(10_000L));
+    }
+
+    @Test
+    public void testIntervalWithBackpressure() throws Exception {
+        WheelTestScheduler scheduler = new WheelTestScheduler();
+        TestSubscriber<Long> subscriber = TestSubscriber.create(3);
+
+        Observable.interval(1, TimeUnit.SECONDS, scheduler).subscribe(subscriber);
+        scheduler.advanceTimeBy(3, TimeUnit.SECONDS);
+
+        assertThat(subscriber.getOnNextEvents(), Matchers.contains(0L, 1L, 2L));
+    }
+
+    @Test
+    public void testSwitchMapMatchesTestScheduler() throws Exception {
+        TestScheduler testScheduler = new TestScheduler();
+        WheelTestScheduler wheelScheduler = new WheelTestScheduler();
+
+        assertThat(switchMap(wheelScheduler, () -> wheelScheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS)),
+                   equalTo(switchMap(testScheduler, () -> testScheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS))));
+    }
+
+    @Test
+    public void testCancelledActionDoesNotRun() throws Exception {
+        WheelTestScheduler scheduler = new WheelTestScheduler();
+        List<String> ran = new ArrayList<>();
+        Scheduler.Worker worker = scheduler.createWorker();
+        Subscription cancelled = worker.schedule(() -> ran.add("cancelled"), 5, TimeUnit.SECONDS);
+        worker.schedule(() -> ran.add("kept"), 5, TimeUnit.SECONDS);
+        cancelled.unsubscribe();
+
+        scheduler.advanceTimeBy(5, TimeUnit.SECONDS);
+
+        assertThat(ran, Matchers.contains("kept"));
+        assertThat(scheduler.getPendingCount(), equalTo(0));
+    }
+
+    @Test
+    public void testRunsActionsInTestSchedulerOrder() throws Exception {
+        for (long seed = 0; seed < 50; seed++) {
+            TestScheduler testScheduler = new TestScheduler();
+            WheelTestScheduler wheelScheduler = new WheelTestScheduler();
+
+            List<String> expected = runScript(testScheduler, seed, testScheduler::advanceTimeBy);
+            List<String> actual = runScript(wheelScheduler, seed, wheelScheduler::advanceTimeBy);
+
+            assertThat("seed " + seed, actual, equalTo(expected));
+        }
+    }
+
+    @Test
+    public void testDayOfMillisecondIntervals() throws Exception {
+        WheelTestScheduler scheduler = new WheelTestScheduler();
+        TestSubscriber<Long> subscriber = new TestSubscriber<>();
+        long[] count = new long[1];
+        Observable.interval(1, TimeUnit.MILLISECONDS, scheduler).subscribe(i -> count[0]++);
+
+        long start = System.nanoTime();
+        scheduler.advanceTimeBy(1, TimeUnit.DAYS);
+        long elapsed = System.nanoTime() - start;
+
+        assertThat(count[0], equalTo(TimeUnit.DAYS.toMillis(1)));
+        assertThat(TimeUnit.NANOSECONDS.toSeconds(elapsed), Matchers.lessThan(60L));
+    }
+
+    private static List<String> switchMap(Scheduler scheduler, Runnable advance) {
+        TestSubscriber<String> ts = new TestSubscriber<>();
+        Observable<String> ob1 = Observable.interval(10L, TimeUnit.MILLISECONDS, scheduler).map(ii -> "one" + ii);
+        Observable<String> ob2 = Observable.interval(20L, 10L, TimeUnit.MILLISECONDS, scheduler).map(ii -> "two" + ii);
+        ob1.switchMap(item -> ob2.map(two -> item + two)).subscribe(ts);
+        advance.run();
+        return ts.getOnNextEvents();
+    }
+
+    /**
+     * Schedules actions that schedule more actions, with and without delays, sub-tick and
+     * multi-level ones, and cancel others or their worker, recording which action ran when.
+     */
+    private static List<String> runScript(Scheduler scheduler, long seed, BiConsumer<Long, TimeUnit> advance) {
+        Random random = new Random(seed);
+        List<String> log = new ArrayList<>();
+        List<Subscription> pending = new ArrayList<>();
+        List<Scheduler.Worker> workers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            workers.add(scheduler.createWorker());
+        }
+        int[] ids = new int[1];
+
+        class Step implements rx.functions.Action0 {
+            final int id = ids[0]++;
+
+            @Override
+            public void call() {
+                log.add(id + "@" + scheduler.now());
+                for (int i = random.nextInt(3); i > 0 && ids[0] < 2000; i--) {
+                    schedule();
+                }
+                if (!pending.isEmpty() && random.nextInt(4) == 0) {
+                    pending.remove(random.nextInt(pending.size())).unsubscribe();
+                }
+                if (random.nextInt(200) == 0) {
+                    workers.get(random.nextInt(workers.size())).unsubscribe();
+                }
+            }
+
+            void schedule() {
+                Scheduler.Worker worker = workers.get(random.nextInt(workers.size()));
+                Step step = new Step();
+                switch (random.nextInt(6)) {
+                    case 0:
+                        pending.add(worker.schedule(step));
+                        break;
+                    case 1:
+                        pending.add(worker.schedule(step, 0, TimeUnit.MILLISECONDS));
+                        break;
+                    case 2:
+                        pending.add(worker.schedule(step, random.nextInt(1_000_000), TimeUnit.NANOSECONDS));
+                        break;
+                    case 3:
+                        pending.add(worker.schedule(step, random.nextInt(100), TimeUnit.MILLISECONDS));
+                        break;
+                    case 4:
+                        pending.add(worker.schedule(step, random.nextInt(10_000), TimeUnit.MILLISECONDS));
+                        break;
+                    default:
+                        pending.add(worker.schedule(step, random.nextInt(100_000), TimeUnit.SECONDS));
+                        break;
+                }
+            }
+        }
+
+        for (int i = 0; i < 20; i++) {
+            new Step().schedule();
+        }
+        for (int i = 0; i < 200; i++) {
+            advance.accept((long) random.nextInt(1_000_000), TimeUnit.MICROSECONDS);
+            log.add("advanced@" + scheduler.now());
+        }
+        advance.accept(200_000L, TimeUnit.SECONDS);
+        return log;
+    }
+}